@@ -0,0 +1,19 @@
+-- Theo dõi thay đổi cho StudentDAO.findChangesSince / đồng bộ tăng dần (SQL Server).
+-- Cột rowversion tự tăng khi dòng được thêm/sửa; bảng tombstone ghi lại mã SV đã xoá.
+-- Không dùng trigger vì MERGE ... OUTPUT $action (không có INTO) báo lỗi trên bảng có trigger.
+-- Chạy lại nhiều lần không sao. Ứng dụng chỉ kiểm tra schema, không tự tạo.
+
+IF COL_LENGTH('students', 'row_version') IS NULL
+    ALTER TABLE students ADD row_version rowversion;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_students_row_version' AND object_id = OBJECT_ID('students'))
+    CREATE INDEX IX_students_row_version ON students (row_version);
+GO
+
+IF OBJECT_ID('student_tombstones') IS NULL
+    CREATE TABLE student_tombstones (
+        student_id varchar(20) NOT NULL PRIMARY KEY,
+        row_version rowversion
+    );
+GO
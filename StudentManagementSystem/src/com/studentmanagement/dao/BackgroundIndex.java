@@ -0,0 +1,167 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.database.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Phần chung của các index trong bộ nhớ dựng từ bảng students (TrigramIndex, BitmapIndex, GpaIndex): dựng ở thread nền
+// khi chưa có, quá TTL hoặc quá nhiều phần tử chết, trong lúc đó vẫn dùng trạng thái cũ. Thay đổi từ DAO ghi xen giữa lúc
+// dựng được giữ lại và áp lên trạng thái mới trước khi công bố. Trạng thái S chỉ được dùng khi giữ khoá của index.
+abstract class BackgroundIndex<S> {
+
+    private static final int SEED_FETCH_SIZE = 1000;
+
+    private final String name;
+    private final String seedSql;
+
+    private S state;
+    private long builtAt = 0;
+    private List<Object[]> pendingDuringBuild;
+    // Tăng khi reset, để lần dựng đang chạy dở không ghi đè trạng thái đã bị bỏ
+    private long generation = 0;
+    private final AtomicBoolean building = new AtomicBoolean(false);
+    // Mỗi lúc chỉ một lần dựng (thread nền hoặc buildIfMissing)
+    private final Object buildLock = new Object();
+
+    BackgroundIndex(String name, String seedSql) {
+        this.name = name;
+        this.seedSql = seedSql;
+    }
+
+    // Trạng thái rỗng để nạp bảng vào
+    abstract S newState();
+
+    // Nạp một dòng của seedSql
+    abstract void seedRow(S target, ResultSet rs) throws SQLException;
+
+    // Áp một thay đổi từ DAO; value = null là xoá
+    abstract void apply(S target, String studentId, Object value);
+
+    // Sau khi nạp xong bảng, trước khi áp các thay đổi ghi xen
+    void seeded(S target) {
+    }
+
+    // true = nên dựng lại dù chưa quá TTL
+    boolean isStale(S current) {
+        return false;
+    }
+
+    // Trạng thái hiện tại vừa đổi (null sau reset), gọi khi giữ khoá
+    void published(S current) {
+    }
+
+    // Trạng thái hiện tại, null nếu chưa sẵn sàng; chỉ gọi khi giữ khoá
+    final S current() {
+        return state;
+    }
+
+    synchronized boolean isReady() {
+        return state != null;
+    }
+
+    synchronized void reset() {
+        state = null;
+        generation++;
+        published(null);
+    }
+
+    void refreshIfNeeded(long ttlMillis) {
+        boolean needed;
+        synchronized (this) {
+            needed = state == null
+                    || (ttlMillis > 0 && System.currentTimeMillis() - builtAt >= ttlMillis)
+                    || isStale(state);
+        }
+        if (needed && building.compareAndSet(false, true)) {
+            Thread builder = new Thread(() -> {
+                try {
+                    build();
+                } catch (SQLException e) {
+                    System.err.println("Error building " + name + ": " + e.getMessage());
+                } finally {
+                    building.set(false);
+                }
+            }, "student-" + name.toLowerCase(Locale.ROOT).replace(' ', '-') + "-builder");
+            builder.setDaemon(true);
+            builder.start();
+        }
+    }
+
+    // Chờ lần dựng đang chạy ở thread nền (nếu có) thay vì quét bảng thêm lần nữa
+    void buildIfMissing() throws SQLException {
+        synchronized (buildLock) {
+            if (!isReady()) {
+                scan();
+            }
+        }
+    }
+
+    void build() throws SQLException {
+        synchronized (buildLock) {
+            scan();
+        }
+    }
+
+    // Ghi từ DAO: áp lên trạng thái hiện tại và giữ lại cho lần dựng đang chạy
+    synchronized void record(String studentId, Object value) {
+        if (studentId == null) {
+            return;
+        }
+        if (pendingDuringBuild != null) {
+            pendingDuringBuild.add(new Object[]{studentId, value});
+        }
+        if (state != null) {
+            apply(state, studentId, value);
+            published(state);
+        }
+    }
+
+    private void scan() throws SQLException {
+        long startGeneration;
+        synchronized (this) {
+            pendingDuringBuild = new ArrayList<>();
+            startGeneration = generation;
+        }
+
+        S fresh = newState();
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(seedSql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(SEED_FETCH_SIZE);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                seedRow(fresh, rs);
+            }
+            seeded(fresh);
+
+            synchronized (this) {
+                if (generation != startGeneration) {
+                    return;
+                }
+                for (Object[] change : pendingDuringBuild) {
+                    apply(fresh, (String) change[0], change[1]);
+                }
+                state = fresh;
+                builtAt = System.currentTimeMillis();
+                published(state);
+            }
+        } finally {
+            synchronized (this) {
+                pendingDuringBuild = null;
+            }
+            DatabaseConnection.closeAll(conn, pstmt, rs);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.model.Student;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Index phụ trong bộ nhớ cho lớp, ngành, giới tính và xếp loại: mỗi giá trị được mã hoá thành số (dictionary),
+// mỗi mã giữ một CompressedBitmap các ordinal sinh viên. Lọc nhiều tiêu chí = OR trong một cột, AND giữa các cột.
+class BitmapIndex extends BackgroundIndex<BitmapIndex.State> {
+
+    static final int CLASS_NAME = 0;
+    static final int MAJOR = 1;
+    static final int GENDER = 2;
+    static final int RANK = 3;
+    private static final int COLUMNS = 4;
+
+    private static final String SEED_SQL = "SELECT student_id, class_name, major, gender, gpa FROM students";
+    private static final int NO_VALUE = -1;
+
+    // Giá trị so sánh không phân biệt hoa thường như collation của SQL Server; hiển thị theo lần gặp đầu tiên
+    private static final class Dictionary {
+        final Map<String, Integer> codes = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+        final List<CompressedBitmap> bitmaps = new ArrayList<>();
+
+        int encode(String value) {
+            if (value == null) {
+                return NO_VALUE;
+            }
+            String key = value.toUpperCase(Locale.ROOT);
+            Integer code = codes.get(key);
+            if (code == null) {
+                code = values.size();
+                codes.put(key, code);
+                values.add(value);
+                bitmaps.add(new CompressedBitmap());
+            }
+            return code;
+        }
+
+        CompressedBitmap bitmapOf(String value) {
+            Integer code = value != null ? codes.get(value.toUpperCase(Locale.ROOT)) : null;
+            return code != null ? bitmaps.get(code) : null;
+        }
+    }
+
+    static final class State {
+        final IdOrdinals ordinals = new IdOrdinals();
+        final Dictionary[] dictionaries = new Dictionary[COLUMNS];
+        // Mã giá trị của từng ordinal theo cột, để gỡ khỏi bitmap cũ khi sinh viên bị ghi lại hoặc xoá
+        int[][] codes = new int[COLUMNS][1024];
+        final CompressedBitmap live = new CompressedBitmap();
+
+        State() {
+            for (int c = 0; c < COLUMNS; c++) {
+                dictionaries[c] = new Dictionary();
+            }
+        }
+    }
+
+    BitmapIndex() {
+        super("filter index", SEED_SQL);
+    }
+
+    // Giá trị các cột của index theo thứ tự CLASS_NAME, MAJOR, GENDER, RANK
+    static String[] valuesOf(Student student) {
+        return new String[] {student.getClassName(), student.getMajor(), student.getGender(), student.getAcademyRank()};
+    }
+
+    void put(Student student) {
+        record(student.getStudentId(), valuesOf(student));
+    }
+
+    void remove(String studentId) {
+        record(studentId, null);
+    }
+
+    @Override
+    State newState() {
+        return new State();
+    }
+
+    @Override
+    void seedRow(State target, ResultSet rs) throws SQLException {
+        // GPA NULL xếp loại như 0.0, giống thống kê
+        add(target, rs.getString(1), new String[]{rs.getString(2), rs.getString(3), rs.getString(4),
+                Student.getAcademyRank(rs.getDouble(5))});
+    }
+
+    @Override
+    void apply(State target, String studentId, Object value) {
+        if (value != null) {
+            add(target, studentId, (String[]) value);
+        } else {
+            remove(target, studentId);
+        }
+    }
+
+    // Quá nhiều ordinal chết (sinh viên đã ghi lại hoặc xoá) thì dựng lại dù chưa quá TTL
+    @Override
+    boolean isStale(State current) {
+        return current.ordinals.deadCount() > Math.max(1024, current.ordinals.liveCount());
+    }
+
+    // ===== Truy vấn =====
+
+    // Mã SV có giá trị đúng bằng value ở cột column; null nếu index chưa sẵn sàng
+    synchronized List<String> lookup(int column, String value) {
+        State state = current();
+        if (state == null) {
+            return null;
+        }
+        CompressedBitmap bitmap = state.dictionaries[column].bitmapOf(value);
+        return bitmap != null ? idsOf(state, bitmap) : new ArrayList<>();
+    }
+
+    // filter[column] = các giá trị chấp nhận (OR), null hoặc rỗng = không lọc cột đó; null nếu index chưa sẵn sàng
+    synchronized List<String> filter(String[][] filter) {
+        State state = current();
+        if (state == null) {
+            return null;
+        }
+        return idsOf(state, evaluate(state, filter, -1));
+    }
+
+    // Số sinh viên theo từng giá trị của column, áp dụng bộ lọc của các cột khác (không tính cột đang đếm)
+    synchronized Map<String, Long> counts(int column, String[][] filter) {
+        State state = current();
+        if (state == null) {
+            return null;
+        }
+        CompressedBitmap others = evaluate(state, filter, column);
+        Dictionary dictionary = state.dictionaries[column];
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int code = 0; code < dictionary.values.size(); code++) {
+            CompressedBitmap bitmap = dictionary.bitmaps.get(code);
+            long count = others == state.live ? bitmap.cardinality() : CompressedBitmap.andCardinality(bitmap, others);
+            if (count > 0) {
+                counts.put(dictionary.values.get(code), count);
+            }
+        }
+        return counts;
+    }
+
+    synchronized int size() {
+        State state = current();
+        return state != null ? state.ordinals.liveCount() : 0;
+    }
+
+    // Bitmap + mảng mã; không tính bảng ánh xạ mã SV (IdOrdinals) và chuỗi trong dictionary
+    synchronized long memoryBytes() {
+        State state = current();
+        if (state == null) {
+            return 0;
+        }
+        long bytes = state.live.memoryBytes();
+        for (int c = 0; c < COLUMNS; c++) {
+            bytes += state.codes[c].length * 4L;
+            for (CompressedBitmap bitmap : state.dictionaries[c].bitmaps) {
+                bytes += bitmap.memoryBytes();
+            }
+        }
+        return bytes;
+    }
+
+    synchronized String getStatusSummary() {
+        State state = current();
+        if (state == null) {
+            return "Filter index: not built";
+        }
+        int values = 0;
+        for (Dictionary dictionary : state.dictionaries) {
+            values += dictionary.values.size();
+        }
+        return String.format("Filter index: %d students, %d distinct values, %.1f KB",
+                state.ordinals.liveCount(), values, memoryBytes() / 1024.0);
+    }
+
+    // skipColumn >= 0: bỏ qua điều kiện của cột đó
+    private static CompressedBitmap evaluate(State state, String[][] filter, int skipColumn) {
+        CompressedBitmap result = state.live;
+        for (int c = 0; c < COLUMNS && filter != null && c < filter.length; c++) {
+            if (c == skipColumn || filter[c] == null || filter[c].length == 0) {
+                continue;
+            }
+            CompressedBitmap matches = new CompressedBitmap();
+            for (String value : filter[c]) {
+                CompressedBitmap bitmap = state.dictionaries[c].bitmapOf(value);
+                if (bitmap != null) {
+                    matches = CompressedBitmap.or(matches, bitmap);
+                }
+            }
+            result = result == state.live ? matches : CompressedBitmap.and(result, matches);
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static List<String> idsOf(State state, CompressedBitmap bitmap) {
+        int[] ordinals = bitmap.toArray();
+        List<String> ids = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            String id = state.ordinals.idAt(ordinal);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    // ===== Cập nhật =====
+
+    private static void add(State target, String studentId, String[] values) {
+        if (studentId == null) {
+            return;
+        }
+        remove(target, studentId);
+        int ordinal = target.ordinals.assign(studentId);
+
+        if (ordinal >= target.codes[0].length) {
+            for (int c = 0; c < COLUMNS; c++) {
+                target.codes[c] = Arrays.copyOf(target.codes[c], Math.max(ordinal + 1, target.codes[c].length * 2));
+            }
+        }
+        for (int c = 0; c < COLUMNS; c++) {
+            int code = target.dictionaries[c].encode(values[c]);
+            target.codes[c][ordinal] = code;
+            if (code != NO_VALUE) {
+                target.dictionaries[c].bitmaps.get(code).add(ordinal);
+            }
+        }
+        target.live.add(ordinal);
+    }
+
+    private static void remove(State target, String studentId) {
+        int ordinal = target.ordinals.ordinalOf(studentId);
+        if (ordinal < 0) {
+            return;
+        }
+        for (int c = 0; c < COLUMNS; c++) {
+            int code = target.codes[c][ordinal];
+            if (code != NO_VALUE) {
+                target.dictionaries[c].bitmaps.get(code).remove(ordinal);
+            }
+        }
+        target.live.remove(ordinal);
+        target.ordinals.remove(studentId);
+    }
+}
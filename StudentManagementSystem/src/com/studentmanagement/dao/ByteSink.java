@@ -0,0 +1,71 @@
+package com.studentmanagement.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Mảng byte tự mở rộng cho các định dạng nhị phân (snapshot, nhật ký thay đổi), dùng lại được sau reset()
+// Số nguyên ghi dạng varint 7 bit/byte; chuỗi = varint(độ dài UTF-8 + 1) rồi các byte, 0 = NULL
+class ByteSink {
+
+    byte[] bytes;
+    int length;
+
+    ByteSink(int capacity) {
+        this.bytes = new byte[capacity];
+    }
+
+    void reset() {
+        length = 0;
+    }
+
+    void writeVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    void writeString(String value) {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(utf8.length + 1L);
+        ensure(utf8.length);
+        System.arraycopy(utf8, 0, bytes, length, utf8.length);
+        length += utf8.length;
+    }
+
+    void writeInt(int value) {
+        ensure(4);
+        bytes[length++] = (byte) (value >>> 24);
+        bytes[length++] = (byte) (value >>> 16);
+        bytes[length++] = (byte) (value >>> 8);
+        bytes[length++] = (byte) value;
+    }
+
+    void writeByte(int value) {
+        ensure(1);
+        bytes[length++] = (byte) value;
+    }
+
+    void writeBytes(byte[] source, int offset, int count) {
+        ensure(count);
+        System.arraycopy(source, offset, bytes, length, count);
+        length += count;
+    }
+
+    // Số nguyên có dấu nhỏ (kể cả âm) thành varint ngắn
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.studentmanagement.dao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Đọc dữ liệu do ByteSink ghi; vượt quá giới hạn hoặc varint sai báo IOException thay vì đọc rác
+class ByteSource {
+
+    private byte[] bytes;
+    private int pos;
+    private int limit;
+
+    void reset(byte[] bytes, int offset, int limit) {
+        this.bytes = bytes;
+        this.pos = offset;
+        this.limit = limit;
+    }
+
+    boolean isExhausted() {
+        return pos == limit;
+    }
+
+    int readByte() throws IOException {
+        if (pos >= limit) {
+            throw corrupt();
+        }
+        return bytes[pos++] & 0xFF;
+    }
+
+    long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos >= limit) {
+                throw corrupt();
+            }
+            byte b = bytes[pos++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw corrupt();
+    }
+
+    String readString() throws IOException {
+        long length = readVarLong();
+        if (length == 0) {
+            return null;
+        }
+        if (length < 0 || length - 1 > limit - pos) {
+            throw corrupt();
+        }
+        String value = new String(bytes, pos, (int) length - 1, StandardCharsets.UTF_8);
+        pos += (int) length - 1;
+        return value;
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static IOException corrupt() {
+        return new IOException("Khối dữ liệu hỏng");
+    }
+}
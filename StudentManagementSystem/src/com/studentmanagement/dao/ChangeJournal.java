@@ -0,0 +1,661 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.model.Student;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Nhật ký thay đổi cho sao lưu gia tăng: mỗi lần DAO ghi/xoá thêm một bản ghi có số thứ tự tăng dần.
+// Bản ghi được gom trong bộ nhớ và ghi + fsync theo lô (tối đa SYNC_INTERVAL_MILLIS một lần) thay vì fsync từng lần ghi.
+// Nhật ký chia thành các segment "journal-<số thứ tự đầu>.log"; segment cũ được xoá sau mỗi lần sao lưu toàn bộ.
+// Nhật ký chỉ có các thay đổi qua DAO của process đang giữ khoá "journal.lock"; process khác dùng cùng thư mục
+// thì không ghi nhật ký (sao lưu gia tăng từ nhật ký bị từ chối) cho tới khi lấy được khoá.
+//
+// Bản ghi: độ dài payload, crc32(payload) (int big-endian), payload = varint số thứ tự, loại, mã SV, rồi với PUT:
+// họ tên, giới tính, địa chỉ, điện thoại, email, lớp, ngành (chuỗi như ByteSink), ngày sinh, GPA x100 (như snapshot).
+// File gia tăng: INCREMENT_MAGIC, version, nguồn (từ version 2), mã nhật ký, từ số thứ tự (không gồm), đến số thứ tự,
+// các bản ghi, int 0. Nguồn SOURCE_SERVER: mã nhật ký là mã database, số thứ tự là row_version (ServerIncrementWriter).
+class ChangeJournal {
+
+    static final int PUT = 1;
+    static final int DELETE = 2;
+
+    static final int SOURCE_JOURNAL = 1;
+    static final int SOURCE_SERVER = 2;
+
+    static final byte[] INCREMENT_MAGIC = {'S', 'M', 'S', 'J'};
+    private static final int INCREMENT_VERSION = 2;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String ID_FILE = "journal.id";
+    private static final String LOCK_FILE = "journal.lock";
+    private static final long SEGMENT_BYTES = 16L << 20;
+    private static final int FLUSH_BYTES = 64 * 1024;
+    private static final long SYNC_INTERVAL_MILLIS = 200;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    static final class Record {
+        final long sequence;
+        final int type;
+        final String studentId;
+        // null với DELETE
+        final Student student;
+
+        Record(long sequence, int type, String studentId, Student student) {
+            this.sequence = sequence;
+            this.type = type;
+            this.studentId = studentId;
+            this.student = student;
+        }
+    }
+
+    // Thông tin đầu file gia tăng
+    static final class Increment {
+        final int source;
+        final long journalId;
+        final long fromSequence;
+        final long toSequence;
+
+        Increment(int source, long journalId, long fromSequence, long toSequence) {
+            this.source = source;
+            this.journalId = journalId;
+            this.fromSequence = fromSequence;
+            this.toSequence = toSequence;
+        }
+    }
+
+    interface RecordHandler {
+        void handle(Record record) throws IOException;
+    }
+
+    private final Path directory;
+    // Giữ tới khi process kết thúc
+    private FileLock lock;
+    private long journalId;
+    private FileChannel segment;
+    private long segmentSize;
+    private long nextSequence = 1;
+    private final ByteSink pending = new ByteSink(FLUSH_BYTES * 2);
+    private final ByteSink payload = new ByteSink(512);
+    private final CRC32 crc = new CRC32();
+    private boolean unsynced = false;
+    private boolean opened = false;
+    // Lỗi ghi: các thay đổi sau đó không còn trong nhật ký, sao lưu gia tăng bị từ chối cho tới khi sao lưu toàn bộ
+    private IOException failure;
+    private Thread syncer;
+
+    ChangeJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    synchronized void put(Student student) {
+        append(PUT, student.getStudentId(), student);
+    }
+
+    synchronized void delete(String studentId) {
+        append(DELETE, studentId, null);
+    }
+
+    // Ghi hết phần đang gom và fsync; trả về số thứ tự của bản ghi cuối (0 = chưa có)
+    synchronized long sync() throws IOException {
+        open();
+        if (failure != null) {
+            throw failure;
+        }
+        try {
+            writePending();
+            if (unsynced) {
+                segment.force(false);
+                unsynced = false;
+            }
+        } catch (IOException e) {
+            fail(e);
+            throw e;
+        }
+        return nextSequence - 1;
+    }
+
+    // Mốc cho một lần sao lưu toàn bộ. Nếu nhật ký đang lỗi thì mở lại và bỏ qua một số thứ tự,
+    // để chuỗi gia tăng từ các snapshot cũ hơn phát hiện được đoạn thay đổi bị mất
+    synchronized long checkpoint() throws IOException {
+        open();
+        if (failure != null) {
+            if (segment != null) {
+                try {
+                    segment.close();
+                } catch (IOException e) {
+                    // đang khôi phục sau lỗi
+                }
+                segment = null;
+            }
+            pending.reset();
+            unsynced = false;
+            failure = null;
+            opened = false;
+            open();
+            if (failure != null) {
+                throw failure;
+            }
+            segment.close();
+            nextSequence++;
+            openSegment(nextSequence, 0);
+        }
+        return sync();
+    }
+
+    synchronized long getJournalId() throws IOException {
+        open();
+        return journalId;
+    }
+
+    // Sau một lần sao lưu toàn bộ tới sequence: bỏ các segment chỉ chứa bản ghi cũ hơn
+    synchronized void truncateThrough(long sequence) {
+        try {
+            open();
+            if (failure != null) {
+                return;
+            }
+            List<long[]> segments = listSegments();
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                if (segments.get(i + 1)[0] - 1 <= sequence) {
+                    Files.deleteIfExists(segmentPath(segments.get(i)[0]));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error truncating change journal: " + e.getMessage());
+        }
+    }
+
+    // ===== File gia tăng =====
+
+    // Chép các bản ghi (afterSequence, cuối nhật ký] sang file; trả về số thứ tự cuối đã chép
+    long writeIncrement(long expectedJournalId, long afterSequence, String filePath) throws IOException {
+        long throughSequence = sync();
+        if (expectedJournalId != journalId) {
+            throw new IOException("Bản sao lưu trước không thuộc nhật ký thay đổi này");
+        }
+        if (afterSequence < 0 || afterSequence > throughSequence) {
+            throw new IOException("Bản sao lưu trước không khớp với nhật ký thay đổi");
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filePath, false), BUFFER_SIZE))) {
+            out.write(INCREMENT_MAGIC);
+            out.writeByte(INCREMENT_VERSION);
+            out.writeByte(SOURCE_JOURNAL);
+            out.writeLong(journalId);
+            out.writeLong(afterSequence);
+            out.writeLong(throughSequence);
+
+            final long[] expected = {afterSequence + 1};
+            readSegments(afterSequence, throughSequence, (bytes, length, checksum, sequence) -> {
+                if (sequence != expected[0]) {
+                    throw new IOException("Nhật ký thay đổi bị thiếu từ số thứ tự " + expected[0] + ", cần sao lưu toàn bộ");
+                }
+                expected[0]++;
+                out.writeInt(length);
+                out.writeInt(checksum);
+                out.write(bytes, 0, length);
+            });
+            if (expected[0] != throughSequence + 1) {
+                throw new IOException("Nhật ký thay đổi bị thiếu từ số thứ tự " + expected[0] + ", cần sao lưu toàn bộ");
+            }
+            out.writeInt(0);
+        }
+        return throughSequence;
+    }
+
+    static boolean isIncrement(String filePath) {
+        try (InputStream in = Files.newInputStream(java.nio.file.Paths.get(filePath))) {
+            byte[] magic = new byte[INCREMENT_MAGIC.length];
+            int n = 0;
+            while (n < magic.length) {
+                int read = in.read(magic, n, magic.length - n);
+                if (read < 0) {
+                    return false;
+                }
+                n += read;
+            }
+            return Arrays.equals(magic, INCREMENT_MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // handler = null: chỉ kiểm tra header, CRC và tính liên tục của số thứ tự
+    static Increment readIncrement(String filePath, RecordHandler handler) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(java.nio.file.Paths.get(filePath)), BUFFER_SIZE))) {
+            byte[] magic = new byte[INCREMENT_MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, INCREMENT_MAGIC)) {
+                throw new IOException("Không phải file sao lưu gia tăng");
+            }
+            int version = in.readUnsignedByte();
+            if (version < 1 || version > INCREMENT_VERSION) {
+                throw new IOException("Phiên bản file sao lưu gia tăng không hỗ trợ: " + version);
+            }
+            // Version 1 chỉ có bản gia tăng từ nhật ký
+            int origin = version >= 2 ? in.readUnsignedByte() : SOURCE_JOURNAL;
+            if (origin != SOURCE_JOURNAL && origin != SOURCE_SERVER) {
+                throw new IOException("File sao lưu gia tăng hỏng");
+            }
+            Increment increment = new Increment(origin, in.readLong(), in.readLong(), in.readLong());
+
+            ByteSource source = new ByteSource();
+            byte[] buffer = new byte[512];
+            CRC32 checksum = new CRC32();
+            long expected = increment.fromSequence + 1;
+            while (true) {
+                int length = in.readInt();
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0 || length > MAX_RECORD_BYTES) {
+                    throw new IOException("File sao lưu gia tăng hỏng");
+                }
+                int storedCrc = in.readInt();
+                if (buffer.length < length) {
+                    buffer = new byte[length];
+                }
+                in.readFully(buffer, 0, length);
+                checksum.reset();
+                checksum.update(buffer, 0, length);
+                if ((int) checksum.getValue() != storedCrc) {
+                    throw new IOException("Sai checksum ở bản ghi số " + expected);
+                }
+                source.reset(buffer, 0, length);
+                Record record = decode(source);
+                if (increment.source == SOURCE_SERVER) {
+                    // row_version tăng dần nhưng không liên tục
+                    if (record.sequence < expected || record.sequence > increment.toSequence) {
+                        throw new IOException("File sao lưu gia tăng hỏng");
+                    }
+                    expected = record.sequence + 1;
+                } else {
+                    if (record.sequence != expected) {
+                        throw new IOException("File sao lưu gia tăng thiếu bản ghi số " + expected);
+                    }
+                    expected++;
+                }
+                if (handler != null) {
+                    handler.handle(record);
+                }
+            }
+            if (increment.source == SOURCE_JOURNAL && expected != increment.toSequence + 1) {
+                throw new IOException("File sao lưu gia tăng thiếu bản ghi số " + expected);
+            }
+            return increment;
+        } catch (EOFException e) {
+            throw new IOException("File sao lưu gia tăng bị cắt cụt", e);
+        }
+    }
+
+    // Ghi file gia tăng nguồn SOURCE_SERVER; put/delete theo row_version tăng dần trong (fromVersion, toVersion]
+    static final class ServerIncrementWriter implements Closeable {
+        private final DataOutputStream out;
+        private final ByteSink payload = new ByteSink(512);
+        private final CRC32 crc = new CRC32();
+        private final long toVersion;
+        private long lastVersion;
+
+        ServerIncrementWriter(String filePath, long databaseId, long fromVersion, long toVersion) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath, false), BUFFER_SIZE));
+            this.toVersion = toVersion;
+            this.lastVersion = fromVersion;
+            out.write(INCREMENT_MAGIC);
+            out.writeByte(INCREMENT_VERSION);
+            out.writeByte(SOURCE_SERVER);
+            out.writeLong(databaseId);
+            out.writeLong(fromVersion);
+            out.writeLong(toVersion);
+        }
+
+        void put(long version, Student student) throws IOException {
+            write(version, PUT, student.getStudentId(), student);
+        }
+
+        void delete(long version, String studentId) throws IOException {
+            write(version, DELETE, studentId, null);
+        }
+
+        // Không gọi finish thì file thiếu dấu kết thúc và bị readIncrement từ chối
+        void finish() throws IOException {
+            out.writeInt(0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void write(long version, int type, String studentId, Student student) throws IOException {
+            if (version <= lastVersion || version > toVersion) {
+                throw new IOException("Thay đổi không theo thứ tự row_version: " + version);
+            }
+            lastVersion = version;
+            payload.reset();
+            encode(payload, version, type, studentId, student);
+            crc.reset();
+            crc.update(payload.bytes, 0, payload.length);
+            out.writeInt(payload.length);
+            out.writeInt((int) crc.getValue());
+            out.write(payload.bytes, 0, payload.length);
+        }
+    }
+
+    // ===== Ghi nhật ký (giữ lock) =====
+
+    private void append(int type, String studentId, Student student) {
+        if (studentId == null || failure != null) {
+            return;
+        }
+        try {
+            open();
+            if (failure != null) {
+                return;
+            }
+            payload.reset();
+            encode(payload, nextSequence, type, studentId, student);
+            crc.reset();
+            crc.update(payload.bytes, 0, payload.length);
+            pending.writeInt(payload.length);
+            pending.writeInt((int) crc.getValue());
+            pending.writeBytes(payload.bytes, 0, payload.length);
+            nextSequence++;
+
+            if (pending.length >= FLUSH_BYTES) {
+                writePending();
+            }
+            startSyncer();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+            System.err.println("Change journal disabled: " + e.getMessage());
+        }
+    }
+
+    private void writePending() throws IOException {
+        if (pending.length == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(pending.bytes, 0, pending.length);
+        while (buffer.hasRemaining()) {
+            segment.write(buffer);
+        }
+        segmentSize += pending.length;
+        pending.reset();
+        unsynced = true;
+
+        if (segmentSize >= SEGMENT_BYTES) {
+            segment.force(false);
+            unsynced = false;
+            segment.close();
+            openSegment(nextSequence, 0);
+        }
+    }
+
+    // Một thread nền fsync định kỳ, nên mỗi lần ghi chỉ tốn một lần chép vào bộ nhớ
+    private void startSyncer() {
+        if (syncer != null) {
+            return;
+        }
+        syncer = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(SYNC_INTERVAL_MILLIS);
+                    sync();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IOException e) {
+                    System.err.println("Error syncing change journal: " + e.getMessage());
+                }
+            }
+        }, "student-change-journal-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                sync();
+            } catch (IOException e) {
+                System.err.println("Error syncing change journal: " + e.getMessage());
+            }
+        }, "student-change-journal-shutdown"));
+    }
+
+    // Mở lần đầu: đọc mã nhật ký, tìm cuối segment mới nhất và cắt phần ghi dở do tắt đột ngột
+    private void open() throws IOException {
+        if (opened) {
+            return;
+        }
+        opened = true;
+        try {
+            Files.createDirectories(directory);
+            lock();
+            Path idFile = directory.resolve(ID_FILE);
+            if (Files.exists(idFile)) {
+                journalId = Long.parseLong(new String(Files.readAllBytes(idFile), StandardCharsets.US_ASCII).trim());
+            } else {
+                journalId = new SecureRandom().nextLong() & Long.MAX_VALUE;
+                Files.write(idFile, Long.toString(journalId).getBytes(StandardCharsets.US_ASCII));
+            }
+
+            List<long[]> segments = listSegments();
+            if (segments.isEmpty()) {
+                openSegment(1, 0);
+                nextSequence = 1;
+                return;
+            }
+            long firstSequence = segments.get(segments.size() - 1)[0];
+            final long[] end = {0, firstSequence};
+            scanSegment(segmentPath(firstSequence), firstSequence, (bytes, length, checksum, sequence) -> {
+                end[0] += 8 + length;
+                end[1] = sequence + 1;
+            });
+            nextSequence = end[1];
+            openSegment(firstSequence, end[0]);
+        } catch (IOException e) {
+            fail(e);
+        } catch (NumberFormatException e) {
+            fail(new IOException("File mã nhật ký hỏng", e));
+        }
+    }
+
+    // Hai process cùng ghi một thư mục sẽ cấp trùng số thứ tự và ghi đè segment của nhau
+    private void lock() throws IOException {
+        if (lock != null) {
+            return;
+        }
+        FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            acquired = null;
+        }
+        if (acquired == null) {
+            channel.close();
+            throw new IOException("Nhật ký thay đổi ở " + directory + " đang được một process khác dùng");
+        }
+        lock = acquired;
+    }
+
+    private void openSegment(long firstSequence, long validLength) throws IOException {
+        segment = FileChannel.open(segmentPath(firstSequence),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // Bỏ bản ghi cuối bị ghi dở
+        segment.truncate(validLength);
+        segment.position(validLength);
+        segmentSize = validLength;
+    }
+
+    // ===== Đọc segment =====
+
+    private interface RawRecordHandler {
+        void handle(byte[] bytes, int length, int checksum, long sequence) throws IOException;
+    }
+
+    // Các bản ghi có số thứ tự trong (afterSequence, throughSequence], theo thứ tự
+    private void readSegments(long afterSequence, long throughSequence, RawRecordHandler handler) throws IOException {
+        List<long[]> segments;
+        synchronized (this) {
+            segments = listSegments();
+        }
+        if (segments.isEmpty() || segments.get(0)[0] > afterSequence + 1) {
+            throw new IOException("Nhật ký thay đổi không còn các thay đổi sau số thứ tự " + afterSequence + ", cần sao lưu toàn bộ");
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            long first = segments.get(i)[0];
+            if (first > throughSequence) {
+                break;
+            }
+            // Bỏ qua segment mà mọi bản ghi đều đã có trong bản sao lưu trước
+            if (i + 1 < segments.size() && segments.get(i + 1)[0] - 1 <= afterSequence) {
+                continue;
+            }
+            scanSegment(segmentPath(first), first, (bytes, length, checksum, sequence) -> {
+                if (sequence > afterSequence && sequence <= throughSequence) {
+                    handler.handle(bytes, length, checksum, sequence);
+                }
+            });
+        }
+    }
+
+    // Dừng ở bản ghi hỏng/ghi dở đầu tiên (chỉ có thể xảy ra ở cuối segment)
+    private static void scanSegment(Path path, long firstSequence, RawRecordHandler handler) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))) {
+            byte[] buffer = new byte[512];
+            CRC32 checksum = new CRC32();
+            ByteSource source = new ByteSource();
+            long expected = firstSequence;
+            while (true) {
+                int length;
+                int storedCrc;
+                try {
+                    length = in.readInt();
+                    storedCrc = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES) {
+                        return;
+                    }
+                    if (buffer.length < length) {
+                        buffer = new byte[length];
+                    }
+                    in.readFully(buffer, 0, length);
+                } catch (EOFException e) {
+                    return;
+                }
+                checksum.reset();
+                checksum.update(buffer, 0, length);
+                if ((int) checksum.getValue() != storedCrc) {
+                    return;
+                }
+                source.reset(buffer, 0, length);
+                long sequence = source.readVarLong();
+                if (sequence != expected) {
+                    return;
+                }
+                handler.handle(buffer, length, storedCrc, sequence);
+                expected++;
+            }
+        }
+    }
+
+    // {số thứ tự đầu} của từng segment, tăng dần
+    private List<long[]> listSegments() throws IOException {
+        List<long[]> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(new long[]{Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))});
+                } catch (NumberFormatException e) {
+                    // File khác trùng mẫu tên
+                }
+            }
+        }
+        Collections.sort(segments, (a, b) -> Long.compare(a[0], b[0]));
+        return segments;
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    // ===== Mã hoá bản ghi =====
+
+    private static void encode(ByteSink sink, long sequence, int type, String studentId, Student student) {
+        sink.writeVarLong(sequence);
+        sink.writeByte(type);
+        sink.writeString(studentId);
+        if (type != PUT) {
+            return;
+        }
+        sink.writeString(student.getFullName());
+        sink.writeString(student.getGender());
+        sink.writeString(student.getAddress());
+        sink.writeString(student.getPhone());
+        sink.writeString(student.getEmail());
+        sink.writeString(student.getClassName());
+        sink.writeString(student.getMajor());
+        sink.writeVarLong(student.getBirthDate() != null ? ByteSink.zigZag(student.getBirthDate().toEpochDay()) + 1 : 0);
+        sink.writeVarLong(ByteSink.zigZag(Math.round(student.getGpa() * 100)));
+    }
+
+    private static Record decode(ByteSource source) throws IOException {
+        long sequence = source.readVarLong();
+        int type = source.readByte();
+        String studentId = source.readString();
+        if (studentId == null || (type != PUT && type != DELETE)) {
+            throw new IOException("Bản ghi nhật ký hỏng");
+        }
+        if (type == DELETE) {
+            return new Record(sequence, type, studentId, null);
+        }
+        Student student = new Student();
+        student.setStudentId(studentId);
+        student.setFullName(source.readString());
+        student.setGender(source.readString());
+        student.setAddress(source.readString());
+        student.setPhone(source.readString());
+        student.setEmail(source.readString());
+        student.setClassName(source.readString());
+        student.setMajor(source.readString());
+        long birthDay = source.readVarLong();
+        if (birthDay != 0) {
+            student.setBirthDate(LocalDate.ofEpochDay(ByteSource.unZigZag(birthDay - 1)));
+        }
+        student.setGpa(ByteSource.unZigZag(source.readVarLong()) / 100.0);
+        return new Record(sequence, type, studentId, student);
+    }
+}
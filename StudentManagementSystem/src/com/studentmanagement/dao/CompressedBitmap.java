@@ -0,0 +1,412 @@
+package com.studentmanagement.dao;
+
+import java.util.Arrays;
+
+// Tập số nguyên không âm nén theo kiểu Roaring: chia theo 16 bit cao, mỗi khối 65536 giá trị lưu bằng
+// mảng char đã sắp xếp khi thưa (<= 4096 phần tử, 2 byte/phần tử) hoặc bitmap 8KB khi dày.
+class CompressedBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys = new char[4];
+    // char[] (mảng, dùng sizes[i] phần tử đầu) hoặc long[] (bitmap)
+    private Object[] containers = new Object[4];
+    private int[] sizes = new int[4];
+    private int containerCount = 0;
+    private int cardinality = 0;
+
+    int cardinality() {
+        return cardinality;
+    }
+
+    boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    boolean contains(int value) {
+        int i = find((char) (value >>> 16));
+        if (i < 0) {
+            return false;
+        }
+        char low = (char) value;
+        Object container = containers[i];
+        if (container instanceof long[]) {
+            return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) container, 0, sizes[i], low) >= 0;
+    }
+
+    void add(int value) {
+        char high = (char) (value >>> 16);
+        char low = (char) value;
+        int i = find(high);
+        if (i < 0) {
+            i = -i - 1;
+            insertContainer(i, high, new char[4], 0);
+        }
+
+        Object container = containers[i];
+        if (container instanceof long[]) {
+            long[] words = (long[]) container;
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                words[low >>> 6] |= bit;
+                sizes[i]++;
+                cardinality++;
+            }
+            return;
+        }
+
+        char[] array = (char[]) container;
+        int size = sizes[i];
+        int pos = Arrays.binarySearch(array, 0, size, low);
+        if (pos >= 0) {
+            return;
+        }
+        pos = -pos - 1;
+        if (size == ARRAY_MAX) {
+            long[] words = toBitmap(array, size);
+            words[low >>> 6] |= 1L << low;
+            containers[i] = words;
+        } else {
+            if (size == array.length) {
+                array = Arrays.copyOf(array, Math.min(ARRAY_MAX, size * 2));
+                containers[i] = array;
+            }
+            System.arraycopy(array, pos, array, pos + 1, size - pos);
+            array[pos] = low;
+        }
+        sizes[i]++;
+        cardinality++;
+    }
+
+    void remove(int value) {
+        int i = find((char) (value >>> 16));
+        if (i < 0) {
+            return;
+        }
+        char low = (char) value;
+        Object container = containers[i];
+
+        if (container instanceof long[]) {
+            long[] words = (long[]) container;
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                return;
+            }
+            words[low >>> 6] &= ~bit;
+            sizes[i]--;
+            // Về lại dạng mảng khi đủ thưa, chừa khoảng cách để không đổi qua đổi lại liên tục
+            if (sizes[i] <= ARRAY_MAX / 2) {
+                containers[i] = toArray(words, sizes[i]);
+            }
+        } else {
+            char[] array = (char[]) container;
+            int pos = Arrays.binarySearch(array, 0, sizes[i], low);
+            if (pos < 0) {
+                return;
+            }
+            System.arraycopy(array, pos + 1, array, pos, sizes[i] - pos - 1);
+            sizes[i]--;
+        }
+        cardinality--;
+
+        if (sizes[i] == 0) {
+            removeContainer(i);
+        }
+    }
+
+    // ===== Phép toán tập hợp =====
+
+    static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.containerCount && j < b.containerCount) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                result.appendIntersection(a.keys[i], a.containers[i], a.sizes[i], b.containers[j], b.sizes[j]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.containerCount || j < b.containerCount) {
+            if (j >= b.containerCount || (i < a.containerCount && a.keys[i] < b.keys[j])) {
+                result.appendCopy(a.keys[i], a.containers[i], a.sizes[i]);
+                i++;
+            } else if (i >= a.containerCount || a.keys[i] > b.keys[j]) {
+                result.appendCopy(b.keys[j], b.containers[j], b.sizes[j]);
+                j++;
+            } else {
+                result.appendUnion(a.keys[i], a.containers[i], a.sizes[i], b.containers[j], b.sizes[j]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // Số phần tử chung, không tạo bitmap kết quả (đếm cho bộ lọc)
+    static int andCardinality(CompressedBitmap a, CompressedBitmap b) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.containerCount && j < b.containerCount) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                count += intersectionSize(a.containers[i], a.sizes[i], b.containers[j], b.sizes[j]);
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    int[] toArray() {
+        int[] values = new int[cardinality];
+        int n = 0;
+        for (int i = 0; i < containerCount; i++) {
+            int base = keys[i] << 16;
+            Object container = containers[i];
+            if (container instanceof long[]) {
+                long[] words = (long[]) container;
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        values[n++] = base | (w << 6) | Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] array = (char[]) container;
+                for (int k = 0; k < sizes[i]; k++) {
+                    values[n++] = base | array[k];
+                }
+            }
+        }
+        return values;
+    }
+
+    // Ước lượng số byte trên heap (bỏ qua header của object)
+    long memoryBytes() {
+        long bytes = keys.length * 2L + containers.length * 4L + sizes.length * 4L;
+        for (int i = 0; i < containerCount; i++) {
+            Object container = containers[i];
+            bytes += container instanceof long[] ? BITMAP_WORDS * 8L : ((char[]) container).length * 2L;
+        }
+        return bytes;
+    }
+
+    // ===== Container =====
+
+    private int find(char high) {
+        return Arrays.binarySearch(keys, 0, containerCount, high);
+    }
+
+    private void insertContainer(int i, char high, Object container, int size) {
+        if (containerCount == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+        }
+        System.arraycopy(keys, i, keys, i + 1, containerCount - i);
+        System.arraycopy(containers, i, containers, i + 1, containerCount - i);
+        System.arraycopy(sizes, i, sizes, i + 1, containerCount - i);
+        keys[i] = high;
+        containers[i] = container;
+        sizes[i] = size;
+        containerCount++;
+    }
+
+    private void removeContainer(int i) {
+        System.arraycopy(keys, i + 1, keys, i, containerCount - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, containerCount - i - 1);
+        System.arraycopy(sizes, i + 1, sizes, i, containerCount - i - 1);
+        containerCount--;
+        containers[containerCount] = null;
+    }
+
+    // Kết quả phép toán luôn được thêm theo thứ tự key tăng dần
+    private void append(char high, Object container, int size) {
+        if (size == 0) {
+            return;
+        }
+        insertContainer(containerCount, high, container, size);
+        cardinality += size;
+    }
+
+    private void appendCopy(char high, Object container, int size) {
+        if (container instanceof long[]) {
+            append(high, ((long[]) container).clone(), size);
+        } else {
+            append(high, Arrays.copyOf((char[]) container, size), size);
+        }
+    }
+
+    private void appendIntersection(char high, Object a, int sizeA, Object b, int sizeB) {
+        if (a instanceof long[] && b instanceof long[]) {
+            long[] x = (long[]) a;
+            long[] y = (long[]) b;
+            long[] words = new long[BITMAP_WORDS];
+            int size = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] = x[w] & y[w];
+                size += Long.bitCount(words[w]);
+            }
+            append(high, size > ARRAY_MAX ? words : toArray(words, size), size);
+            return;
+        }
+        if (a instanceof long[]) {
+            appendIntersection(high, b, sizeB, a, sizeA);
+            return;
+        }
+
+        char[] array = (char[]) a;
+        char[] out = new char[Math.min(sizeA, b instanceof long[] ? sizeA : sizeB)];
+        int n = 0;
+        if (b instanceof long[]) {
+            long[] words = (long[]) b;
+            for (int k = 0; k < sizeA; k++) {
+                char v = array[k];
+                if ((words[v >>> 6] & (1L << v)) != 0) {
+                    out[n++] = v;
+                }
+            }
+        } else {
+            char[] other = (char[]) b;
+            int i = 0;
+            int j = 0;
+            while (i < sizeA && j < sizeB) {
+                if (array[i] < other[j]) {
+                    i++;
+                } else if (array[i] > other[j]) {
+                    j++;
+                } else {
+                    out[n++] = array[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        append(high, out, n);
+    }
+
+    private void appendUnion(char high, Object a, int sizeA, Object b, int sizeB) {
+        if (a instanceof long[] || b instanceof long[]) {
+            long[] words = a instanceof long[] ? ((long[]) a).clone() : toBitmap((char[]) a, sizeA);
+            if (b instanceof long[]) {
+                long[] y = (long[]) b;
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    words[w] |= y[w];
+                }
+            } else {
+                char[] other = (char[]) b;
+                for (int k = 0; k < sizeB; k++) {
+                    words[other[k] >>> 6] |= 1L << other[k];
+                }
+            }
+            int size = 0;
+            for (long word : words) {
+                size += Long.bitCount(word);
+            }
+            append(high, words, size);
+            return;
+        }
+
+        char[] x = (char[]) a;
+        char[] y = (char[]) b;
+        char[] out = new char[sizeA + sizeB];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < sizeA || j < sizeB) {
+            if (j >= sizeB || (i < sizeA && x[i] < y[j])) {
+                out[n++] = x[i++];
+            } else if (i >= sizeA || x[i] > y[j]) {
+                out[n++] = y[j++];
+            } else {
+                out[n++] = x[i++];
+                j++;
+            }
+        }
+        append(high, n > ARRAY_MAX ? toBitmap(out, n) : out, n);
+    }
+
+    private static int intersectionSize(Object a, int sizeA, Object b, int sizeB) {
+        if (a instanceof long[] && b instanceof long[]) {
+            long[] x = (long[]) a;
+            long[] y = (long[]) b;
+            int size = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                size += Long.bitCount(x[w] & y[w]);
+            }
+            return size;
+        }
+        if (a instanceof long[]) {
+            return intersectionSize(b, sizeB, a, sizeA);
+        }
+
+        char[] array = (char[]) a;
+        int size = 0;
+        if (b instanceof long[]) {
+            long[] words = (long[]) b;
+            for (int k = 0; k < sizeA; k++) {
+                if ((words[array[k] >>> 6] & (1L << array[k])) != 0) {
+                    size++;
+                }
+            }
+            return size;
+        }
+        char[] other = (char[]) b;
+        int i = 0;
+        int j = 0;
+        while (i < sizeA && j < sizeB) {
+            if (array[i] < other[j]) {
+                i++;
+            } else if (array[i] > other[j]) {
+                j++;
+            } else {
+                size++;
+                i++;
+                j++;
+            }
+        }
+        return size;
+    }
+
+    private static long[] toBitmap(char[] array, int size) {
+        long[] words = new long[BITMAP_WORDS];
+        for (int k = 0; k < size; k++) {
+            words[array[k] >>> 6] |= 1L << array[k];
+        }
+        return words;
+    }
+
+    private static char[] toArray(long[] words, int size) {
+        char[] array = new char[Math.max(size, 1)];
+        int n = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                array[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return array;
+    }
+}
@@ -0,0 +1,138 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.model.Student;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+// Ghi file CSV UTF-8 (có BOM cho Excel) qua buffer lớn, tự định dạng ngày/GPA thay vì String.format
+class CsvExportWriter implements StudentRowWriter {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final Writer out;
+
+    CsvExportWriter(String filePath) throws IOException {
+        this.out = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(filePath, false), StandardCharsets.UTF_8), BUFFER_SIZE);
+        out.write('\ufeff');
+    }
+
+    void writeHeader(String header) throws IOException {
+        out.write(header);
+        out.write('\n');
+    }
+
+    void writeStudent(Student student) throws IOException {
+        writeRow(student.getStudentId(), student.getFullName(), student.getBirthDate(), student.getGender(),
+                student.getAddress(), student.getPhone(), student.getEmail(), student.getClassName(),
+                student.getMajor(), student.getGpa());
+    }
+
+    @Override
+    public void writeRow(String studentId, String fullName, LocalDate birthDate, String gender, String address,
+                         String phone, String email, String className, String major, double gpa) throws IOException {
+        writeField(studentId);
+        out.write(',');
+        writeField(fullName);
+        out.write(',');
+        writeDate(birthDate);
+        out.write(',');
+        writeField(gender);
+        out.write(',');
+        writeField(address);
+        out.write(',');
+        writeField(phone);
+        out.write(',');
+        writeField(email);
+        out.write(',');
+        writeField(className);
+        out.write(',');
+        writeField(major);
+        out.write(',');
+        writeGpa(gpa);
+        out.write(',');
+        writeField(Student.getAcademyRank(gpa));
+        out.write('\n');
+    }
+
+    // Đặt trong dấu nháy nếu có dấu phẩy, dấu nháy hoặc xuống dòng; dấu nháy bên trong được nhân đôi
+    private void writeField(String field) throws IOException {
+        if (field == null) {
+            return;
+        }
+
+        int length = field.length();
+        boolean quote = false;
+        for (int i = 0; i < length && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(field, 0, length);
+            return;
+        }
+
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (field.charAt(i) == '"') {
+                out.write(field, start, i + 1 - start);
+                out.write('"');
+                start = i + 1;
+            }
+        }
+        out.write(field, start, length - start);
+        out.write('"');
+    }
+
+    // dd/MM/yyyy
+    private void writeDate(LocalDate date) throws IOException {
+        if (date == null) {
+            return;
+        }
+        writeTwoDigits(date.getDayOfMonth());
+        out.write('/');
+        writeTwoDigits(date.getMonthValue());
+        out.write('/');
+        int year = date.getYear();
+        if (year >= 1000 && year <= 9999) {
+            writeTwoDigits(year / 100);
+            writeTwoDigits(year % 100);
+        } else {
+            out.write(Integer.toString(year));
+        }
+    }
+
+    // Luôn 2 chữ số thập phân với dấu chấm, không phụ thuộc Locale
+    private void writeGpa(double gpa) throws IOException {
+        long cents = Math.round(gpa * 100);
+        if (cents < 0) {
+            out.write('-');
+            cents = -cents;
+        }
+        long whole = cents / 100;
+        if (whole < 10) {
+            out.write((char) ('0' + whole));
+        } else {
+            out.write(Long.toString(whole));
+        }
+        out.write('.');
+        writeTwoDigits((int) (cents % 100));
+    }
+
+    private void writeTwoDigits(int value) throws IOException {
+        out.write((char) ('0' + value / 10));
+        out.write((char) ('0' + value % 10));
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,460 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.dao.StudentDAO.BatchResult;
+import com.studentmanagement.dao.StudentDAO.ImportResult;
+import com.studentmanagement.dao.StudentDAO.WriteOutcome;
+import com.studentmanagement.model.Student;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Pipeline nhập CSV: đọc -> parse song song -> ghi theo batch, giữa các bước là hàng đợi có giới hạn
+class CsvImportPipeline {
+
+    private static final ParsedChunk END_OF_INPUT = new ParsedChunk(0);
+
+    // Kích thước khối (byte) khi đọc file qua memory-mapping, và kích thước mỗi lần map để quét ranh giới
+    private static final int MAPPED_CHUNK_BYTES = 1 << 20;
+    private static final int MAPPED_SCAN_WINDOW = 64 << 20;
+
+    private final StudentDAO dao;
+    private final int parallelism;
+    private final int parseChunkSize;
+    private final int writeBatchSize;
+
+    private volatile boolean aborted = false;
+
+    // Khác null: chỉ parse, các bản ghi hợp lệ được gom vào đây thay vì ghi xuống database
+    private List<Student> collected;
+    private List<Integer> collectedLines;
+
+    CsvImportPipeline(StudentDAO dao, int parallelism, int parseChunkSize, int writeBatchSize) {
+        this.dao = dao;
+        this.parallelism = Math.max(1, parallelism);
+        this.parseChunkSize = Math.max(1, parseChunkSize);
+        this.writeBatchSize = Math.max(1, writeBatchSize);
+    }
+
+    // Dùng cho đồng bộ: successCount = số bản ghi parse được, theo đúng thứ tự file
+    CsvImportPipeline collectInto(List<Student> students, List<Integer> lineNumbers) {
+        this.collected = students;
+        this.collectedLines = lineNumbers;
+        return this;
+    }
+
+    // Đọc tuần tự qua Reader, tách bản ghi trên thread đọc
+    ImportResult run(Reader reader) {
+        return execute((parsers, parsed) -> readChunks(reader, parsers, parsed));
+    }
+
+    // Map file vào bộ nhớ, chia theo ranh giới bản ghi an toàn rồi giải mã + parse song song từng khối
+    ImportResult runMapped(Path file) {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (IOException e) {
+            ImportResult result = new ImportResult();
+            result.failureCount++;
+            result.errors.add("Lỗi đọc file: " + e.getMessage());
+            return result;
+        }
+        try {
+            return execute((parsers, parsed) -> readMappedChunks(channel, parsers, parsed));
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing CSV file: " + e.getMessage());
+            }
+        }
+    }
+
+    private ImportResult execute(ChunkProducer producer) {
+        ImportResult result = new ImportResult();
+        List<LineError> errors = new ArrayList<>();
+
+        ExecutorService parsers = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName("csv-import-parser-" + t.getPoolIndex());
+            return t;
+        }, null, false);
+        // Mỗi phần tử là kết quả parse của một khối bản ghi, lấy ra theo đúng thứ tự file
+        BlockingQueue<Future<ParsedChunk>> parsed = new ArrayBlockingQueue<>(parallelism * 2);
+        AtomicReference<IOException> readError = new AtomicReference<>();
+
+        Thread readerThread = new Thread(() -> {
+            try {
+                producer.produce(parsers, parsed);
+            } catch (IOException e) {
+                readError.set(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                signalEnd(parsed);
+            }
+        }, "csv-import-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        List<Student> batch = new ArrayList<>(writeBatchSize);
+        List<Integer> batchLines = new ArrayList<>(writeBatchSize);
+
+        try {
+            while (true) {
+                ParsedChunk chunk = parsed.take().get();
+                if (chunk == END_OF_INPUT) {
+                    break;
+                }
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (chunk.students[i] != null) {
+                        batch.add(chunk.students[i]);
+                        batchLines.add(chunk.lineNumbers[i]);
+                        if (batch.size() >= writeBatchSize) {
+                            flush(batch, batchLines, result, errors);
+                        }
+                    } else {
+                        result.failureCount++;
+                        errors.add(new LineError(chunk.lineNumbers[i], chunk.errors[i]));
+                    }
+                }
+            }
+            flush(batch, batchLines, result, errors);
+
+            readerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.failureCount++;
+            errors.add(new LineError(Integer.MAX_VALUE, "Quá trình nhập bị gián đoạn"));
+        } catch (ExecutionException e) {
+            result.failureCount++;
+            errors.add(new LineError(Integer.MAX_VALUE, "Lỗi xử lý dữ liệu: " + e.getCause().getMessage()));
+        } finally {
+            aborted = true;
+            parsers.shutdownNow();
+            parsed.clear();
+        }
+
+        Collections.sort(errors);
+        for (LineError error : errors) {
+            result.errors.add(error.lineNumber == Integer.MAX_VALUE
+                    ? error.message : "Dòng " + error.lineNumber + ": " + error.message);
+        }
+        // Giữ số liệu các dòng đã xử lý trước khi gặp lỗi đọc file
+        if (readError.get() != null) {
+            result.failureCount++;
+            result.errors.add("Lỗi đọc file: " + readError.get().getMessage());
+        }
+        return result;
+    }
+
+    private void readChunks(Reader reader, ExecutorService parsers,
+                            BlockingQueue<Future<ParsedChunk>> parsed) throws IOException, InterruptedException {
+        CsvTokenizer tokenizer = new CsvTokenizer(reader);
+        List<String> fields = new ArrayList<>(16);
+        tokenizer.next(fields); // Bỏ qua header
+
+        // Một bản ghi có thể trải trên nhiều dòng nên phải giữ số dòng bắt đầu của từng bản ghi
+        List<String[]> records = new ArrayList<>(parseChunkSize);
+        int[] lineNumbers = new int[parseChunkSize];
+
+        while (!aborted && tokenizer.next(fields)) {
+            lineNumbers[records.size()] = tokenizer.getRecordLine();
+            records.add(fields.toArray(new String[fields.size()]));
+
+            if (records.size() >= parseChunkSize) {
+                submit(parsers, parsed, records, lineNumbers);
+                records = new ArrayList<>(parseChunkSize);
+                lineNumbers = new int[parseChunkSize];
+            }
+        }
+
+        if (!records.isEmpty() && !aborted) {
+            submit(parsers, parsed, records, lineNumbers);
+        }
+    }
+
+    // Quét từng byte để tìm ranh giới bản ghi nằm ngoài dấu nháy và đếm dòng.
+    // Các byte của ký tự UTF-8 nhiều byte đều >= 0x80 nên không bị nhầm với ',', '"' hay xuống dòng.
+    private void readMappedChunks(FileChannel channel, ExecutorService parsers,
+                                  BlockingQueue<Future<ParsedChunk>> parsed) throws IOException, InterruptedException {
+        long size = channel.size();
+        long position = skipBom(channel, size);
+
+        int state = FIELD_START;
+        boolean headerSkipped = false;
+        boolean previousCr = false;
+        int lineNumber = 1;
+        long chunkStart = position;
+        int chunkLine = lineNumber;
+
+        while (position < size && !aborted) {
+            int length = (int) Math.min(MAPPED_SCAN_WINDOW, size - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+            for (int i = 0; i < length; i++) {
+                byte b = window.get();
+                boolean recordEnd = false;
+
+                if (b == '\n') {
+                    if (!previousCr) {
+                        lineNumber++;
+                    }
+                    recordEnd = state != QUOTED;
+                    if (recordEnd) {
+                        state = FIELD_START;
+                    }
+                } else if (b == '\r') {
+                    lineNumber++;
+                    if (state != QUOTED) {
+                        state = FIELD_START;
+                    }
+                } else if (b == '"') {
+                    state = state == FIELD_START ? QUOTED
+                            : state == QUOTED ? QUOTE_IN_QUOTED
+                            : state == QUOTE_IN_QUOTED ? QUOTED // "" bên trong field
+                            : UNQUOTED;
+                } else if (b == ',') {
+                    if (state != QUOTED) {
+                        state = FIELD_START;
+                    }
+                } else if (state != QUOTED) {
+                    state = UNQUOTED;
+                }
+                previousCr = b == '\r';
+
+                if (recordEnd) {
+                    long end = position + i + 1;
+                    if (!headerSkipped) {
+                        headerSkipped = true;
+                        chunkStart = end;
+                        chunkLine = lineNumber;
+                    } else if (end - chunkStart >= MAPPED_CHUNK_BYTES) {
+                        submit(parsers, parsed, new MappedParseTask(channel, chunkStart, end, chunkLine));
+                        chunkStart = end;
+                        chunkLine = lineNumber;
+                    }
+                }
+            }
+            position += length;
+        }
+
+        // Phần còn lại sau ranh giới cuối cùng (dòng cuối có thể không có xuống dòng)
+        if (headerSkipped && chunkStart < size && !aborted) {
+            submit(parsers, parsed, new MappedParseTask(channel, chunkStart, size, chunkLine));
+        }
+    }
+
+    private static long skipBom(FileChannel channel, long size) throws IOException {
+        if (size < 3) {
+            return 0;
+        }
+        ByteBuffer head = ByteBuffer.allocate(3);
+        while (head.hasRemaining() && channel.read(head, head.position()) > 0) {
+            // Đọc đủ 3 byte đầu
+        }
+        return head.get(0) == (byte) 0xEF && head.get(1) == (byte) 0xBB && head.get(2) == (byte) 0xBF ? 3 : 0;
+    }
+
+    private void submit(ExecutorService parsers, BlockingQueue<Future<ParsedChunk>> parsed,
+                        List<String[]> records, int[] lineNumbers) throws InterruptedException {
+        submit(parsers, parsed, new ParseTask(records, lineNumbers));
+    }
+
+    private void submit(ExecutorService parsers, BlockingQueue<Future<ParsedChunk>> parsed,
+                        Callable<ParsedChunk> task) throws InterruptedException {
+        Future<ParsedChunk> future = parsers.submit(task);
+        // Hàng đợi đầy thì reader phải chờ writer, tránh đọc cả file vào bộ nhớ
+        while (!parsed.offer(future, 100, TimeUnit.MILLISECONDS)) {
+            if (aborted) {
+                future.cancel(true);
+                return;
+            }
+        }
+    }
+
+    private void flush(List<Student> batch, List<Integer> batchLines, ImportResult result, List<LineError> errors) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (collected != null) {
+            collected.addAll(batch);
+            collectedLines.addAll(batchLines);
+            result.successCount += batch.size();
+            batch.clear();
+            batchLines.clear();
+            return;
+        }
+
+        BatchResult written = dao.batchInsert(batch);
+
+        for (int i = 0; i < batch.size(); i++) {
+            WriteOutcome outcome = written.getRowOutcome(i);
+            int lineNumber = batchLines.get(i);
+            String studentId = batch.get(i).getStudentId();
+
+            if (outcome == WriteOutcome.INSERTED) {
+                result.successCount++;
+            } else if (outcome == WriteOutcome.DUPLICATE) {
+                result.duplicateCount++;
+                errors.add(new LineError(lineNumber, "Mã SV " + studentId + " đã tồn tại"));
+            } else {
+                result.failureCount++;
+                String reason = written.rowErrors.length > i ? written.rowErrors[i] : null;
+                errors.add(new LineError(lineNumber, "Lỗi lưu sinh viên " + studentId
+                        + (reason != null ? " (" + reason + ")" : "")));
+            }
+        }
+
+        batch.clear();
+        batchLines.clear();
+    }
+
+    private void signalEnd(BlockingQueue<Future<ParsedChunk>> parsed) {
+        Future<ParsedChunk> end = CompletableFuture.completedFuture(END_OF_INPUT);
+        try {
+            while (!parsed.offer(end, 100, TimeUnit.MILLISECONDS)) {
+                if (aborted) {
+                    return; // Writer đã dừng, không còn ai chờ
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ===== Parse stage =====
+
+    // Trạng thái khi quét ranh giới bản ghi, giống cách CsvTokenizer xử lý dấu nháy
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private interface ChunkProducer {
+        void produce(ExecutorService parsers, BlockingQueue<Future<ParsedChunk>> parsed)
+                throws IOException, InterruptedException;
+    }
+
+    // Giải mã UTF-8 một đoạn [start, end) của file rồi tách bản ghi, số dòng tính tiếp từ firstLine
+    private static final class MappedParseTask implements Callable<ParsedChunk> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final int firstLine;
+
+        MappedParseTask(FileChannel channel, long start, long end, int firstLine) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.firstLine = firstLine;
+        }
+
+        @Override
+        public ParsedChunk call() throws IOException {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(bytes);
+
+            CsvTokenizer tokenizer = new CsvTokenizer(
+                    new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining()),
+                    firstLine);
+            List<String> fields = new ArrayList<>(16);
+            List<String[]> records = new ArrayList<>();
+            int[] lineNumbers = new int[64];
+
+            while (tokenizer.next(fields)) {
+                if (records.size() == lineNumbers.length) {
+                    lineNumbers = Arrays.copyOf(lineNumbers, lineNumbers.length * 2);
+                }
+                lineNumbers[records.size()] = tokenizer.getRecordLine();
+                records.add(fields.toArray(new String[fields.size()]));
+            }
+            return new ParseTask(records, lineNumbers).call();
+        }
+    }
+
+    private static final class ParseTask implements Callable<ParsedChunk> {
+        private final List<String[]> records;
+        private final int[] lineNumbers;
+
+        ParseTask(List<String[]> records, int[] lineNumbers) {
+            this.records = records;
+            this.lineNumbers = lineNumbers;
+        }
+
+        @Override
+        public ParsedChunk call() {
+            ParsedChunk chunk = new ParsedChunk(records.size());
+            chunk.lineNumbers = lineNumbers;
+
+            for (int i = 0; i < records.size(); i++) {
+                try {
+                    chunk.students[i] = StudentDAO.parseCSVRecord(Arrays.asList(records.get(i)));
+                    if (chunk.students[i] == null) {
+                        chunk.errors[i] = "Dữ liệu không hợp lệ";
+                    }
+                } catch (Exception e) {
+                    chunk.errors[i] = e.getMessage();
+                }
+            }
+            return chunk;
+        }
+    }
+
+    private static final class ParsedChunk {
+        int[] lineNumbers;
+        final Student[] students;
+        final String[] errors;
+
+        ParsedChunk(int size) {
+            this.students = new Student[size];
+            this.errors = new String[size];
+        }
+
+        int size() {
+            return students.length;
+        }
+    }
+
+    private static final class LineError implements Comparable<LineError> {
+        final int lineNumber;
+        final String message;
+
+        LineError(int lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+
+        @Override
+        public int compareTo(LineError other) {
+            return Integer.compare(lineNumber, other.lineNumber);
+        }
+    }
+}
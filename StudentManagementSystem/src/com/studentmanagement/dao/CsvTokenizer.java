@@ -0,0 +1,134 @@
+package com.studentmanagement.dao;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+// Tách bản ghi CSV theo RFC 4180 từng ký tự: hỗ trợ field trong dấu nháy, "" và xuống dòng bên trong field
+class CsvTokenizer {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos = 0;
+    private int limit = 0;
+
+    // Dùng lại một buffer cho mọi field của reader này
+    private final StringBuilder field = new StringBuilder(128);
+
+    private int lineNumber;
+    private int recordLine = 0;
+
+    CsvTokenizer(Reader in) {
+        this(in, 1);
+    }
+
+    // firstLine: số dòng của ký tự đầu tiên, dùng khi đọc một đoạn ở giữa file
+    CsvTokenizer(Reader in, int firstLine) {
+        this.in = in;
+        this.lineNumber = firstLine;
+    }
+
+    // Đọc bản ghi tiếp theo vào fields; trả về false khi hết dữ liệu
+    boolean next(List<String> fields) throws IOException {
+        fields.clear();
+
+        int c = read();
+        if (c == -1) {
+            return false;
+        }
+        recordLine = lineNumber;
+
+        while (true) {
+            field.setLength(0);
+
+            if (c == '"') {
+                c = readQuoted();
+            } else {
+                while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    field.append((char) c);
+                    c = read();
+                }
+            }
+            fields.add(field.toString());
+
+            if (c == ',') {
+                c = read();
+                continue;
+            }
+            if (c == '\r') {
+                if (peek() == '\n') {
+                    read();
+                }
+                lineNumber++;
+            } else if (c == '\n') {
+                lineNumber++;
+            }
+            return true;
+        }
+    }
+
+    // Dòng vật lý (tính từ 1) nơi bản ghi vừa đọc bắt đầu
+    int getRecordLine() {
+        return recordLine;
+    }
+
+    private int readQuoted() throws IOException {
+        int c;
+        while (true) {
+            c = read();
+            if (c == -1) {
+                return c; // Thiếu dấu nháy đóng: lấy phần còn lại làm nội dung field
+            }
+            if (c == '"') {
+                if (peek() == '"') {
+                    read();
+                    field.append('"');
+                    continue;
+                }
+                break;
+            }
+            if (c == '\n' || (c == '\r' && peek() != '\n')) {
+                lineNumber++;
+            }
+            field.append((char) c);
+        }
+
+        // Ký tự lạc sau dấu nháy đóng (vd: "abc"def) được giữ nguyên thay vì báo lỗi
+        c = read();
+        while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+            field.append((char) c);
+            c = read();
+        }
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (pos >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos];
+    }
+
+    private boolean fill() throws IOException {
+        int n;
+        do {
+            n = in.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if (n < 0) {
+            limit = pos = 0;
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+}
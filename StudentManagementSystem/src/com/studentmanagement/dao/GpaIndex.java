@@ -0,0 +1,267 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.model.Student;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Index GPA trên mảng long đã sắp xếp: mỗi khoá = (-gpa tính theo 0.01) << 32 | ordinal, nên thứ tự tăng của khoá
+// là GPA giảm dần. Thay đổi gom vào hai mảng nhỏ (thêm/xoá) và chỉ trộn vào mảng chính khi đủ lớn.
+// Mỗi lần ghi công bố một Snapshot bất biến qua biến volatile: bên đọc không cần khoá và không boxing.
+class GpaIndex extends BackgroundIndex<GpaIndex.State> {
+
+    private static final String SEED_SQL = "SELECT student_id, gpa FROM students WHERE gpa IS NOT NULL";
+    // Số thay đổi tối đa giữ riêng trước khi trộn vào mảng chính
+    private static final int MERGE_THRESHOLD = 2048;
+    private static final int ID_CHUNK_BITS = 12;
+    private static final int ID_CHUNK_SIZE = 1 << ID_CHUNK_BITS;
+
+    private static final class Snapshot {
+        final long[] base;
+        final long[] added;
+        final long[] removed;
+        // Mã SV theo ordinal, chia khối; ô đã ghi không bao giờ bị ghi lại nên đọc an toàn sau khi snapshot được công bố
+        final String[][] ids;
+
+        Snapshot(long[] base, long[] added, long[] removed, String[][] ids) {
+            this.base = base;
+            this.added = added;
+            this.removed = removed;
+            this.ids = ids;
+        }
+    }
+
+    // Phía ghi, chỉ dùng khi giữ khoá
+    static final class State {
+        final Map<String, Long> keyById = new HashMap<>();
+        String[][] ids = new String[16][];
+        int nextOrdinal = 0;
+        // Khoá theo thứ tự nạp, chỉ dùng trong lúc nạp bảng
+        long[] seedKeys = new long[1024];
+        Snapshot snapshot;
+    }
+
+    private static final long[] EMPTY = new long[0];
+
+    private volatile Snapshot snapshot;
+
+    GpaIndex() {
+        super("GPA index", SEED_SQL);
+    }
+
+    void put(Student student) {
+        record(student.getStudentId(), (int) Math.round(student.getGpa() * 100));
+    }
+
+    void remove(String studentId) {
+        record(studentId, null);
+    }
+
+    @Override
+    State newState() {
+        return new State();
+    }
+
+    @Override
+    void seedRow(State target, ResultSet rs) throws SQLException {
+        String studentId = rs.getString(1);
+        BigDecimal gpa = rs.getBigDecimal(2);
+        if (studentId == null || gpa == null) {
+            return;
+        }
+        int ordinal = target.nextOrdinal++;
+        target.ids = storeId(target.ids, ordinal, studentId);
+        long key = pack(gpa.movePointRight(2).setScale(0, RoundingMode.HALF_UP).intValue(), ordinal);
+        if (ordinal == target.seedKeys.length) {
+            target.seedKeys = Arrays.copyOf(target.seedKeys, ordinal * 2);
+        }
+        target.seedKeys[ordinal] = key;
+        target.keyById.put(StudentDAO.idKey(studentId), key);
+    }
+
+    @Override
+    void seeded(State target) {
+        long[] keys = Arrays.copyOf(target.seedKeys, target.nextOrdinal);
+        Arrays.sort(keys);
+        target.seedKeys = null;
+        target.snapshot = new Snapshot(keys, EMPTY, EMPTY, target.ids);
+    }
+
+    // Bên đọc không khoá chỉ thấy snapshot đã công bố
+    @Override
+    void published(State current) {
+        snapshot = current != null ? current.snapshot : null;
+    }
+
+    // ===== Truy vấn (không khoá) =====
+
+    // Mã SV có GPA trong [minGpa, maxGpa], GPA giảm dần; null nếu index chưa sẵn sàng
+    List<String> range(double minGpa, double maxGpa) {
+        Snapshot s = snapshot;
+        if (s == null) {
+            return null;
+        }
+        // Khoá nhỏ nhất ứng với GPA lớn nhất
+        long from = pack((int) Math.floor(maxGpa * 100 + 1e-9), 0);
+        long to = pack((int) Math.ceil(minGpa * 100 - 1e-9), Integer.MAX_VALUE);
+        List<String> result = new ArrayList<>();
+        if (from > to) {
+            return result;
+        }
+        collect(s, from, to, Integer.MAX_VALUE, result);
+        return result;
+    }
+
+    // Mã SV có GPA > 0 theo GPA giảm dần; lấy thêm các mã bằng GPA với phần tử thứ limit để bên gọi
+    // sắp theo mã SV rồi cắt đúng limit như ORDER BY gpa DESC, student_id. null nếu index chưa sẵn sàng
+    List<String> topWithTies(int limit) {
+        Snapshot s = snapshot;
+        if (s == null) {
+            return null;
+        }
+        List<String> result = new ArrayList<>();
+        if (limit > 0) {
+            collect(s, Long.MIN_VALUE, pack(1, Integer.MAX_VALUE), limit, result);
+        }
+        return result;
+    }
+
+    int size() {
+        Snapshot s = snapshot;
+        return s != null ? s.base.length + s.added.length - s.removed.length : 0;
+    }
+
+    // Trộn base và added theo thứ tự khoá, bỏ các khoá trong removed
+    private static void collect(Snapshot s, long from, long to, int limit, List<String> out) {
+        int i = lowerBound(s.base, from);
+        int j = lowerBound(s.added, from);
+        long lastCents = Long.MIN_VALUE;
+
+        while (true) {
+            long key;
+            if (i < s.base.length && (j >= s.added.length || s.base[i] < s.added[j])) {
+                key = s.base[i++];
+            } else if (j < s.added.length) {
+                key = s.added[j++];
+            } else {
+                break;
+            }
+            if (key > to) {
+                break;
+            }
+            if (s.removed.length > 0 && Arrays.binarySearch(s.removed, key) >= 0) {
+                continue;
+            }
+            // Đã đủ limit: chỉ lấy tiếp các khoá cùng GPA
+            long cents = key >> 32;
+            if (out.size() >= limit && cents != lastCents) {
+                break;
+            }
+            lastCents = cents;
+            int ordinal = (int) key;
+            out.add(s.ids[ordinal >>> ID_CHUNK_BITS][ordinal & (ID_CHUNK_SIZE - 1)]);
+        }
+    }
+
+    // ===== Cập nhật (giữ lock) =====
+
+    @Override
+    void apply(State target, String studentId, Object value) {
+        Integer cents = (Integer) value;
+        Snapshot s = target.snapshot;
+        long[] added = s.added;
+        long[] removed = s.removed;
+
+        Long oldKey = target.keyById.remove(StudentDAO.idKey(studentId));
+        if (oldKey != null) {
+            int pos = Arrays.binarySearch(added, oldKey);
+            if (pos >= 0) {
+                added = without(added, pos);
+            } else {
+                removed = with(removed, oldKey);
+            }
+        }
+
+        if (cents != null) {
+            int ordinal = target.nextOrdinal++;
+            target.ids = storeId(target.ids, ordinal, studentId);
+            long key = pack(cents, ordinal);
+            added = with(added, key);
+            target.keyById.put(StudentDAO.idKey(studentId), key);
+        }
+
+        if (added.length + removed.length > MERGE_THRESHOLD) {
+            target.snapshot = new Snapshot(merge(s.base, added, removed), EMPTY, EMPTY, target.ids);
+        } else {
+            target.snapshot = new Snapshot(s.base, added, removed, target.ids);
+        }
+    }
+
+    private static long[] merge(long[] base, long[] added, long[] removed) {
+        long[] merged = new long[base.length + added.length - removed.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        int r = 0;
+        while (i < base.length || j < added.length) {
+            long key;
+            if (i < base.length && (j >= added.length || base[i] < added[j])) {
+                key = base[i++];
+                // removed chỉ chứa khoá có trong base, cùng thứ tự tăng dần
+                if (r < removed.length && removed[r] == key) {
+                    r++;
+                    continue;
+                }
+            } else {
+                key = added[j++];
+            }
+            merged[n++] = key;
+        }
+        return n == merged.length ? merged : Arrays.copyOf(merged, n);
+    }
+
+    private static long pack(int cents, int ordinal) {
+        return ((long) -cents << 32) | (ordinal & 0xFFFFFFFFL);
+    }
+
+    private static int lowerBound(long[] keys, long key) {
+        int pos = Arrays.binarySearch(keys, key);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    private static long[] with(long[] sorted, long key) {
+        int pos = -Arrays.binarySearch(sorted, key) - 1;
+        long[] copy = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, copy, 0, pos);
+        copy[pos] = key;
+        System.arraycopy(sorted, pos, copy, pos + 1, sorted.length - pos);
+        return copy;
+    }
+
+    private static long[] without(long[] sorted, int pos) {
+        long[] copy = new long[sorted.length - 1];
+        System.arraycopy(sorted, 0, copy, 0, pos);
+        System.arraycopy(sorted, pos + 1, copy, pos, sorted.length - pos - 1);
+        return copy;
+    }
+
+    // Chỉ thêm khối mới hoặc ghi vào ô chưa dùng; mảng khối được sao chép khi cần mở rộng
+    private static String[][] storeId(String[][] chunks, int ordinal, String studentId) {
+        int chunk = ordinal >>> ID_CHUNK_BITS;
+        if (chunk >= chunks.length) {
+            chunks = Arrays.copyOf(chunks, Math.max(chunk + 1, chunks.length * 2));
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new String[ID_CHUNK_SIZE];
+        }
+        chunks[chunk][ordinal & (ID_CHUNK_SIZE - 1)] = studentId;
+        return chunks;
+    }
+}
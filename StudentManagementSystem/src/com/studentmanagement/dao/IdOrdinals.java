@@ -0,0 +1,55 @@
+package com.studentmanagement.dao;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Gán số thứ tự (ordinal) tăng dần cho mã SV để index trong bộ nhớ lưu int thay vì String.
+// Ordinal không bao giờ được dùng lại: ghi đè một mã SV cấp ordinal mới và đánh dấu ordinal cũ là "chết".
+class IdOrdinals {
+
+    private String[] ids = new String[1024];
+    private int next = 0;
+    private int dead = 0;
+    private final Map<String, Integer> live = new HashMap<>();
+
+    int assign(String studentId) {
+        if (next == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        int ordinal = next++;
+        ids[ordinal] = studentId;
+        retire(live.put(StudentDAO.idKey(studentId), ordinal));
+        return ordinal;
+    }
+
+    void remove(String studentId) {
+        retire(live.remove(StudentDAO.idKey(studentId)));
+    }
+
+    // -1 nếu mã SV chưa có ordinal
+    int ordinalOf(String studentId) {
+        Integer ordinal = live.get(StudentDAO.idKey(studentId));
+        return ordinal != null ? ordinal : -1;
+    }
+
+    // null nếu ordinal đã chết (sinh viên bị xoá hoặc đã được ghi lại với ordinal mới)
+    String idAt(int ordinal) {
+        return ordinal >= 0 && ordinal < next ? ids[ordinal] : null;
+    }
+
+    int liveCount() {
+        return live.size();
+    }
+
+    int deadCount() {
+        return dead;
+    }
+
+    private void retire(Integer ordinal) {
+        if (ordinal != null) {
+            ids[ordinal] = null;
+            dead++;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.model.Student;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Đọc một lần file students.dat cũ (ObjectOutputStream của ArrayList<Student>) để chuyển sang StudentCodec.
+// Chỉ cho phép đúng các class có trong file, để file lạ không thể khởi tạo class tuỳ ý khi deserialize.
+class LegacyStudentFile {
+
+    private static final byte[] STREAM_MAGIC = {(byte) 0xAC, (byte) 0xED};
+
+    private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+            "java.util.ArrayList",
+            "java.util.LinkedList",
+            "java.time.Ser",
+            "java.time.LocalDate",
+            Student.class.getName()));
+
+    private LegacyStudentFile() {
+    }
+
+    static boolean isLegacyFile(String filePath) {
+        try (InputStream in = new FileInputStream(filePath)) {
+            return in.read() == (STREAM_MAGIC[0] & 0xFF) && in.read() == (STREAM_MAGIC[1] & 0xFF);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static List<Student> read(String filePath) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(filePath))) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                if (!ALLOWED_CLASSES.contains(desc.getName())) {
+                    throw new InvalidClassException(desc.getName(), "Không được phép trong file dữ liệu sinh viên");
+                }
+                return super.resolveClass(desc);
+            }
+        }) {
+            Object data = in.readObject();
+            if (!(data instanceof Collection)) {
+                throw new IOException("File dữ liệu cũ không chứa danh sách sinh viên");
+            }
+            List<Student> students = new ArrayList<>();
+            for (Object item : (Collection<?>) data) {
+                if (!(item instanceof Student)) {
+                    throw new IOException("File dữ liệu cũ không chứa danh sách sinh viên");
+                }
+                students.add((Student) item);
+            }
+            return students;
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("File dữ liệu cũ không hợp lệ: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,964 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.model.Student;
+import com.studentmanagement.model.VietnameseText;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+// Kho sinh viên cục bộ, không cần database: mọi lần ghi được nối vào cuối log (chia segment), một hash map trong bộ nhớ
+// trỏ từ mã SV tới vị trí bản ghi mới nhất, nên findById chỉ tốn một lần đọc file. Segment cũ được gom lại định kỳ
+// (compaction) để bỏ bản ghi đã bị ghi đè/xoá. Khi mở lại, log được đọc lại từ đầu để dựng index; bản ghi cuối ghi dở
+// do tắt đột ngột bị cắt bỏ. Mỗi thư mục chỉ một process được mở (khoá "store.lock"), vì index nằm trong bộ nhớ
+// của process đã mở và hai process cùng nối vào một segment sẽ ghi đè lên nhau.
+//
+// Segment "segment-<id>.log": MAGIC, VERSION, id segment nhỏ nhất mà nó thay thế (long), rồi các bản ghi.
+// Bản ghi: độ dài payload, crc32(payload) (int big-endian), payload = loại, mã SV, rồi với PUT: các cột như StudentCodec
+// (chuỗi như ByteSink, ngày sinh = zigzag(epochDay) + 1, GPA = StudentCodec.writeGpa).
+public class LocalStudentStore implements StudentRepository, Closeable {
+
+    private static final byte[] MAGIC = {'S', 'M', 'S', 'L'};
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = MAGIC.length + 1 + 8;
+    private static final int FRAME_HEADER_BYTES = 8;
+
+    private static final int PUT = 1;
+    private static final int DELETE = 2;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String COMPACT_SUFFIX = ".compact";
+    private static final String LOCK_FILE = "store.lock";
+    private static final long SEGMENT_BYTES = 64L << 20;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final int SCAN_BUFFER_SIZE = 1 << 20;
+    // Gom khi phần chết lớn hơn phần còn dùng và đủ lớn để đáng ghi lại
+    private static final long COMPACT_MIN_DEAD_BYTES = 4L << 20;
+    private static final long COMPACT_CHECK_SECONDS = 30;
+
+    private static final class Location {
+        final int segment;
+        final long offset;
+        // Cả header bản ghi
+        final int length;
+
+        Location(int segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static final class Segment {
+        final int id;
+        final FileChannel channel;
+        long size;
+
+        Segment(int id, FileChannel channel, long size) {
+            this.id = id;
+            this.channel = channel;
+            this.size = size;
+        }
+    }
+
+    private final Path directory;
+    // Giữ tới khi close
+    private final FileLock fileLock;
+    // Ghi/compaction giữ write lock, đọc giữ read lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object compactionLock = new Object();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final Map<String, Location> index = new HashMap<>();
+    private final StudentAggregates aggregates = new StudentAggregates();
+    private final ScheduledExecutorService compactor;
+    private Segment active;
+    private long totalBytes = 0;
+    private long liveBytes = 0;
+    private final ByteSink encoded = new ByteSink(4096);
+    private final CRC32 crc = new CRC32();
+
+    public LocalStudentStore() throws IOException {
+        this(defaultDirectory());
+    }
+
+    public LocalStudentStore(String directory) throws IOException {
+        this.directory = Paths.get(directory);
+        this.fileLock = lockDirectory(this.directory);
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+            fileLock.channel().close();
+            throw e;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "local-student-store-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded, COMPACT_CHECK_SECONDS, COMPACT_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Mặc định ở ~/.studentmanagement/store, đổi bằng system property studentmanagement.store.dir
+    public static String defaultDirectory() {
+        return System.getProperty("studentmanagement.store.dir",
+                Paths.get(System.getProperty("user.home"), ".studentmanagement", "store").toString());
+    }
+
+    // ===== CRUD Repository Implementation =====
+
+    @Override
+    public boolean save(Student student) {
+        return saveAll(Arrays.asList(student)) == 1;
+    }
+
+    // Ghi cả danh sách bằng một lần ghi file và một lần fsync; trả về số sinh viên đã ghi
+    public int saveAll(Collection<Student> students) {
+        for (Student student : students) {
+            if (student == null || student.getStudentId() == null || student.getStudentId().trim().isEmpty()) {
+                System.err.println("Error saving student: thiếu mã sinh viên");
+                return 0;
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            return append(PUT, students, null) ? students.size() : 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Student findById(String studentId) {
+        if (studentId == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Location location = index.get(StudentDAO.idKey(studentId));
+            return location != null ? read(location) : null;
+        } catch (IOException e) {
+            System.err.println("Error finding student: " + e.getMessage());
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Student> findAll() {
+        return scan(student -> true);
+    }
+
+    @Override
+    public boolean update(Student student) {
+        if (student == null || student.getStudentId() == null) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            // Như UPDATE ... WHERE student_id = ?: không có thì không ghi
+            if (!index.containsKey(StudentDAO.idKey(student.getStudentId()))) {
+                return false;
+            }
+            return append(PUT, Arrays.asList(student), null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteById(String studentId) {
+        if (studentId == null) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!index.containsKey(StudentDAO.idKey(studentId))) {
+                return false;
+            }
+            return append(DELETE, null, studentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(Student student) {
+        return student != null && deleteById(student.getStudentId());
+    }
+
+    @Override
+    public boolean existsById(String studentId) {
+        if (studentId == null) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return index.containsKey(StudentDAO.idKey(studentId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== Search Methods =====
+
+    // Mọi truy vấn ngoài mã SV đọc tuần tự các segment và chỉ lấy bản ghi mà index còn trỏ tới
+    @Override
+    public List<Student> searchByKeyword(String keyword) {
+        String foldedKeyword = VietnameseText.fold(keyword);
+        return scan(student -> student.matchesKeyword(foldedKeyword));
+    }
+
+    @Override
+    public List<Student> findByClassName(String className) {
+        return scan(student -> className != null && className.equalsIgnoreCase(student.getClassName()));
+    }
+
+    @Override
+    public List<Student> findByMajor(String major) {
+        return scan(student -> major != null && major.equalsIgnoreCase(student.getMajor()));
+    }
+
+    @Override
+    public List<Student> findByGender(String gender) {
+        return scan(student -> gender != null && gender.equalsIgnoreCase(student.getGender()));
+    }
+
+    @Override
+    public List<Student> findByGPARange(double minGpa, double maxGpa) {
+        List<Student> students = scan(student -> student.getGpa() >= minGpa && student.getGpa() <= maxGpa);
+        students.sort(StudentDAO.GPA_DESC_ORDER);
+        return students;
+    }
+
+    @Override
+    public List<Student> findTopStudentsByGpa(int limit) {
+        List<Student> students = scan(student -> student.getGpa() > 0);
+        students.sort(StudentDAO.GPA_DESC_ORDER);
+        return students.size() > limit ? new ArrayList<>(students.subList(0, Math.max(0, limit))) : students;
+    }
+
+    // Cộng dồn khi ghi, như thống kê trong bộ nhớ của StudentDAO
+    @Override
+    public Map<String, Object> getAcademicStatistics() {
+        return aggregates.snapshot();
+    }
+
+    // ===== Keyset Pagination =====
+
+    // Cursor cùng dạng với StudentDAO: [tổng, mã SV] hoặc [tổng, gpa, mã SV]
+    @Override
+    public Page<Student> findAllPage(int pageSize, String afterCursor) {
+        return page(student -> true, false, pageSize, afterCursor);
+    }
+
+    @Override
+    public Page<Student> searchByKeywordPage(String keyword, int pageSize, String afterCursor) {
+        String foldedKeyword = VietnameseText.fold(keyword);
+        return page(student -> student.matchesKeyword(foldedKeyword), false, pageSize, afterCursor);
+    }
+
+    @Override
+    public Page<Student> findByClassNamePage(String className, int pageSize, String afterCursor) {
+        return page(student -> className != null && className.equalsIgnoreCase(student.getClassName()), false, pageSize, afterCursor);
+    }
+
+    @Override
+    public Page<Student> findByMajorPage(String major, int pageSize, String afterCursor) {
+        return page(student -> major != null && major.equalsIgnoreCase(student.getMajor()), false, pageSize, afterCursor);
+    }
+
+    @Override
+    public Page<Student> findByGenderPage(String gender, int pageSize, String afterCursor) {
+        return page(student -> gender != null && gender.equalsIgnoreCase(student.getGender()), false, pageSize, afterCursor);
+    }
+
+    @Override
+    public Page<Student> findByGPARangePage(double minGpa, double maxGpa, int pageSize, String afterCursor) {
+        return page(student -> student.getGpa() >= minGpa && student.getGpa() <= maxGpa, true, pageSize, afterCursor);
+    }
+
+    @Override
+    public long estimateCount() {
+        return count();
+    }
+
+    private Page<Student> page(Predicate<Student> filter, boolean byGpa, int pageSize, String afterCursor) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize phải lớn hơn 0");
+        }
+        String[] key = afterCursor != null ? StudentDAO.decodeCursor(afterCursor, byGpa ? 3 : 2) : null;
+
+        List<Student> matches = scan(filter);
+        long estimatedTotal = key != null ? Long.parseLong(key[0]) : matches.size();
+        Comparator<Student> order = byGpa ? StudentDAO.GPA_DESC_ORDER
+                : (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(a.getStudentId(), b.getStudentId());
+        if (byGpa) {
+            matches.sort(order);
+        }
+
+        List<Student> students = new ArrayList<>(pageSize);
+        String nextCursor = null;
+        for (Student student : matches) {
+            if (key != null && !isAfter(student, key, byGpa)) {
+                continue;
+            }
+            if (students.size() == pageSize) {
+                Student last = students.get(students.size() - 1);
+                nextCursor = byGpa
+                        ? StudentDAO.encodeCursor(Long.toString(estimatedTotal),
+                                BigDecimal.valueOf(last.getGpa()).toPlainString(), last.getStudentId())
+                        : StudentDAO.encodeCursor(Long.toString(estimatedTotal), last.getStudentId());
+                break;
+            }
+            students.add(student);
+        }
+        return new Page<>(students, nextCursor, estimatedTotal);
+    }
+
+    private static boolean isAfter(Student student, String[] key, boolean byGpa) {
+        if (!byGpa) {
+            return String.CASE_INSENSITIVE_ORDER.compare(student.getStudentId(), key[1]) > 0;
+        }
+        double lastGpa = Double.parseDouble(key[1]);
+        return student.getGpa() < lastGpa
+                || (student.getGpa() == lastGpa && String.CASE_INSENSITIVE_ORDER.compare(student.getStudentId(), key[2]) > 0);
+    }
+
+    // ===== Compaction =====
+
+    // Ghi các bản ghi còn dùng của mọi segment cũ vào một segment mới thay thế chúng. Phần chép chạy không giữ lock;
+    // chỉ lúc hoán đổi mới khoá ghi, và bản ghi bị ghi đè trong lúc chép thì giữ nguyên vị trí mới của nó.
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            List<Segment> sealed;
+            Map<Integer, FileChannel> sources = new HashMap<>();
+            List<String> keys = new ArrayList<>();
+            List<Location> locations = new ArrayList<>();
+
+            lock.writeLock().lock();
+            try {
+                if (active.size > HEADER_BYTES) {
+                    rotate();
+                }
+                sealed = new ArrayList<>(segments.headMap(active.id).values());
+                if (sealed.isEmpty()) {
+                    return;
+                }
+                for (Segment segment : sealed) {
+                    sources.put(segment.id, segment.channel);
+                }
+                for (Map.Entry<String, Location> entry : index.entrySet()) {
+                    if (entry.getValue().segment < active.id) {
+                        keys.add(entry.getKey());
+                        locations.add(entry.getValue());
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            // Đọc theo thứ tự trong file
+            Integer[] order = new Integer[keys.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                Location x = locations.get(a);
+                Location y = locations.get(b);
+                return x.segment != y.segment ? Integer.compare(x.segment, y.segment) : Long.compare(x.offset, y.offset);
+            });
+
+            int targetId = sealed.get(sealed.size() - 1).id;
+            Path temp = directory.resolve(SEGMENT_PREFIX + targetId + COMPACT_SUFFIX);
+            Location[] moved = new Location[keys.size()];
+            long compactedSize;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                writeFully(out, header(sealed.get(0).id));
+                long position = HEADER_BYTES;
+                for (Integer i : order) {
+                    Location location = locations.get(i);
+                    ByteBuffer frame = ByteBuffer.allocate(location.length);
+                    readFully(sources.get(location.segment), frame, location.offset);
+                    frame.flip();
+                    writeFully(out, frame);
+                    moved[i] = new Location(targetId, position, location.length);
+                    position += location.length;
+                }
+                out.force(true);
+                compactedSize = position;
+            }
+
+            lock.writeLock().lock();
+            try {
+                Segment target = segments.get(targetId);
+                target.channel.close();
+                try {
+                    Files.move(temp, segmentPath(targetId), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    segments.put(targetId, new Segment(targetId, FileChannel.open(segmentPath(targetId), StandardOpenOption.READ), target.size));
+                    Files.deleteIfExists(temp);
+                    throw e;
+                }
+                syncDirectory();
+                segments.put(targetId, new Segment(targetId, FileChannel.open(segmentPath(targetId), StandardOpenOption.READ), compactedSize));
+                for (int i = 0; i < keys.size(); i++) {
+                    // Bản ghi đã bị ghi đè hoặc xoá trong lúc chép thì để nguyên, bản chép thành phần chết
+                    if (index.get(keys.get(i)) == locations.get(i)) {
+                        index.put(keys.get(i), moved[i]);
+                    }
+                }
+                for (Segment segment : sealed) {
+                    totalBytes -= segment.size;
+                    if (segment.id != targetId) {
+                        segment.channel.close();
+                        segments.remove(segment.id);
+                        Files.deleteIfExists(segmentPath(segment.id));
+                    }
+                }
+                totalBytes += compactedSize;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void compactIfNeeded() {
+        long dead;
+        long live;
+        lock.readLock().lock();
+        try {
+            dead = totalBytes - liveBytes;
+            live = liveBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (dead >= COMPACT_MIN_DEAD_BYTES && dead > live) {
+            try {
+                compact();
+            } catch (IOException e) {
+                System.err.println("Error compacting local store: " + e.getMessage());
+            }
+        }
+    }
+
+    // Dung lượng các segment và phần đã bị ghi đè/xoá (chờ compaction)
+    public String getStatusSummary() {
+        lock.readLock().lock();
+        try {
+            return String.format("Local store: %d students, %d segments, %d KB (%d KB dead)",
+                    index.size(), segments.size(), totalBytes / 1024, (totalBytes - liveBytes) / 1024);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdownNow();
+        synchronized (compactionLock) {
+            lock.writeLock().lock();
+            try {
+                for (Segment segment : segments.values()) {
+                    segment.channel.close();
+                }
+                segments.clear();
+                index.clear();
+                active = null;
+            } finally {
+                lock.writeLock().unlock();
+                // Đóng channel cũng nhả khoá
+                fileLock.channel().close();
+            }
+        }
+    }
+
+    // ===== Ghi (giữ write lock) =====
+
+    // PUT cho students hoặc DELETE cho studentId; fsync trước khi cập nhật index, nên lần ghi đã trả về true không bị mất
+    private boolean append(int type, Collection<Student> students, String studentId) {
+        if (active == null) {
+            System.err.println("Error writing local store: kho đã đóng");
+            return false;
+        }
+        encoded.reset();
+        List<Location> written = new ArrayList<>();
+        long position = active.size;
+        if (type == PUT) {
+            for (Student student : students) {
+                position += frame(PUT, student.getStudentId(), student, position, written);
+            }
+        } else {
+            position += frame(DELETE, studentId, null, position, written);
+        }
+
+        try {
+            writeFully(active.channel, ByteBuffer.wrap(encoded.bytes, 0, encoded.length), active.size);
+            active.channel.force(false);
+        } catch (IOException e) {
+            System.err.println("Error writing local store: " + e.getMessage());
+            // Bỏ phần có thể đã ghi dở để bản ghi sau không nối vào sau rác
+            try {
+                active.channel.truncate(active.size);
+            } catch (IOException truncateError) {
+                System.err.println("Error truncating local store: " + truncateError.getMessage());
+            }
+            return false;
+        }
+        active.size = position;
+        totalBytes += encoded.length;
+
+        if (type == PUT) {
+            int i = 0;
+            for (Student student : students) {
+                putIndex(StudentDAO.idKey(student.getStudentId()), written.get(i++));
+                aggregates.put(student);
+            }
+        } else {
+            removeIndex(StudentDAO.idKey(studentId));
+            aggregates.remove(studentId);
+        }
+
+        if (active.size >= SEGMENT_BYTES) {
+            try {
+                rotate();
+            } catch (IOException e) {
+                // Vẫn ghi tiếp vào segment hiện tại, lần ghi sau thử lại
+                System.err.println("Error rotating local store segment: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    // Thêm một bản ghi vào encoded, trả về số byte
+    private int frame(int type, String studentId, Student student, long position, List<Location> written) {
+        int start = encoded.length;
+        encoded.writeInt(0);
+        encoded.writeInt(0);
+        int payloadStart = encoded.length;
+        encoded.writeByte(type);
+        encoded.writeString(studentId);
+        if (type == PUT) {
+            encoded.writeString(student.getFullName());
+            encoded.writeString(student.getGender());
+            encoded.writeString(student.getAddress());
+            encoded.writeString(student.getPhone());
+            encoded.writeString(student.getEmail());
+            encoded.writeString(student.getClassName());
+            encoded.writeString(student.getMajor());
+            encoded.writeVarLong(student.getBirthDate() != null ? ByteSink.zigZag(student.getBirthDate().toEpochDay()) + 1 : 0);
+            StudentCodec.writeGpa(encoded, student.getGpa());
+        }
+        int payloadLength = encoded.length - payloadStart;
+        crc.reset();
+        crc.update(encoded.bytes, payloadStart, payloadLength);
+        putInt(encoded.bytes, start, payloadLength);
+        putInt(encoded.bytes, start + 4, (int) crc.getValue());
+
+        int length = encoded.length - start;
+        written.add(new Location(active.id, position, length));
+        return length;
+    }
+
+    private void putIndex(String key, Location location) {
+        Location previous = index.put(key, location);
+        if (previous != null) {
+            liveBytes -= previous.length;
+        }
+        liveBytes += location.length;
+    }
+
+    private void removeIndex(String key) {
+        Location previous = index.remove(key);
+        if (previous != null) {
+            liveBytes -= previous.length;
+        }
+    }
+
+    private void rotate() throws IOException {
+        int id = active.id + 1;
+        FileChannel channel = FileChannel.open(segmentPath(id), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        writeFully(channel, header(id), 0);
+        channel.force(true);
+        syncDirectory();
+        active = new Segment(id, channel, HEADER_BYTES);
+        segments.put(id, active);
+        totalBytes += HEADER_BYTES;
+    }
+
+    // ===== Đọc =====
+
+    private Student read(Location location) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(location.length);
+        readFully(segments.get(location.segment).channel, frame, location.offset);
+        byte[] bytes = frame.array();
+        int payloadLength = getInt(bytes, 0);
+        if (payloadLength != location.length - FRAME_HEADER_BYTES) {
+            throw new IOException("Bản ghi hỏng ở segment " + location.segment);
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes, FRAME_HEADER_BYTES, payloadLength);
+        if ((int) checksum.getValue() != getInt(bytes, 4)) {
+            throw new IOException("Sai checksum ở segment " + location.segment);
+        }
+        ByteSource source = new ByteSource();
+        source.reset(bytes, FRAME_HEADER_BYTES, location.length);
+        source.readByte();
+        return decode(source, source.readString());
+    }
+
+    // Đọc tuần tự mọi segment, giữ read lock suốt lúc quét; kết quả sắp theo mã SV như ORDER BY student_id
+    private List<Student> scan(Predicate<Student> filter) {
+        List<Student> students = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                readSegment(segment.channel, segment.id, segment.size, (offset, length, source) -> {
+                    int type = source.readByte();
+                    String studentId = source.readString();
+                    Location location = index.get(StudentDAO.idKey(studentId));
+                    if (type == PUT && location != null && location.segment == segment.id && location.offset == offset) {
+                        Student student = decode(source, studentId);
+                        if (filter.test(student)) {
+                            students.add(student);
+                        }
+                    }
+                    return true;
+                });
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading local store: " + e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+        students.sort((a, b) -> String.CASE_INSENSITIVE_ORDER.compare(a.getStudentId(), b.getStudentId()));
+        return students;
+    }
+
+    private interface FrameHandler {
+        // false = dừng đọc
+        boolean handle(long offset, int length, ByteSource source) throws IOException;
+    }
+
+    // Đọc các bản ghi từ sau header tới limit; trả về vị trí hết bản ghi hợp lệ cuối cùng
+    private static long readSegment(FileChannel channel, int id, long limit, FrameHandler handler) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+        ByteSource source = new ByteSource();
+        CRC32 checksum = new CRC32();
+        long bufferStart = HEADER_BYTES;
+        int filled = 0;
+        int pos = 0;
+        long offset = HEADER_BYTES;
+
+        while (offset < limit) {
+            // Đọc tiếp từ đầu bản ghi khi buffer không còn đủ cả bản ghi
+            if (filled - pos < FRAME_HEADER_BYTES || filled - pos < FRAME_HEADER_BYTES + getInt(bytes, pos)) {
+                if (filled - pos >= FRAME_HEADER_BYTES) {
+                    int payloadLength = getInt(bytes, pos);
+                    if (payloadLength <= 0 || payloadLength > MAX_RECORD_BYTES) {
+                        return offset;
+                    }
+                    if (FRAME_HEADER_BYTES + payloadLength > bytes.length) {
+                        buffer = ByteBuffer.allocate(FRAME_HEADER_BYTES + payloadLength);
+                        bytes = buffer.array();
+                    }
+                }
+                bufferStart = offset;
+                buffer.clear();
+                buffer.limit((int) Math.min(bytes.length, limit - offset));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, bufferStart + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                filled = buffer.position();
+                pos = 0;
+                if (filled < FRAME_HEADER_BYTES) {
+                    return offset;
+                }
+            }
+            int payloadLength = getInt(bytes, pos);
+            if (payloadLength <= 0 || payloadLength > MAX_RECORD_BYTES) {
+                return offset;
+            }
+            int length = FRAME_HEADER_BYTES + payloadLength;
+            if (filled - pos < length) {
+                // Đã đọc lại từ đầu bản ghi mà vẫn thiếu: bản ghi cuối ghi dở
+                return offset;
+            }
+            checksum.reset();
+            checksum.update(bytes, pos + FRAME_HEADER_BYTES, payloadLength);
+            if ((int) checksum.getValue() != getInt(bytes, pos + 4)) {
+                return offset;
+            }
+            source.reset(bytes, pos + FRAME_HEADER_BYTES, pos + length);
+            try {
+                if (!handler.handle(offset, length, source)) {
+                    return offset;
+                }
+            } catch (IOException e) {
+                throw new IOException("Bản ghi hỏng ở segment " + id + ": " + e.getMessage(), e);
+            }
+            pos += length;
+            offset += length;
+        }
+        return offset;
+    }
+
+    private static Student decode(ByteSource source, String studentId) throws IOException {
+        Student student = new Student();
+        student.setStudentId(studentId);
+        student.setFullName(source.readString());
+        student.setGender(source.readString());
+        student.setAddress(source.readString());
+        student.setPhone(source.readString());
+        student.setEmail(source.readString());
+        student.setClassName(source.readString());
+        student.setMajor(source.readString());
+        long birthDay = source.readVarLong();
+        if (birthDay != 0) {
+            try {
+                student.setBirthDate(LocalDate.ofEpochDay(ByteSource.unZigZag(birthDay - 1)));
+            } catch (DateTimeException e) {
+                throw new IOException("Ngày sinh không hợp lệ", e);
+            }
+        }
+        student.setGpa(StudentCodec.readGpa(source));
+        return student;
+    }
+
+    // ===== Khôi phục khi mở =====
+
+    private static FileLock lockDirectory(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            acquired = null;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (acquired == null) {
+            channel.close();
+            throw new IOException("Kho dữ liệu ở " + directory + " đang được mở ở nơi khác");
+        }
+        return acquired;
+    }
+
+    // Đọc lại các segment theo thứ tự để dựng index; segment đã được một segment gom thay thế thì bỏ,
+    // phần cuối ghi dở của segment mới nhất bị cắt
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Integer> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(COMPACT_SUFFIX)) {
+                    // Compaction dở dang, segment gốc vẫn còn nguyên
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        ids.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                    } catch (NumberFormatException e) {
+                        // File khác trùng mẫu tên
+                    }
+                }
+            }
+        }
+        ids.sort(null);
+
+        // Duyệt từ mới tới cũ: segment nằm trong khoảng mà một segment gom mới hơn đã thay thế thì bỏ
+        long replacedFrom = Long.MAX_VALUE;
+        List<Integer> valid = new ArrayList<>();
+        for (int i = ids.size() - 1; i >= 0; i--) {
+            int id = ids.get(i);
+            if (id >= replacedFrom) {
+                Files.deleteIfExists(segmentPath(id));
+                continue;
+            }
+            long coveredFrom = readHeader(id, i == ids.size() - 1);
+            replacedFrom = Math.min(replacedFrom, coveredFrom);
+            valid.add(0, id);
+        }
+
+        aggregates.seedEmpty();
+        for (int i = 0; i < valid.size(); i++) {
+            int id = valid.get(i);
+            boolean last = i == valid.size() - 1;
+            FileChannel channel = FileChannel.open(segmentPath(id), last
+                    ? new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE}
+                    : new StandardOpenOption[]{StandardOpenOption.READ});
+            long size = channel.size();
+            long end = readSegment(channel, id, size, (offset, length, source) -> {
+                int type = source.readByte();
+                String studentId = source.readString();
+                String key = StudentDAO.idKey(studentId);
+                if (type == PUT) {
+                    Student student = decode(source, studentId);
+                    putIndex(key, new Location(id, offset, length));
+                    aggregates.put(student);
+                } else if (type == DELETE) {
+                    removeIndex(key);
+                    aggregates.remove(studentId);
+                } else {
+                    throw new IOException("Loại bản ghi không hợp lệ: " + type);
+                }
+                return true;
+            });
+            if (end < size) {
+                if (!last) {
+                    channel.close();
+                    throw new IOException("Segment " + id + " hỏng ở vị trí " + end);
+                }
+                // Lần ghi cuối chưa xong khi tắt: chưa từng báo thành công nên bỏ được
+                channel.truncate(end);
+                channel.force(true);
+            }
+            Segment segment = new Segment(id, channel, end);
+            segments.put(id, segment);
+            totalBytes += end;
+            if (last) {
+                active = segment;
+            }
+        }
+
+        if (active == null) {
+            FileChannel channel = FileChannel.open(segmentPath(1), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            writeFully(channel, header(1), 0);
+            channel.force(true);
+            active = new Segment(1, channel, HEADER_BYTES);
+            segments.put(1, active);
+            totalBytes = HEADER_BYTES;
+        }
+    }
+
+    // Id segment nhỏ nhất mà segment này thay thế. Segment mới nhất tạo dở (thiếu header) được ghi lại header.
+    private long readHeader(int id, boolean newest) throws IOException {
+        Path path = segmentPath(id);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // đọc tiếp
+            }
+            if (header.hasRemaining() && newest) {
+                channel.truncate(0);
+                writeFully(channel, header(id), 0);
+                channel.force(true);
+                return id;
+            }
+            byte[] bytes = header.array();
+            if (header.hasRemaining() || !Arrays.equals(Arrays.copyOf(bytes, MAGIC.length), MAGIC)) {
+                throw new IOException("Không phải segment của kho dữ liệu: " + path);
+            }
+            if (bytes[MAGIC.length] != VERSION) {
+                throw new IOException("Phiên bản kho dữ liệu không hỗ trợ: " + bytes[MAGIC.length]);
+            }
+            return ByteBuffer.wrap(bytes, MAGIC.length + 1, 8).getLong();
+        }
+    }
+
+    // ===== Helper Methods =====
+
+    private ByteBuffer header(long coveredFrom) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.put(MAGIC);
+        header.put((byte) VERSION);
+        header.putLong(coveredFrom);
+        header.flip();
+        return header;
+    }
+
+    private Path segmentPath(int id) {
+        return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    // Để việc tạo/đổi tên file cũng bền; một số hệ điều hành không cho mở thư mục, khi đó bỏ qua
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // không hỗ trợ
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Bản ghi bị cắt cụt");
+            }
+        }
+    }
+
+    private static int getInt(byte[] bytes, int pos) {
+        return ((bytes[pos] & 0xFF) << 24) | ((bytes[pos + 1] & 0xFF) << 16)
+                | ((bytes[pos + 2] & 0xFF) << 8) | (bytes[pos + 3] & 0xFF);
+    }
+
+    private static void putInt(byte[] bytes, int pos, int value) {
+        bytes[pos] = (byte) (value >>> 24);
+        bytes[pos + 1] = (byte) (value >>> 16);
+        bytes[pos + 2] = (byte) (value >>> 8);
+        bytes[pos + 3] = (byte) value;
+    }
+}
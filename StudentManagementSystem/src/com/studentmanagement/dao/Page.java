@@ -0,0 +1,35 @@
+package com.studentmanagement.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+// Một trang kết quả phân trang theo keyset; nextCursor truyền lại nguyên vẹn để lấy trang sau
+public class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+    private final long estimatedTotal;
+    
+    public Page(List<T> items, String nextCursor, long estimatedTotal) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+        this.estimatedTotal = estimatedTotal;
+    }
+    
+    public List<T> getItems() {
+        return items;
+    }
+    
+    // null nếu đây là trang cuối
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+    
+    // Tổng số dòng ước lượng (-1 nếu không rõ), chỉ dùng để hiển thị tiến độ/số trang
+    public long getEstimatedTotal() {
+        return estimatedTotal;
+    }
+}
@@ -0,0 +1,137 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.database.SqlDialect;
+import com.studentmanagement.model.Student;
+import com.studentmanagement.model.VietnameseText;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Chuyển SearchCriteria thành điều kiện SQL: PREFIX -> LIKE 'x%' (dùng được index), EXACT -> '=',
+// CONTAINS -> lấy ứng viên từ index trigram rồi so khớp không dấu trong Java. Không dùng được index (chưa dựng xong,
+// giá trị ngắn hoặc khớp quá nhiều dòng) thì so khớp không dấu trong database nếu dialect hỗ trợ, không thì trong Java.
+// shape mã hoá tổ hợp điều kiện, để câu SQL của mỗi tổ hợp chỉ dựng một lần.
+class SearchPlan {
+
+    private static final String[] TEXT_COLUMNS = {"student_id", "full_name", "class_name", "major"};
+    private static final int[] TEXT_SEARCH_KEYS = {Student.SEARCH_STUDENT_ID, Student.SEARCH_FULL_NAME,
+            Student.SEARCH_CLASS_NAME, Student.SEARCH_MAJOR};
+
+    private static final int SHAPE_LIKE = 1;
+    private static final int SHAPE_EQUALS = 2;
+    private static final int SHAPE_FOLDED_LIKE = 3;
+    private static final int SHAPE_GENDER = 1 << 8;
+    private static final int SHAPE_MIN_GPA = 1 << 9;
+    private static final int SHAPE_MAX_GPA = 1 << 10;
+
+    final List<String> conditions = new ArrayList<>();
+    final List<Object> parameters = new ArrayList<>();
+    // null = không lọc theo danh sách mã SV
+    List<String> candidateIds;
+    // Điều kiện CONTAINS kiểm tra (lại) trên khoá không dấu của từng dòng
+    final List<Integer> verifyColumns = new ArrayList<>();
+    final List<String> verifyKeys = new ArrayList<>();
+    int shape = 0;
+
+    // filterInJava = false: mọi điều kiện đều thành SQL (vd: phân trang keyset không lọc thêm được trong Java);
+    // khi đó CONTAINS trên dialect không bỏ dấu được là LIKE '%x%' phân biệt dấu. index = null: không dùng index.
+    static SearchPlan of(StudentDAO.SearchCriteria criteria, TrigramIndex index, SqlDialect dialect, boolean filterInJava) {
+        SearchPlan plan = new SearchPlan();
+        StudentDAO.SearchCriteria.MatchMode mode = criteria.textMatch != null
+                ? criteria.textMatch : StudentDAO.SearchCriteria.MatchMode.CONTAINS;
+        String[] values = {criteria.studentId, criteria.fullName, criteria.className, criteria.major};
+
+        for (int i = 0; i < values.length; i++) {
+            String value = values[i] != null ? values[i].trim() : "";
+            if (value.isEmpty()) {
+                continue;
+            }
+
+            switch (mode) {
+                case EXACT:
+                    plan.conditions.add(TEXT_COLUMNS[i] + " = ?");
+                    plan.parameters.add(value);
+                    plan.shape |= SHAPE_EQUALS << (2 * i);
+                    break;
+                case PREFIX:
+                    plan.conditions.add(TEXT_COLUMNS[i] + " LIKE ?");
+                    plan.parameters.add(value + "%");
+                    plan.shape |= SHAPE_LIKE << (2 * i);
+                    break;
+                default:
+                    List<String> candidates = filterInJava && index != null
+                            ? index.candidates(value, StudentDAO.maxIdLookups(index.size())) : null;
+                    String folded = VietnameseText.fold(value);
+                    String foldedColumn = dialect.foldedColumn(TEXT_COLUMNS[i]);
+                    if (candidates != null) {
+                        plan.narrowTo(candidates);
+                    } else if (foldedColumn != null) {
+                        plan.conditions.add(foldedColumn + " LIKE ?");
+                        plan.parameters.add("%" + folded + "%");
+                        plan.shape |= SHAPE_FOLDED_LIKE << (2 * i);
+                    } else if (!filterInJava) {
+                        plan.conditions.add(TEXT_COLUMNS[i] + " LIKE ?");
+                        plan.parameters.add("%" + value + "%");
+                        plan.shape |= SHAPE_LIKE << (2 * i);
+                        break;
+                    }
+                    plan.verifyColumns.add(TEXT_SEARCH_KEYS[i]);
+                    plan.verifyKeys.add(folded);
+                    break;
+            }
+        }
+
+        if (criteria.gender != null && !criteria.gender.equals("Tất cả")) {
+            plan.conditions.add("gender = ?");
+            plan.parameters.add(criteria.gender);
+            plan.shape |= SHAPE_GENDER;
+        }
+
+        if (criteria.minGpa != null && criteria.maxGpa != null) {
+            plan.conditions.add("gpa BETWEEN ? AND ?");
+            plan.parameters.add(criteria.minGpa);
+            plan.parameters.add(criteria.maxGpa);
+            plan.shape |= SHAPE_MIN_GPA | SHAPE_MAX_GPA;
+        } else if (criteria.minGpa != null) {
+            plan.conditions.add("gpa >= ?");
+            plan.parameters.add(criteria.minGpa);
+            plan.shape |= SHAPE_MIN_GPA;
+        } else if (criteria.maxGpa != null) {
+            plan.conditions.add("gpa <= ?");
+            plan.parameters.add(criteria.maxGpa);
+            plan.shape |= SHAPE_MAX_GPA;
+        }
+
+        return plan;
+    }
+
+    boolean matches(Student student) {
+        for (int i = 0; i < verifyKeys.size(); i++) {
+            if (!VietnameseText.containsFolded(student.getSearchKey(verifyColumns.get(i)), verifyKeys.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Giao với danh sách ứng viên đã có (nhiều điều kiện CONTAINS cùng dùng index)
+    private void narrowTo(List<String> candidates) {
+        if (candidateIds == null) {
+            candidateIds = candidates;
+            return;
+        }
+        Set<String> keys = new HashSet<>();
+        for (String id : candidates) {
+            keys.add(StudentDAO.idKey(id));
+        }
+        List<String> narrowed = new ArrayList<>();
+        for (String id : candidateIds) {
+            if (keys.contains(StudentDAO.idKey(id))) {
+                narrowed.add(id);
+            }
+        }
+        candidateIds = narrowed;
+    }
+}
@@ -0,0 +1,261 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.model.Student;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Đọc file của SnapshotWriter theo từng khối; khối sai CRC, thiếu dữ liệu hoặc sai tổng số dòng báo IOException
+class SnapshotReader implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final DataInputStream in;
+    private final Inflater inflater;
+    private byte[] stored = new byte[0];
+    private byte[] raw = new byte[0];
+    private final ByteSource source = new ByteSource();
+    private long rowsRead = 0;
+    private long journalId = 0;
+    private long journalSequence = -1;
+    private long databaseId = 0;
+    private long changeVersion = -1;
+    private boolean finished = false;
+
+    SnapshotReader(String filePath) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(filePath), BUFFER_SIZE));
+        try {
+            byte[] magic = new byte[SnapshotWriter.MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, SnapshotWriter.MAGIC)) {
+                throw new IOException("Không phải file sao lưu nhị phân");
+            }
+            int version = in.readUnsignedByte();
+            if (version < 1 || version > SnapshotWriter.VERSION) {
+                throw new IOException("Phiên bản file sao lưu không hỗ trợ: " + version);
+            }
+            int flags = in.readUnsignedByte();
+            // Version 1 không có thông tin nhật ký
+            if (version >= 2) {
+                journalId = in.readLong();
+                journalSequence = in.readLong();
+            }
+            if (version >= 3) {
+                databaseId = in.readLong();
+                changeVersion = in.readLong();
+            }
+            this.inflater = (flags & SnapshotWriter.FLAG_DEFLATE) != 0 ? new Inflater(true) : null;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    // Kiểm tra nhanh 4 byte đầu, không đọc cả file
+    static boolean isSnapshot(String filePath) {
+        try (InputStream stream = new FileInputStream(filePath)) {
+            byte[] magic = new byte[SnapshotWriter.MAGIC.length];
+            int n = 0;
+            while (n < magic.length) {
+                int read = stream.read(magic, n, magic.length - n);
+                if (read < 0) {
+                    return false;
+                }
+                n += read;
+            }
+            return Arrays.equals(magic, SnapshotWriter.MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Đọc hết file và kiểm tra CRC từng khối, không dựng Student; trả về tổng số dòng
+    static long verify(String filePath) throws IOException {
+        try (SnapshotReader reader = new SnapshotReader(filePath)) {
+            while (reader.readBlock() >= 0) {
+                // chỉ cần CRC
+            }
+            return reader.rowsRead;
+        }
+    }
+
+    // Khối tiếp theo, null khi hết file
+    List<Student> nextBlock() throws IOException {
+        int rows = readBlock();
+        if (rows < 0) {
+            return null;
+        }
+        try {
+            return decode(rows);
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException | DateTimeException e) {
+            throw new IOException("Khối dữ liệu hỏng", e);
+        }
+    }
+
+    long getRowsRead() {
+        return rowsRead;
+    }
+
+    long getJournalId() {
+        return journalId;
+    }
+
+    // -1 nếu snapshot không gắn với nhật ký thay đổi
+    long getJournalSequence() {
+        return journalSequence;
+    }
+
+    long getDatabaseId() {
+        return databaseId;
+    }
+
+    // row_version lúc bắt đầu snapshot, -1 nếu không có
+    long getChangeVersion() {
+        return changeVersion;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (inflater != null) {
+            inflater.end();
+        }
+        in.close();
+    }
+
+    // Đọc một khối vào raw và kiểm tra CRC; -1 khi gặp khối kết thúc
+    private int readBlock() throws IOException {
+        if (finished) {
+            return -1;
+        }
+        try {
+            int rows = in.readInt();
+            if (rows == 0) {
+                long totalRows = in.readLong();
+                if (totalRows != rowsRead) {
+                    throw new IOException("File sao lưu thiếu dữ liệu: " + rowsRead + "/" + totalRows + " dòng");
+                }
+                finished = true;
+                return -1;
+            }
+            int rawLength = in.readInt();
+            int storedLength = in.readInt();
+            int expectedCrc = in.readInt();
+            if (rows < 0 || rows > SnapshotWriter.BLOCK_ROWS
+                    || rawLength < 0 || rawLength > SnapshotWriter.MAX_BLOCK_BYTES
+                    || storedLength < 0 || storedLength > SnapshotWriter.MAX_BLOCK_BYTES) {
+                throw new IOException("Header khối không hợp lệ");
+            }
+
+            if (raw.length < rawLength) {
+                raw = new byte[rawLength];
+            }
+            if (inflater == null) {
+                if (storedLength != rawLength) {
+                    throw new IOException("Header khối không hợp lệ");
+                }
+                in.readFully(raw, 0, rawLength);
+            } else {
+                if (stored.length < storedLength) {
+                    stored = new byte[storedLength];
+                }
+                in.readFully(stored, 0, storedLength);
+                inflate(storedLength, rawLength);
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(raw, 0, rawLength);
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException("Sai checksum ở khối bắt đầu từ dòng " + (rowsRead + 1));
+            }
+            source.reset(raw, 0, rawLength);
+            rowsRead += rows;
+            return rows;
+        } catch (EOFException e) {
+            throw new IOException("File sao lưu bị cắt cụt sau " + rowsRead + " dòng", e);
+        }
+    }
+
+    private void inflate(int storedLength, int rawLength) throws IOException {
+        inflater.reset();
+        inflater.setInput(stored, 0, storedLength);
+        try {
+            int n = 0;
+            while (n < rawLength && !inflater.finished()) {
+                int read = inflater.inflate(raw, n, rawLength - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != rawLength) {
+                throw new IOException("Khối nén hỏng");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Khối nén hỏng", e);
+        }
+    }
+
+    private List<Student> decode(int rows) throws IOException {
+        String[][] text = new String[SnapshotWriter.TEXT_COLUMNS][];
+        for (int column = 0; column < SnapshotWriter.TEXT_COLUMNS; column++) {
+            text[column] = SnapshotWriter.isDictionaryColumn(column) ? readDictionaryColumn(rows) : readStrings(rows);
+        }
+
+        List<Student> students = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            students.add(new Student(text[SnapshotWriter.STUDENT_ID][i], text[SnapshotWriter.FULL_NAME][i], null,
+                    text[SnapshotWriter.GENDER][i], text[SnapshotWriter.ADDRESS][i], text[SnapshotWriter.PHONE][i],
+                    text[SnapshotWriter.EMAIL][i], text[SnapshotWriter.MAJOR][i], 0.0, text[SnapshotWriter.CLASS_NAME][i]));
+        }
+        for (int i = 0; i < rows; i++) {
+            long birthDay = source.readVarLong();
+            if (birthDay != 0) {
+                students.get(i).setBirthDate(LocalDate.ofEpochDay(ByteSource.unZigZag(birthDay - 1)));
+            }
+        }
+        for (int i = 0; i < rows; i++) {
+            students.get(i).setGpa(ByteSource.unZigZag(source.readVarLong()) / 100.0);
+        }
+        if (!source.isExhausted()) {
+            throw new IOException("Khối dữ liệu hỏng");
+        }
+        return students;
+    }
+
+    private String[] readStrings(int rows) throws IOException {
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = source.readString();
+        }
+        return values;
+    }
+
+    private String[] readDictionaryColumn(int rows) throws IOException {
+        long size = source.readVarLong();
+        if (size < 0 || size > rows) {
+            throw new IOException("Khối dữ liệu hỏng");
+        }
+        String[] dictionary = readStrings((int) size);
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            long code = source.readVarLong();
+            if (code < 0 || code > size) {
+                throw new IOException("Khối dữ liệu hỏng");
+            }
+            values[i] = code == 0 ? null : dictionary[(int) code - 1];
+        }
+        return values;
+    }
+}
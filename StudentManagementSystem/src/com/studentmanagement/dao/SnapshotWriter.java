@@ -0,0 +1,201 @@
+package com.studentmanagement.dao;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// File sao lưu nhị phân theo cột. Dữ liệu chia thành khối BLOCK_ROWS dòng, mỗi khối ghi lần lượt từng cột:
+// chuỗi = varint(độ dài UTF-8 + 1) rồi các byte (0 = NULL), ngày sinh = số ngày từ 1970-01-01, GPA = số nguyên x100,
+// giới tính/lớp/ngành = mã trong dictionary riêng của khối. Mỗi khối có CRC32 và có thể nén Deflate.
+//
+// File:  MAGIC, VERSION, flags, mã nhật ký + số thứ tự nhật ký lúc bắt đầu (long, từ version 2),
+//        mã database + row_version lúc bắt đầu (long, từ version 3), các khối, khối rỗng (rowCount = 0) + tổng số dòng
+// Khối:  rowCount, rawLength, storedLength, crc32(raw) (int big-endian), rồi storedLength byte
+class SnapshotWriter implements StudentRowWriter {
+
+    static final byte[] MAGIC = {'S', 'M', 'S', 'B'};
+    static final int VERSION = 3;
+    static final int FLAG_DEFLATE = 1;
+    static final int BLOCK_ROWS = 8192;
+    // Giới hạn khi đọc, để file hỏng không làm cấp phát mảng quá lớn
+    static final int MAX_BLOCK_BYTES = 64 << 20;
+
+    // Thứ tự cột trong khối
+    static final int STUDENT_ID = 0;
+    static final int FULL_NAME = 1;
+    static final int GENDER = 2;
+    static final int ADDRESS = 3;
+    static final int PHONE = 4;
+    static final int EMAIL = 5;
+    static final int CLASS_NAME = 6;
+    static final int MAJOR = 7;
+    static final int TEXT_COLUMNS = 8;
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final DataOutputStream out;
+    private final Deflater deflater;
+
+    private final String[][] text = new String[TEXT_COLUMNS][BLOCK_ROWS];
+    // zigzag(epochDay) + 1, 0 = NULL
+    private final long[] birthDays = new long[BLOCK_ROWS];
+    private final int[] gpaCents = new int[BLOCK_ROWS];
+    private int rows = 0;
+    private long totalRows = 0;
+
+    private final ByteSink raw = new ByteSink(1 << 20);
+    private byte[] compressed = new byte[0];
+    private final CRC32 crc = new CRC32();
+
+    // journalSequence: thay đổi có số thứ tự lớn hơn có thể chưa nằm trong snapshot, -1 = không có nhật ký.
+    // changeVersion: tương tự theo row_version của database, -1 = database không theo dõi thay đổi
+    SnapshotWriter(String filePath, boolean compress, long journalId, long journalSequence,
+                   long databaseId, long changeVersion) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath, false), BUFFER_SIZE));
+        this.deflater = compress ? new Deflater(Deflater.BEST_SPEED, true) : null;
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(compress ? FLAG_DEFLATE : 0);
+        out.writeLong(journalId);
+        out.writeLong(journalSequence);
+        out.writeLong(databaseId);
+        out.writeLong(changeVersion);
+    }
+
+    @Override
+    public void writeRow(String studentId, String fullName, LocalDate birthDate, String gender, String address,
+                         String phone, String email, String className, String major, double gpa) throws IOException {
+        text[STUDENT_ID][rows] = studentId;
+        text[FULL_NAME][rows] = fullName;
+        text[GENDER][rows] = gender;
+        text[ADDRESS][rows] = address;
+        text[PHONE][rows] = phone;
+        text[EMAIL][rows] = email;
+        text[CLASS_NAME][rows] = className;
+        text[MAJOR][rows] = major;
+        birthDays[rows] = birthDate != null ? ByteSink.zigZag(birthDate.toEpochDay()) + 1 : 0;
+        gpaCents[rows] = (int) Math.round(gpa * 100);
+        rows++;
+        if (rows == BLOCK_ROWS) {
+            flushBlock();
+        }
+    }
+
+    // Chỉ gọi khi đã ghi đủ mọi dòng: không có khối kết thúc thì SnapshotReader coi file là bị cắt cụt
+    void finish() throws IOException {
+        flushBlock();
+        out.writeInt(0);
+        out.writeLong(totalRows);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (deflater != null) {
+                deflater.end();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        raw.reset();
+
+        for (int column = 0; column < TEXT_COLUMNS; column++) {
+            if (isDictionaryColumn(column)) {
+                writeDictionaryColumn(text[column]);
+            } else {
+                for (int i = 0; i < rows; i++) {
+                    raw.writeString(text[column][i]);
+                }
+            }
+            Arrays.fill(text[column], 0, rows, null);
+        }
+        for (int i = 0; i < rows; i++) {
+            raw.writeVarLong(birthDays[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            raw.writeVarLong(ByteSink.zigZag(gpaCents[i]));
+        }
+
+        crc.reset();
+        crc.update(raw.bytes, 0, raw.length);
+        byte[] stored = raw.bytes;
+        int storedLength = raw.length;
+        if (deflater != null) {
+            storedLength = deflate();
+            stored = compressed;
+        }
+
+        out.writeInt(rows);
+        out.writeInt(raw.length);
+        out.writeInt(storedLength);
+        out.writeInt((int) crc.getValue());
+        out.write(stored, 0, storedLength);
+
+        totalRows += rows;
+        rows = 0;
+    }
+
+    // Dictionary của khối: số giá trị, các giá trị theo thứ tự xuất hiện, rồi mã từng dòng (mã + 1, 0 = NULL)
+    private void writeDictionaryColumn(String[] values) {
+        Map<String, Integer> codes = new HashMap<>();
+        int[] rowCodes = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            if (values[i] == null) {
+                continue;
+            }
+            Integer code = codes.get(values[i]);
+            if (code == null) {
+                code = codes.size();
+                codes.put(values[i], code);
+            }
+            rowCodes[i] = code + 1;
+        }
+
+        String[] dictionary = new String[codes.size()];
+        for (Map.Entry<String, Integer> entry : codes.entrySet()) {
+            dictionary[entry.getValue()] = entry.getKey();
+        }
+        raw.writeVarLong(dictionary.length);
+        for (String value : dictionary) {
+            raw.writeString(value);
+        }
+        for (int i = 0; i < rows; i++) {
+            raw.writeVarLong(rowCodes[i]);
+        }
+    }
+
+    private int deflate() {
+        deflater.reset();
+        deflater.setInput(raw.bytes, 0, raw.length);
+        deflater.finish();
+        if (compressed.length < raw.length + 64) {
+            compressed = new byte[raw.length + raw.length / 8 + 64];
+        }
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        return length;
+    }
+
+    static boolean isDictionaryColumn(int column) {
+        return column == GENDER || column == CLASS_NAME || column == MAJOR;
+    }
+}
@@ -0,0 +1,123 @@
+package com.studentmanagement.dao;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Cache kết quả thống kê theo phiên bản dữ liệu: mọi lần ghi qua StudentDAO tăng phiên bản làm cache hết hạn.
+// TTL (nếu bật) xử lý trường hợp client khác ghi trực tiếp vào database.
+class StatisticsCache {
+
+    private static final class Entry {
+        final long version;
+        final long computedAt;
+        final Map<String, Object> stats;
+
+        Entry(long version, long computedAt, Map<String, Object> stats) {
+            this.version = version;
+            this.computedAt = computedAt;
+            this.stats = stats;
+        }
+    }
+
+    private volatile Entry entry;
+    private volatile long ttlMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile long lastComputeNanos = 0;
+
+    StatisticsCache(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    Map<String, Object> get(long version, Supplier<Map<String, Object>> loader) {
+        Entry current = entry;
+        if (isFresh(current, version)) {
+            hits.incrementAndGet();
+            return current.stats;
+        }
+
+        synchronized (this) {
+            // Thread khác có thể vừa tính xong trong lúc chờ lock
+            current = entry;
+            if (isFresh(current, version)) {
+                hits.incrementAndGet();
+                return current.stats;
+            }
+
+            misses.incrementAndGet();
+            long start = System.nanoTime();
+            Map<String, Object> stats = loader.get();
+            lastComputeNanos = System.nanoTime() - start;
+
+            // Map rỗng nghĩa là truy vấn lỗi, không cache để lần sau thử lại
+            if (stats.isEmpty()) {
+                return stats;
+            }
+            Map<String, Object> frozen = freeze(stats);
+            // Phiên bản được đọc trước khi tính: nếu có ghi trong lúc tính, lần sau sẽ miss và tính lại
+            entry = new Entry(version, System.currentTimeMillis(), frozen);
+            return frozen;
+        }
+    }
+
+    void invalidate() {
+        entry = null;
+    }
+
+    void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    double getLastComputeMillis() {
+        return lastComputeNanos / 1_000_000.0;
+    }
+
+    String getStatusSummary() {
+        return String.format("Statistics cache: %d hits, %d misses (%.1f%% hit rate), last recompute %.1f ms",
+                getHits(), getMisses(), getHitRate() * 100, getLastComputeMillis());
+    }
+
+    private boolean isFresh(Entry current, long version) {
+        if (current == null || current.version != version) {
+            return false;
+        }
+        long ttl = ttlMillis;
+        return ttl <= 0 || System.currentTimeMillis() - current.computedAt < ttl;
+    }
+
+    // Kết quả dùng chung giữa các lần gọi nên không cho bên gọi sửa
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> freeze(Map<String, Object> stats) {
+        Map<String, Object> copy = new HashMap<>(stats.size() * 2);
+        for (Map.Entry<String, Object> e : stats.entrySet()) {
+            Object value = e.getValue();
+            if (value instanceof Map) {
+                value = Collections.unmodifiableMap((Map<String, Long>) value);
+            }
+            copy.put(e.getKey(), value);
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+}
@@ -0,0 +1,240 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.database.DatabaseConnection;
+import com.studentmanagement.model.Student;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Thống kê giữ trong bộ nhớ: nạp một lần từ bảng students, sau đó mỗi lần ghi qua StudentDAO chỉ cộng/trừ delta.
+// Mỗi mã SV lưu phần đóng góp hiện tại của nó, nên put/remove là "đặt trạng thái" chứ không phải cộng dồn:
+// áp dụng lại cùng một thay đổi (vd: ghi xảy ra đúng lúc đang nạp) không làm sai số liệu.
+class StudentAggregates {
+
+    private static final String SEED_SQL = "SELECT student_id, gender, class_name, major, gpa FROM students";
+    private static final int SEED_FETCH_SIZE = 1000;
+
+    // gpa decimal(3,2) trong [0, 4]: đếm theo từng 0.01 để lấy min/max mà không cần quét lại
+    private static final int GPA_BUCKETS = 401;
+    private static final int NO_GPA = Integer.MIN_VALUE;
+
+    private static final class Contribution {
+        final String gender;
+        final String className;
+        final String major;
+        final int gpaCents;
+
+        Contribution(String gender, String className, String major, int gpaCents) {
+            this.gender = gender;
+            this.className = className;
+            this.major = major;
+            this.gpaCents = gpaCents;
+        }
+    }
+
+    private static final class State {
+        final Map<String, Contribution> byId = new HashMap<>();
+        final Map<String, Long> genderStats = new HashMap<>();
+        final Map<String, Long> rankStats = new HashMap<>();
+        final Map<String, Long> classStats = new HashMap<>();
+        final Map<String, Long> majorStats = new HashMap<>();
+        final long[] gpaHistogram = new long[GPA_BUCKETS];
+        long gpaSumCents = 0;
+        long gpaCount = 0;
+    }
+
+    private State state;
+    private long seededAt = 0;
+    // Thay đổi đến trong lúc đang nạp, áp dụng lại lên dữ liệu mới sau khi nạp xong
+    private List<Object[]> pendingDuringSeed;
+    private Map<String, Object> snapshot;
+    // Dùng chung một instance cho các chuỗi lặp lại (lớp, ngành, giới tính) để tiết kiệm bộ nhớ
+    private final Map<String, String> canonical = new ConcurrentHashMap<>();
+    private final Object seedLock = new Object();
+
+    synchronized boolean isSeeded() {
+        return state != null;
+    }
+
+    synchronized long getAgeMillis() {
+        return state != null ? System.currentTimeMillis() - seededAt : Long.MAX_VALUE;
+    }
+
+    synchronized void reset() {
+        state = null;
+        snapshot = null;
+    }
+
+    // Bắt đầu từ rỗng, dữ liệu vào qua put/remove (kho cục bộ nạp lại khi đọc log)
+    synchronized void seedEmpty() {
+        state = new State();
+        seededAt = System.currentTimeMillis();
+        snapshot = null;
+    }
+
+    // Quét bảng không giữ lock, để các lần ghi đồng thời không phải chờ; chỉ khoá lúc hoán đổi dữ liệu
+    void seed() throws SQLException {
+        synchronized (seedLock) {
+            synchronized (this) {
+                pendingDuringSeed = new ArrayList<>();
+            }
+
+            State fresh = new State();
+            Connection conn = null;
+            PreparedStatement pstmt = null;
+            ResultSet rs = null;
+
+            try {
+                conn = DatabaseConnection.getConnection();
+                pstmt = conn.prepareStatement(SEED_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                pstmt.setFetchSize(SEED_FETCH_SIZE);
+                rs = pstmt.executeQuery();
+
+                while (rs.next()) {
+                    BigDecimal gpa = rs.getBigDecimal(5);
+                    apply(fresh, rs.getString(1), new Contribution(canonical(rs.getString(2)),
+                            canonical(rs.getString(3)), canonical(rs.getString(4)), toCents(gpa)));
+                }
+
+                synchronized (this) {
+                    for (Object[] change : pendingDuringSeed) {
+                        apply(fresh, (String) change[0], (Contribution) change[1]);
+                    }
+                    state = fresh;
+                    seededAt = System.currentTimeMillis();
+                    snapshot = null;
+                }
+            } finally {
+                synchronized (this) {
+                    pendingDuringSeed = null;
+                }
+                DatabaseConnection.closeAll(conn, pstmt, rs);
+            }
+        }
+    }
+
+    synchronized void put(Student student) {
+        Contribution contribution = new Contribution(canonical(student.getGender()),
+                canonical(student.getClassName()), canonical(student.getMajor()),
+                (int) Math.round(student.getGpa() * 100));
+        record(student.getStudentId(), contribution);
+    }
+
+    synchronized void remove(String studentId) {
+        record(studentId, null);
+    }
+
+    private void record(String studentId, Contribution contribution) {
+        if (pendingDuringSeed != null) {
+            pendingDuringSeed.add(new Object[]{studentId, contribution});
+        }
+        if (state != null) {
+            apply(state, studentId, contribution);
+            snapshot = null;
+        }
+    }
+
+    // Map kết quả giống getAcademicStatistics(); tạo lại chỉ khi có thay đổi kể từ lần trước
+    synchronized Map<String, Object> snapshot() {
+        if (state == null) {
+            return Collections.emptyMap();
+        }
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("total", state.byId.size());
+        stats.put("averageGpa", state.gpaCount > 0 ? state.gpaSumCents / 100.0 / state.gpaCount : 0.0);
+        stats.put("maxGpa", maxGpa(state));
+        stats.put("minGpa", minGpa(state));
+        stats.put("genderStats", Collections.unmodifiableMap(new HashMap<>(state.genderStats)));
+        stats.put("rankStats", Collections.unmodifiableMap(new HashMap<>(state.rankStats)));
+        stats.put("classStats", Collections.unmodifiableMap(new HashMap<>(state.classStats)));
+        stats.put("majorStats", Collections.unmodifiableMap(new HashMap<>(state.majorStats)));
+        snapshot = Collections.unmodifiableMap(stats);
+        return snapshot;
+    }
+
+    // ===== Delta =====
+
+    private static void apply(State target, String studentId, Contribution contribution) {
+        String key = StudentDAO.idKey(studentId);
+        Contribution previous = contribution != null
+                ? target.byId.put(key, contribution)
+                : target.byId.remove(key);
+
+        if (previous != null) {
+            adjust(target, previous, -1);
+        }
+        if (contribution != null) {
+            adjust(target, contribution, 1);
+        }
+    }
+
+    private static void adjust(State target, Contribution c, int delta) {
+        increment(target.genderStats, c.gender, delta);
+        increment(target.classStats, c.className, delta);
+        increment(target.majorStats, c.major, delta);
+
+        if (c.gpaCents == NO_GPA) {
+            // Như SQL: GPA NULL không tính vào AVG/MIN/MAX, xếp loại rơi vào nhánh ELSE
+            increment(target.rankStats, Student.getAcademyRank(0.0), delta);
+            return;
+        }
+        increment(target.rankStats, Student.getAcademyRank(c.gpaCents / 100.0), delta);
+        target.gpaSumCents += (long) c.gpaCents * delta;
+        target.gpaCount += delta;
+        // GPA đã được validate trong [0, 4]; giá trị ngoài khoảng vẫn vào AVG nhưng không vào MIN/MAX
+        if (c.gpaCents >= 0 && c.gpaCents < GPA_BUCKETS) {
+            target.gpaHistogram[c.gpaCents] += delta;
+        }
+    }
+
+    private static void increment(Map<String, Long> counts, String key, int delta) {
+        Long updated = counts.merge(key, (long) delta, Long::sum);
+        if (updated != null && updated == 0) {
+            counts.remove(key);
+        }
+    }
+
+    private static double maxGpa(State s) {
+        for (int i = GPA_BUCKETS - 1; i >= 0; i--) {
+            if (s.gpaHistogram[i] > 0) {
+                return i / 100.0;
+            }
+        }
+        return 0.0;
+    }
+
+    private static double minGpa(State s) {
+        for (int i = 0; i < GPA_BUCKETS; i++) {
+            if (s.gpaHistogram[i] > 0) {
+                return i / 100.0;
+            }
+        }
+        return 0.0;
+    }
+
+    private static int toCents(BigDecimal gpa) {
+        return gpa != null ? gpa.movePointRight(2).setScale(0, RoundingMode.HALF_UP).intValue() : NO_GPA;
+    }
+
+    private String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = canonical.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+}
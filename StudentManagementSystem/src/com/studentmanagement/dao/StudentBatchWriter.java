@@ -0,0 +1,200 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.dao.StudentDAO.BatchResult;
+import com.studentmanagement.dao.StudentDAO.WriteOutcome;
+import com.studentmanagement.database.DatabaseConnection;
+import com.studentmanagement.model.Student;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Ghi batch theo từng khối, commit định kỳ; khối lỗi được chia đôi để tìm đúng dòng hỏng
+class StudentBatchWriter {
+
+    private final Connection conn;
+    private final int chunkSize;
+    private final int commitInterval;
+    private final boolean savepointsSupported;
+
+    private PreparedStatement pstmt;
+    private BatchResult result;
+    private List<Student> students;
+    // Các dòng đã ghi nhưng chưa commit, để đánh dấu lại nếu transaction bị rollback
+    private final List<Integer> uncommitted = new ArrayList<>();
+
+    StudentBatchWriter(Connection conn, int chunkSize, int commitInterval) throws SQLException {
+        this.conn = conn;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.commitInterval = Math.max(this.chunkSize, commitInterval);
+        this.savepointsSupported = conn.getMetaData().supportsSavepoints();
+    }
+
+    void write(List<Student> students, BatchResult result) throws SQLException {
+        this.students = students;
+        this.result = result;
+        if (result.rowOutcomes.length != students.size()) {
+            result.rowOutcomes = new WriteOutcome[students.size()];
+        }
+        if (result.rowErrors.length != students.size()) {
+            result.rowErrors = new String[students.size()];
+        }
+
+        Set<String> seenIds = new HashSet<>();
+        conn.setAutoCommit(false);
+
+        try {
+            pstmt = conn.prepareStatement(StudentDAO.INSERT_SQL);
+
+            for (int from = 0; from < students.size(); from += chunkSize) {
+                int to = Math.min(from + chunkSize, students.size());
+
+                List<String> ids = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    ids.add(students.get(i).getStudentId());
+                }
+                Set<String> existingIds = StudentDAO.findExistingIds(conn, ids);
+
+                List<Integer> pending = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    String key = StudentDAO.idKey(students.get(i).getStudentId());
+                    if (existingIds.contains(key) || !seenIds.add(key)) {
+                        result.rowOutcomes[i] = WriteOutcome.DUPLICATE;
+                        result.duplicateCount++;
+                    } else {
+                        pending.add(i);
+                    }
+                }
+
+                result.processedCount += pending.size();
+                writeRange(pending, 0, pending.size());
+
+                if (uncommitted.size() >= commitInterval) {
+                    commit();
+                }
+            }
+
+            commit();
+        } catch (SQLException | RuntimeException e) {
+            // Bên gọi sẽ rollback toàn bộ: các dòng chưa commit không còn trong database
+            failUncommitted("Bị rollback do lỗi: " + e.getMessage());
+            throw e;
+        } finally {
+            DatabaseConnection.closePreparedStatement(pstmt);
+            pstmt = null;
+        }
+    }
+
+    private void writeRange(List<Integer> rows, int from, int to) throws SQLException {
+        if (from >= to) {
+            return;
+        }
+
+        if (!savepointsSupported && !uncommitted.isEmpty()) {
+            // Không có savepoint thì rollback sẽ mất cả phần đã ghi trước đó, nên commit trước
+            commit();
+        }
+        Savepoint savepoint = savepointsSupported ? conn.setSavepoint() : null;
+        try {
+            for (int i = from; i < to; i++) {
+                StudentDAO.bindInsertParameters(pstmt, students.get(rows.get(i)));
+                pstmt.addBatch();
+            }
+            int[] counts = pstmt.executeBatch();
+
+            for (int i = from; i < to; i++) {
+                int count = i - from < counts.length ? counts[i - from] : Statement.EXECUTE_FAILED;
+                int row = rows.get(i);
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    markInserted(row);
+                } else {
+                    markFailed(row, "Không có dòng nào được thêm");
+                }
+            }
+        } catch (SQLException e) {
+            pstmt.clearBatch();
+            if (isConnectionFailure(e)) {
+                throw e;
+            }
+            rollbackRange(savepoint);
+
+            if (to - from == 1) {
+                markFailed(rows.get(from), rootMessage(e));
+            } else {
+                int mid = (from + to) >>> 1;
+                writeRange(rows, from, mid);
+                writeRange(rows, mid, to);
+            }
+        }
+    }
+
+    private void rollbackRange(Savepoint savepoint) throws SQLException {
+        if (savepoint != null) {
+            try {
+                conn.rollback(savepoint);
+                return;
+            } catch (SQLException e) {
+                // Transaction đã bị server huỷ, phải rollback toàn bộ phần chưa commit
+            }
+        }
+        conn.rollback();
+        failUncommitted("Bị rollback do lỗi ở dòng khác");
+    }
+
+    private void commit() throws SQLException {
+        try {
+            conn.commit();
+            uncommitted.clear();
+        } catch (SQLException e) {
+            failUncommitted("Commit thất bại: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    // Đánh dấu lại các dòng đã ghi nhưng chưa commit khi transaction bị huỷ
+    private void failUncommitted(String message) {
+        for (int row : uncommitted) {
+            if (result.rowOutcomes[row] == WriteOutcome.INSERTED) {
+                result.rowOutcomes[row] = WriteOutcome.FAILED;
+                result.successCount--;
+                result.failureCount++;
+                result.rowErrors[row] = message;
+                result.errors.add("Lỗi với SV " + students.get(row).getStudentId() + ": " + message);
+            }
+        }
+        uncommitted.clear();
+    }
+
+    private void markInserted(int row) {
+        result.rowOutcomes[row] = WriteOutcome.INSERTED;
+        result.successCount++;
+        uncommitted.add(row);
+    }
+
+    private void markFailed(int row, String message) {
+        result.rowOutcomes[row] = WriteOutcome.FAILED;
+        result.rowErrors[row] = message;
+        result.failureCount++;
+        result.errors.add("Lỗi với SV " + students.get(row).getStudentId() + ": " + message);
+    }
+
+    private static boolean isConnectionFailure(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && state.startsWith("08");
+    }
+
+    private static String rootMessage(SQLException e) {
+        // BatchUpdateException thường bọc lỗi thật của dòng trong getNextException()
+        if (e instanceof BatchUpdateException && e.getNextException() != null) {
+            return e.getNextException().getMessage();
+        }
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,208 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.model.Student;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cache sinh viên theo mã SV cho findById/existsById: LRU có giới hạn, chia thành nhiều segment để các thread
+// không tranh nhau một lock. Lưu cả kết quả "không tồn tại" (negative cache). Giá trị luôn là bản sao,
+// nên bên gọi sửa Student trả về không làm hỏng cache.
+class StudentCache {
+
+    private static final int SEGMENTS = 16;
+
+    // Kết quả của get() khi mã SV chưa có trong cache
+    static final Object MISS = new Object();
+
+    private static final class CachedStudent {
+        // null = mã SV không tồn tại
+        final Student student;
+        final long loadedAt;
+
+        CachedStudent(Student student, long loadedAt) {
+            this.student = student;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    // Chỉ dùng khi giữ khoá của segment
+    private static final class Segment {
+        // Thứ tự truy cập: mục đầu tiên là mục lâu chưa dùng nhất
+        final LinkedHashMap<String, CachedStudent> entries = new LinkedHashMap<>(16, 0.75f, true);
+        // Tăng mỗi lần DAO ghi vào segment: kết quả đọc từ database bắt đầu trước lần ghi đó bị bỏ
+        long writes = 0;
+
+        // Bỏ các mục lâu chưa dùng nhất cho tới khi còn tối đa capacity, trả về số mục đã bỏ
+        int trimTo(int capacity) {
+            int evicted = 0;
+            Iterator<String> eldest = entries.keySet().iterator();
+            while (entries.size() > capacity && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+    }
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private volatile int segmentCapacity;
+    private volatile long ttlMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    StudentCache(int capacity, long ttlMillis) {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+        setCapacity(capacity);
+        this.ttlMillis = ttlMillis;
+    }
+
+    // Student (bản sao), null nếu đã biết là không tồn tại, hoặc MISS
+    Object get(String studentId) {
+        String key = StudentDAO.idKey(studentId);
+        Segment segment = segmentFor(key);
+        CachedStudent entry;
+        synchronized (segment) {
+            entry = segment.entries.get(key);
+            // Hết TTL: bản ghi có thể đã bị client khác sửa
+            if (entry != null && ttlMillis > 0 && System.currentTimeMillis() - entry.loadedAt >= ttlMillis) {
+                segment.entries.remove(key);
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            return MISS;
+        }
+        if (entry.student == null) {
+            negativeHits.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return copy(entry.student);
+    }
+
+    // Gọi trước khi đọc database, truyền lại vào putLoaded
+    long writeStamp(String studentId) {
+        Segment segment = segmentFor(StudentDAO.idKey(studentId));
+        synchronized (segment) {
+            return segment.writes;
+        }
+    }
+
+    // Kết quả đọc từ database; bỏ qua nếu DAO đã ghi mã SV cùng segment trong lúc đọc
+    void putLoaded(String studentId, Student student, long stamp) {
+        String key = StudentDAO.idKey(studentId);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            if (segment.writes == stamp) {
+                segment.entries.put(key, new CachedStudent(student != null ? copy(student) : null, System.currentTimeMillis()));
+                evict(segment);
+            }
+        }
+    }
+
+    // Ghi qua DAO: cập nhật luôn vào cache (write-through)
+    void written(Student student) {
+        store(student.getStudentId(), copy(student));
+    }
+
+    void deleted(String studentId) {
+        store(studentId, null);
+    }
+
+    // Ghi hàng loạt (import): chỉ bỏ bản cũ, không đẩy các dòng vừa ghi vào cache làm trôi các mã SV đang dùng
+    void invalidate(String studentId) {
+        if (studentId == null) {
+            return;
+        }
+        String key = StudentDAO.idKey(studentId);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.writes++;
+            segment.entries.remove(key);
+        }
+    }
+
+    void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.writes++;
+                segment.entries.clear();
+            }
+        }
+    }
+
+    void setCapacity(int capacity) {
+        segmentCapacity = Math.max(1, capacity / SEGMENTS);
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                evict(segment);
+            }
+        }
+    }
+
+    void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    double getHitRate() {
+        long h = hits.get() + negativeHits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    String getStatusSummary() {
+        return String.format("Entity cache: %d entries, %d hits, %d negative hits, %d misses (%.1f%% hit rate), %d evictions",
+                size(), hits.get(), negativeHits.get(), misses.get(), getHitRate() * 100, evictions.get());
+    }
+
+    private void store(String studentId, Student value) {
+        if (studentId == null) {
+            return;
+        }
+        String key = StudentDAO.idKey(studentId);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.writes++;
+            segment.entries.put(key, new CachedStudent(value, System.currentTimeMillis()));
+            evict(segment);
+        }
+    }
+
+    // Gọi khi giữ khoá của segment
+    private void evict(Segment segment) {
+        int evicted = segment.trimTo(segmentCapacity);
+        if (evicted > 0) {
+            evictions.addAndGet(evicted);
+        }
+    }
+
+    private Segment segmentFor(String key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private static Student copy(Student s) {
+        return new Student(s.getStudentId(), s.getFullName(), s.getBirthDate(), s.getGender(), s.getAddress(),
+                s.getPhone(), s.getEmail(), s.getMajor(), s.getGpa(), s.getClassName());
+    }
+}
@@ -0,0 +1,301 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.model.Student;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// File dữ liệu sinh viên (students.dat) thay cho ObjectOutputStream: ghi/đọc tuần tự từng bản ghi, không dùng reflection.
+// Bản ghi: mã SV, họ tên, giới tính*, địa chỉ*, điện thoại, email, lớp*, ngành* rồi ngày sinh và GPA.
+// Chuỗi như ByteSink; cột có dấu * dùng bảng chuỗi chung cả file: 0 = NULL, 1 = chuỗi mới theo sau (được thêm vào bảng
+// nếu bảng chưa đầy), k >= 2 = phần tử k - 2 của bảng. Ngày sinh = zigzag(số ngày từ 1970-01-01) + 1, 0 = NULL.
+// GPA = zigzag(GPA x100) << 1 nếu đúng 2 chữ số thập phân, ngược lại 1 rồi varint các bit của double.
+//
+// File:  MAGIC, VERSION, các khối, int 0 + tổng số bản ghi (long)
+// Khối:  số bản ghi, độ dài, crc32 (int big-endian), rồi các bản ghi
+class StudentCodec {
+
+    static final byte[] MAGIC = {'S', 'M', 'S', 'D'};
+    static final int VERSION = 1;
+
+    private static final int BLOCK_BYTES = 64 * 1024;
+    // Giới hạn khi đọc, để file hỏng không làm cấp phát mảng quá lớn
+    private static final int MAX_BLOCK_BYTES = 16 << 20;
+    // Bảng chuỗi chỉ dành cho các cột ít giá trị khác nhau; đầy thì chuỗi mới ghi thẳng
+    private static final int MAX_TABLE_SIZE = 1 << 16;
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    static boolean isCodecFile(String filePath) {
+        try (InputStream in = new FileInputStream(filePath)) {
+            byte[] magic = new byte[MAGIC.length];
+            int n = 0;
+            while (n < magic.length) {
+                int read = in.read(magic, n, magic.length - n);
+                if (read < 0) {
+                    return false;
+                }
+                n += read;
+            }
+            return Arrays.equals(magic, MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Đọc hết file, kiểm tra CRC từng khối và tổng số bản ghi; trả về số bản ghi
+    static long verify(String filePath) throws IOException {
+        try (Reader reader = new Reader(filePath)) {
+            while (reader.read() != null) {
+                // chỉ cần kiểm tra
+            }
+            return reader.getRecordsRead();
+        }
+    }
+
+    // GPA không mất chính xác: thường là số cent, giá trị khác giữ nguyên bit của double
+    static void writeGpa(ByteSink sink, double gpa) {
+        long cents = Math.round(gpa * 100);
+        if (Math.abs(cents) < (1L << 60) && cents / 100.0 == gpa) {
+            sink.writeVarLong(ByteSink.zigZag(cents) << 1);
+        } else {
+            sink.writeVarLong(1);
+            sink.writeVarLong(Double.doubleToRawLongBits(gpa));
+        }
+    }
+
+    static double readGpa(ByteSource source) throws IOException {
+        long gpa = source.readVarLong();
+        return gpa == 1 ? Double.longBitsToDouble(source.readVarLong()) : ByteSource.unZigZag(gpa >>> 1) / 100.0;
+    }
+
+    static final class Writer implements StudentRowWriter {
+
+        private final DataOutputStream out;
+        private final ByteSink block = new ByteSink(BLOCK_BYTES + 4096);
+        private final Map<String, Integer> table = new HashMap<>();
+        private final CRC32 crc = new CRC32();
+        private int blockRecords = 0;
+        private long totalRecords = 0;
+
+        Writer(String filePath) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath, false), BUFFER_SIZE));
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+        }
+
+        void write(Student student) throws IOException {
+            writeRow(student.getStudentId(), student.getFullName(), student.getBirthDate(), student.getGender(),
+                    student.getAddress(), student.getPhone(), student.getEmail(), student.getClassName(),
+                    student.getMajor(), student.getGpa());
+        }
+
+        @Override
+        public void writeRow(String studentId, String fullName, LocalDate birthDate, String gender, String address,
+                             String phone, String email, String className, String major, double gpa) throws IOException {
+            block.writeString(studentId);
+            block.writeString(fullName);
+            writeInterned(gender);
+            writeInterned(address);
+            block.writeString(phone);
+            block.writeString(email);
+            writeInterned(className);
+            writeInterned(major);
+            block.writeVarLong(birthDate != null ? ByteSink.zigZag(birthDate.toEpochDay()) + 1 : 0);
+            writeGpa(block, gpa);
+            blockRecords++;
+            if (block.length >= BLOCK_BYTES) {
+                flushBlock();
+            }
+        }
+
+        // Ghi khối cuối và dấu kết thúc; đóng mà không gọi finish (lỗi giữa chừng) thì Reader báo file bị cắt cụt
+        void finish() throws IOException {
+            flushBlock();
+            out.writeInt(0);
+            out.writeLong(totalRecords);
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void writeInterned(String value) {
+            if (value == null) {
+                block.writeVarLong(0);
+                return;
+            }
+            Integer index = table.get(value);
+            if (index != null) {
+                block.writeVarLong(index + 2L);
+                return;
+            }
+            block.writeVarLong(1);
+            block.writeString(value);
+            if (table.size() < MAX_TABLE_SIZE) {
+                table.put(value, table.size());
+            }
+        }
+
+        private void flushBlock() throws IOException {
+            if (blockRecords == 0) {
+                return;
+            }
+            crc.reset();
+            crc.update(block.bytes, 0, block.length);
+            out.writeInt(blockRecords);
+            out.writeInt(block.length);
+            out.writeInt((int) crc.getValue());
+            out.write(block.bytes, 0, block.length);
+            totalRecords += blockRecords;
+            blockRecords = 0;
+            block.reset();
+        }
+    }
+
+    // Đọc lần lượt từng bản ghi; sai CRC, thiếu dữ liệu hoặc sai tổng số bản ghi báo IOException
+    static final class Reader implements AutoCloseable {
+
+        private final DataInputStream in;
+        private final ByteSource source = new ByteSource();
+        private final List<String> table = new ArrayList<>();
+        private byte[] buffer = new byte[BLOCK_BYTES + 4096];
+        private int blockRemaining = 0;
+        private long recordsRead = 0;
+        private boolean finished = false;
+
+        Reader(String filePath) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(filePath), BUFFER_SIZE));
+            try {
+                byte[] magic = new byte[MAGIC.length];
+                in.readFully(magic);
+                if (!Arrays.equals(magic, MAGIC)) {
+                    throw new IOException("Không phải file dữ liệu sinh viên");
+                }
+                int version = in.readUnsignedByte();
+                if (version != VERSION) {
+                    throw new IOException("Phiên bản file dữ liệu không hỗ trợ: " + version);
+                }
+            } catch (EOFException e) {
+                in.close();
+                throw new IOException("Không phải file dữ liệu sinh viên", e);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        // null khi hết file
+        Student read() throws IOException {
+            if (blockRemaining == 0 && !nextBlock()) {
+                return null;
+            }
+            try {
+                Student student = new Student();
+                student.setStudentId(source.readString());
+                student.setFullName(source.readString());
+                student.setGender(readInterned());
+                student.setAddress(readInterned());
+                student.setPhone(source.readString());
+                student.setEmail(source.readString());
+                student.setClassName(readInterned());
+                student.setMajor(readInterned());
+                long birthDay = source.readVarLong();
+                if (birthDay != 0) {
+                    student.setBirthDate(LocalDate.ofEpochDay(ByteSource.unZigZag(birthDay - 1)));
+                }
+                student.setGpa(readGpa(source));
+                blockRemaining--;
+                recordsRead++;
+                if (blockRemaining == 0 && !source.isExhausted()) {
+                    throw new IOException("Khối dữ liệu hỏng");
+                }
+                return student;
+            } catch (DateTimeException e) {
+                throw new IOException("Khối dữ liệu hỏng", e);
+            }
+        }
+
+        long getRecordsRead() {
+            return recordsRead;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private String readInterned() throws IOException {
+            long code = source.readVarLong();
+            if (code == 0) {
+                return null;
+            }
+            if (code == 1) {
+                String value = source.readString();
+                if (value == null) {
+                    throw new IOException("Khối dữ liệu hỏng");
+                }
+                if (table.size() < MAX_TABLE_SIZE) {
+                    table.add(value);
+                }
+                return value;
+            }
+            if (code - 2 >= table.size()) {
+                throw new IOException("Khối dữ liệu hỏng");
+            }
+            return table.get((int) (code - 2));
+        }
+
+        private boolean nextBlock() throws IOException {
+            if (finished) {
+                return false;
+            }
+            try {
+                int records = in.readInt();
+                if (records == 0) {
+                    long totalRecords = in.readLong();
+                    if (totalRecords != recordsRead) {
+                        throw new IOException("File dữ liệu thiếu bản ghi: " + recordsRead + "/" + totalRecords);
+                    }
+                    finished = true;
+                    return false;
+                }
+                int length = in.readInt();
+                int expectedCrc = in.readInt();
+                if (records < 0 || length <= 0 || length > MAX_BLOCK_BYTES) {
+                    throw new IOException("Header khối không hợp lệ");
+                }
+                if (buffer.length < length) {
+                    buffer = new byte[length];
+                }
+                in.readFully(buffer, 0, length);
+                CRC32 crc = new CRC32();
+                crc.update(buffer, 0, length);
+                if ((int) crc.getValue() != expectedCrc) {
+                    throw new IOException("Sai checksum ở khối bắt đầu từ bản ghi " + (recordsRead + 1));
+                }
+                source.reset(buffer, 0, length);
+                blockRemaining = records;
+                return true;
+            } catch (EOFException e) {
+                throw new IOException("File dữ liệu bị cắt cụt sau " + recordsRead + " bản ghi", e);
+            }
+        }
+    }
+}
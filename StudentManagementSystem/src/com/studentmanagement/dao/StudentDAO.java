@@ -1,9 +1,12 @@
 package com.studentmanagement.dao;
 
 import com.studentmanagement.model.Student;
+import com.studentmanagement.model.VietnameseText;
 import com.studentmanagement.database.DatabaseConnection;
+import com.studentmanagement.database.SqlDialect;
 
 // Database imports
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -16,65 +19,295 @@ import java.time.format.DateTimeFormatter;
 
 // Collection imports
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 // IO imports 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.io.IOException;
 
 public class StudentDAO implements StudentRepository {
     
     private static final String CSV_HEADER = "Mã SV,Họ và tên,Ngày sinh,Giới tính,Địa chỉ,Điện thoại,Email,Lớp,Ngành,GPA,Xếp loại";
+    private static final DateTimeFormatter CSV_DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    
+    // Đọc tuần tự (export, thống kê): số dòng mỗi lần driver lấy về; export báo tiến độ mỗi N dòng, tối đa ~5 lần/giây
+    private static final String EXPORT_SQL = "SELECT student_id, full_name, birth_date, gender, address, phone, email, class_name, major, gpa FROM students ORDER BY student_id";
+    private static final int STREAM_FETCH_SIZE = 1000;
+    private static final int EXPORT_PROGRESS_ROWS = 1000;
+    private static final long EXPORT_PROGRESS_INTERVAL_NANOS = 200_000_000L;
+    
+    // Thống kê trong một lần quét. GROUPING_ID(gender, class_name, major, rank_floor):
+    // 15 = tổng quan, 7 = theo giới tính, 11 = theo lớp, 13 = theo ngành, 14 = theo xếp loại.
+    // rank_floor là ngưỡng GPA của xếp loại, nhãn lấy từ Student.getAcademyRank để không lặp chuỗi tiếng Việt trong SQL.
+    private static final String GROUPED_STATISTICS_SQL =
+        "SELECT GROUPING_ID(gender, class_name, major, rank_floor) AS grouping_id, gender, class_name, major, rank_floor, " +
+        "COUNT(*) AS count, AVG(gpa) AS avg_gpa, MAX(gpa) AS max_gpa, MIN(gpa) AS min_gpa " +
+        "FROM (SELECT gender, class_name, major, gpa, " +
+        "CASE WHEN gpa >= 3.6 THEN 3.6 WHEN gpa >= 3.2 THEN 3.2 WHEN gpa >= 2.5 THEN 2.5 WHEN gpa >= 2.0 THEN 2.0 ELSE 0 END AS rank_floor " +
+        "FROM students) s " +
+        "GROUP BY GROUPING SETS ((), (gender), (class_name), (major), (rank_floor))";
+    private static final String STREAMED_STATISTICS_SQL = "SELECT gender, class_name, major, gpa FROM students";
+    
+    // SQL Server giới hạn 2100 tham số mỗi câu lệnh
+    private static final int ID_LOOKUP_CHUNK_SIZE = 1000;
+    
+    // Số dòng theo metadata của bảng (heap hoặc clustered index), không cần quét bảng
+    private static final String ESTIMATE_COUNT_SQL = "SELECT SUM(p.rows) FROM sys.partitions p WHERE p.object_id = OBJECT_ID('students') AND p.index_id IN (0, 1)";
+    
+    // Phiên bản dữ liệu dùng chung cho mọi instance DAO, tăng sau mỗi lần ghi
+    private static final AtomicLong dataVersion = new AtomicLong();
+    private static final StatisticsCache statisticsCache = new StatisticsCache(60_000);
+    // Thống kê cộng dồn trong bộ nhớ, nạp lần đầu khi cần rồi cập nhật theo từng lần ghi
+    private static final StudentAggregates aggregates = new StudentAggregates();
+    private static volatile boolean incrementalStatistics = true;
+    
+    // Index trigram cho searchByKeyword, dựng ở thread nền lần đầu tìm kiếm
+    private static final TrigramIndex searchIndex = new TrigramIndex();
+    private static final long SEARCH_INDEX_TTL_MILLIS = 10 * 60_000L;
+    private static volatile boolean searchIndexEnabled = true;
+    // Cache theo mã SV cho findById/existsById; TTL để nhận thay đổi từ client khác
+    private static final StudentCache entityCache = new StudentCache(10_000, 60_000);
+    // Index bitmap cho lớp, ngành, giới tính, xếp loại
+    private static final BitmapIndex filterIndex = new BitmapIndex();
+    private static final long FILTER_INDEX_TTL_MILLIS = 10 * 60_000L;
+    // Index GPA cho findByGPARange và findTopStudentsByGpa
+    private static final GpaIndex gpaIndex = new GpaIndex();
+    private static final long GPA_INDEX_TTL_MILLIS = 10 * 60_000L;
+    // Nhật ký thay đổi cho sao lưu gia tăng; mặc định ở ~/.studentmanagement/journal
+    private static final ChangeJournal journal = new ChangeJournal(Paths.get(System.getProperty("studentmanagement.journal.dir",
+            Paths.get(System.getProperty("user.home"), ".studentmanagement", "journal").toString())));
+    // Như ORDER BY gpa DESC, student_id
+    static final Comparator<Student> GPA_DESC_ORDER = (a, b) -> {
+        int byGpa = Double.compare(b.getGpa(), a.getGpa());
+        return byGpa != 0 ? byGpa : String.CASE_INSENSITIVE_ORDER.compare(a.getStudentId(), b.getStudentId());
+    };
+    // Câu SQL của advancedSearch theo tổ hợp điều kiện (SearchPlan.shape và kích thước danh sách IN)
+    private static final Map<Integer, String> searchPlanShapes = new ConcurrentHashMap<>();
+    private static final String KEYWORD_SCAN_SQL = "SELECT * FROM students ORDER BY student_id";
+    
+    private int batchChunkSize = 500;
+    private boolean backupCompression = true;
+    private int batchCommitInterval = 5000;
+    
+    // Mỗi tác vụ parse nhận một khối dòng CSV
+    private static final int IMPORT_PARSE_CHUNK_SIZE = 1000;
+    private int importParallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    // File từ ngưỡng này trở lên được đọc qua memory-mapping và parse song song theo khối byte
+    private long mappedImportThreshold = 64L * 1024 * 1024;
+    
+    // SQL cố định dùng chung để statement cache của pool nhận ra cùng một câu lệnh
+    static final String INSERT_SQL = "INSERT INTO students (student_id, full_name, birth_date, gender, address, phone, email, class_name, major, gpa) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    static final String UPDATE_SQL = "UPDATE students SET full_name = ?, birth_date = ?, gender = ?, address = ?, phone = ?, email = ?, class_name = ?, major = ?, gpa = ? WHERE student_id = ?";
+    private static final String FIND_BY_ID_SQL = "SELECT * FROM students WHERE student_id = ?";
+    private static final String INSERT_IF_ABSENT_SQL = "INSERT INTO students (student_id, full_name, birth_date, gender, address, phone, email, class_name, major, gpa) "
+            + "SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM students WHERE student_id = ?)";
+    // SQL Server: giữ khoá range từ lúc kiểm tra đến lúc chèn, để hai client cùng chèn một mã SV không cùng qua NOT EXISTS
+    private static final String INSERT_IF_ABSENT_LOCKED_SQL = "INSERT INTO students (student_id, full_name, birth_date, gender, address, phone, email, class_name, major, gpa) "
+            + "SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM students WITH (UPDLOCK, HOLDLOCK) WHERE student_id = ?)";
+    private static final String MERGE_SQL = "MERGE students WITH (HOLDLOCK) AS t "
+            + "USING (VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)) AS s (student_id, full_name, birth_date, gender, address, phone, email, class_name, major, gpa) "
+            + "ON t.student_id = s.student_id "
+            + "WHEN MATCHED THEN UPDATE SET full_name = s.full_name, birth_date = s.birth_date, gender = s.gender, address = s.address, "
+            + "phone = s.phone, email = s.email, class_name = s.class_name, major = s.major, gpa = s.gpa "
+            + "WHEN NOT MATCHED THEN INSERT (student_id, full_name, birth_date, gender, address, phone, email, class_name, major, gpa) "
+            + "VALUES (s.student_id, s.full_name, s.birth_date, s.gender, s.address, s.phone, s.email, s.class_name, s.major, s.gpa) "
+            + "OUTPUT $action;";
+    
+    // Theo dõi thay đổi (SQL Server): cột rowversion tự tăng khi dòng được thêm/sửa, bảng tombstone ghi lại mã SV đã xoá.
+    // Schema do sql/001_change_tracking.sql tạo; DAO chỉ kiểm tra, chưa có thì bên gọi tải lại toàn bộ
+    private static final String CHANGE_TRACKING_CHECK_SQL = "SELECT CASE WHEN COL_LENGTH('students', 'row_version') IS NOT NULL "
+            + "AND OBJECT_ID('student_tombstones') IS NOT NULL THEN 1 ELSE 0 END";
+    // Schema chưa có thì kiểm tra lại sau khoảng này, để nhận migration chạy trong lúc ứng dụng đang mở
+    private static final long CHANGE_TRACKING_RECHECK_MILLIS = 60 * 1000L;
+    // Mọi rowversion <= giá trị này đã commit; giao dịch đang mở có rowversion lớn hơn nên không bị bỏ sót
+    private static final String CHANGE_VERSION_SQL = "SELECT CAST(MIN_ACTIVE_ROWVERSION() AS bigint) - 1";
+    private static final String CHANGED_SINCE_SQL = "SELECT *, CAST(row_version AS bigint) AS change_version FROM students "
+            + "WHERE row_version > CAST(CAST(? AS bigint) AS binary(8)) AND row_version <= CAST(CAST(? AS bigint) AS binary(8)) "
+            + "ORDER BY row_version";
+    private static final String DELETED_SINCE_SQL = "SELECT student_id, CAST(row_version AS bigint) FROM student_tombstones "
+            + "WHERE row_version > CAST(CAST(? AS bigint) AS binary(8)) AND row_version <= CAST(CAST(? AS bigint) AS binary(8)) "
+            + "ORDER BY row_version";
+    // row_version chỉ có nghĩa trong một database: bản gia tăng phải cùng database với bản sao lưu trước
+    private static final String DATABASE_ID_SQL = "SELECT CONVERT(char(36), service_broker_guid) FROM sys.databases WHERE database_id = DB_ID()";
+    // UPDATE cùng giá trị vẫn tăng row_version, nên xoá lại một mã SV đã từng xoá cũng được ghi nhận
+    static final String TOMBSTONE_SQL = "MERGE student_tombstones AS t USING (VALUES (?)) AS s (student_id) "
+            + "ON t.student_id = s.student_id "
+            + "WHEN MATCHED THEN UPDATE SET student_id = s.student_id "
+            + "WHEN NOT MATCHED THEN INSERT (student_id) VALUES (s.student_id);";
+    // Chỉ nhớ mãi kết quả "có"; cột/bảng không tự mất đi nhưng có thể được thêm sau
+    private static volatile boolean changeTrackingAvailable = false;
+    private static volatile long changeTrackingCheckedAt = 0;
     
     // ===== CRUD Repository Implementation =====
     
     @Override
     public boolean save(Student student) {
-        if (existsById(student.getStudentId())) {
-            return update(student);
-        } else {
-            return insert(student);
+        return upsert(student) != WriteOutcome.FAILED;
+    }
+    
+    // Ghi một sinh viên trong một round trip: MERGE trên SQL Server, UPDATE rồi INSERT với dialect khác
+    public WriteOutcome upsert(Student student) {
+        Connection conn = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            WriteOutcome outcome = upsert(conn, student);
+            if (outcome != WriteOutcome.FAILED) {
+                studentWritten(student);
+            }
+            return outcome;
+        } catch (SQLException e) {
+            System.err.println("Error saving student: " + e.getMessage());
+            return WriteOutcome.FAILED;
+        } finally {
+            DatabaseConnection.closeConnection(conn);
         }
     }
     
-    private boolean insert(Student student) {
-        String sql = "INSERT INTO students (student_id, full_name, birth_date, gender, address, phone, email, class_name, major, gpa) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private WriteOutcome upsert(Connection conn, Student student) throws SQLException {
+        if (DatabaseConnection.getDialect() == SqlDialect.SQL_SERVER) {
+            PreparedStatement pstmt = null;
+            ResultSet rs = null;
+            
+            try {
+                pstmt = conn.prepareStatement(MERGE_SQL);
+                bindInsertParameters(pstmt, student);
+                rs = pstmt.executeQuery();
+                
+                if (rs.next()) {
+                    return "INSERT".equals(rs.getString(1)) ? WriteOutcome.INSERTED : WriteOutcome.UPDATED;
+                }
+                return WriteOutcome.FAILED;
+            } finally {
+                DatabaseConnection.closeResultSet(rs);
+                DatabaseConnection.closePreparedStatement(pstmt);
+            }
+        }
         
+        // Fallback cho database nhúng: UPDATE trước, chưa có thì INSERT trên cùng connection
+        if (executeUpdate(conn, student) > 0) {
+            return WriteOutcome.UPDATED;
+        }
+        if (insertIfAbsent(conn, student) > 0) {
+            return WriteOutcome.INSERTED;
+        }
+        // Client khác vừa chèn cùng mã SV
+        return executeUpdate(conn, student) > 0 ? WriteOutcome.UPDATED : WriteOutcome.FAILED;
+    }
+    
+    // Chỉ thêm nếu chưa tồn tại, trả về DUPLICATE thay vì cập nhật bản ghi cũ
+    public WriteOutcome insertIfAbsent(Student student) {
         Connection conn = null;
-        PreparedStatement pstmt = null;
         
         try {
             conn = DatabaseConnection.getConnection();
-            pstmt = conn.prepareStatement(sql);
-            
-            pstmt.setString(1, student.getStudentId());
-            pstmt.setString(2, student.getFullName());
-            pstmt.setDate(3, student.getBirthDate() != null ? Date.valueOf(student.getBirthDate()) : null);
-            pstmt.setString(4, student.getGender());
-            pstmt.setString(5, student.getAddress());
-            pstmt.setString(6, student.getPhone());
-            pstmt.setString(7, student.getEmail());
-            pstmt.setString(8, student.getClassName());
-            pstmt.setString(9, student.getMajor());
-            pstmt.setDouble(10, student.getGpa());
-            
-            return pstmt.executeUpdate() > 0;
-            
+            if (insertIfAbsent(conn, student) > 0) {
+                studentWritten(student);
+                return WriteOutcome.INSERTED;
+            }
+            return WriteOutcome.DUPLICATE;
         } catch (SQLException e) {
             System.err.println("Error inserting student: " + e.getMessage());
-            return false;
+            return WriteOutcome.FAILED;
         } finally {
-            DatabaseConnection.closeAll(conn, pstmt, null);
+            DatabaseConnection.closeConnection(conn);
+        }
+    }
+    
+    private int insertIfAbsent(Connection conn, Student student) throws SQLException {
+        PreparedStatement pstmt = null;
+        
+        try {
+            pstmt = conn.prepareStatement(DatabaseConnection.getDialect() == SqlDialect.SQL_SERVER
+                    ? INSERT_IF_ABSENT_LOCKED_SQL : INSERT_IF_ABSENT_SQL);
+            bindInsertParameters(pstmt, student);
+            pstmt.setString(11, student.getStudentId());
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            // Database khác không có hint khoá: client khác chèn cùng mã SV sau NOT EXISTS thì coi như đã tồn tại
+            if (isDuplicateKey(e)) {
+                return 0;
+            }
+            throw e;
+        } finally {
+            DatabaseConnection.closePreparedStatement(pstmt);
+        }
+    }
+    
+    // 2627/2601: vi phạm khoá chính/unique trên SQL Server; 23505: mã chuẩn (H2 và các database khác)
+    private static boolean isDuplicateKey(SQLException e) {
+        return e.getErrorCode() == 2627 || e.getErrorCode() == 2601 || "23505".equals(e.getSQLState());
+    }
+    
+    private int executeUpdate(Connection conn, Student student) throws SQLException {
+        PreparedStatement pstmt = null;
+        
+        try {
+            pstmt = conn.prepareStatement(UPDATE_SQL);
+            bindUpdateParameters(pstmt, student);
+            return pstmt.executeUpdate();
+        } finally {
+            DatabaseConnection.closePreparedStatement(pstmt);
         }
     }
     
+    static void bindInsertParameters(PreparedStatement pstmt, Student student) throws SQLException {
+        pstmt.setString(1, student.getStudentId());
+        pstmt.setString(2, student.getFullName());
+        pstmt.setDate(3, student.getBirthDate() != null ? Date.valueOf(student.getBirthDate()) : null);
+        pstmt.setString(4, student.getGender());
+        pstmt.setString(5, student.getAddress());
+        pstmt.setString(6, student.getPhone());
+        pstmt.setString(7, student.getEmail());
+        pstmt.setString(8, student.getClassName());
+        pstmt.setString(9, student.getMajor());
+        pstmt.setDouble(10, student.getGpa());
+    }
+    
+    static void bindUpdateParameters(PreparedStatement pstmt, Student student) throws SQLException {
+        pstmt.setString(1, student.getFullName());
+        pstmt.setDate(2, student.getBirthDate() != null ? Date.valueOf(student.getBirthDate()) : null);
+        pstmt.setString(3, student.getGender());
+        pstmt.setString(4, student.getAddress());
+        pstmt.setString(5, student.getPhone());
+        pstmt.setString(6, student.getEmail());
+        pstmt.setString(7, student.getClassName());
+        pstmt.setString(8, student.getMajor());
+        pstmt.setDouble(9, student.getGpa());
+        pstmt.setString(10, student.getStudentId());
+    }
+    
+    // Đọc qua cache: mã SV hay dùng (kể cả mã không tồn tại) không phải truy vấn database mỗi lần
     @Override
     public Student findById(String studentId) {
-        String sql = "SELECT * FROM students WHERE student_id = ?";
+        if (studentId == null) {
+            return null;
+        }
+        Object cached = entityCache.get(studentId);
+        if (cached != StudentCache.MISS) {
+            return (Student) cached;
+        }
+        long stamp = entityCache.writeStamp(studentId);
         
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -82,13 +315,13 @@ public class StudentDAO implements StudentRepository {
         
         try {
             conn = DatabaseConnection.getConnection();
-            pstmt = conn.prepareStatement(sql);
+            pstmt = conn.prepareStatement(FIND_BY_ID_SQL);
             pstmt.setString(1, studentId);
             rs = pstmt.executeQuery();
             
-            if (rs.next()) {
-                return mapResultSetToStudent(rs);
-            }
+            Student student = rs.next() ? mapResultSetToStudent(rs) : null;
+            entityCache.putLoaded(studentId, student, stamp);
+            return student;
             
         } catch (SQLException e) {
             System.err.println("Error finding student by ID: " + e.getMessage());
@@ -128,33 +361,21 @@ public class StudentDAO implements StudentRepository {
     
     @Override
     public boolean update(Student student) {
-        String sql = "UPDATE students SET full_name = ?, birth_date = ?, gender = ?, address = ?, phone = ?, email = ?, class_name = ?, major = ?, gpa = ? WHERE student_id = ?";
-        
         Connection conn = null;
-        PreparedStatement pstmt = null;
         
         try {
             conn = DatabaseConnection.getConnection();
-            pstmt = conn.prepareStatement(sql);
-            
-            pstmt.setString(1, student.getFullName());
-            pstmt.setDate(2, student.getBirthDate() != null ? Date.valueOf(student.getBirthDate()) : null);
-            pstmt.setString(3, student.getGender());
-            pstmt.setString(4, student.getAddress());
-            pstmt.setString(5, student.getPhone());
-            pstmt.setString(6, student.getEmail());
-            pstmt.setString(7, student.getClassName());
-            pstmt.setString(8, student.getMajor());
-            pstmt.setDouble(9, student.getGpa());
-            pstmt.setString(10, student.getStudentId());
-            
-            return pstmt.executeUpdate() > 0;
+            if (executeUpdate(conn, student) > 0) {
+                studentWritten(student);
+                return true;
+            }
+            return false;
             
         } catch (SQLException e) {
             System.err.println("Error updating student: " + e.getMessage());
             return false;
         } finally {
-            DatabaseConnection.closeAll(conn, pstmt, null);
+            DatabaseConnection.closeConnection(conn);
         }
     }
     
@@ -165,17 +386,51 @@ public class StudentDAO implements StudentRepository {
         Connection conn = null;
         PreparedStatement pstmt = null;
         
+        boolean tracked = isChangeTrackingAvailable();
+        
         try {
             conn = DatabaseConnection.getConnection();
+            // Xoá dòng và ghi tombstone trong cùng giao dịch để findChangesSince không bỏ sót lần xoá
+            if (tracked) {
+                conn.setAutoCommit(false);
+            }
             pstmt = conn.prepareStatement(sql);
             pstmt.setString(1, studentId);
             
-            return pstmt.executeUpdate() > 0;
+            if (pstmt.executeUpdate() == 0) {
+                if (tracked) {
+                    conn.rollback();
+                }
+                return false;
+            }
+            if (tracked) {
+                try (PreparedStatement tombstone = conn.prepareStatement(TOMBSTONE_SQL)) {
+                    tombstone.setString(1, studentId);
+                    tombstone.executeUpdate();
+                }
+                conn.commit();
+            }
+            studentDeleted(studentId);
+            return true;
             
         } catch (SQLException e) {
             System.err.println("Error deleting student: " + e.getMessage());
+            if (tracked && conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    System.err.println("Error rolling back delete: " + rollbackError.getMessage());
+                }
+            }
             return false;
         } finally {
+            if (tracked && conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    System.err.println("Error restoring auto-commit: " + e.getMessage());
+                }
+            }
             DatabaseConnection.closeAll(conn, pstmt, null);
         }
     }
@@ -185,9 +440,15 @@ public class StudentDAO implements StudentRepository {
         return deleteById(student.getStudentId());
     }
     
+    // Dùng chung cache với findById: đọc cả dòng theo khoá chính tốn gần như COUNT(*), lần sau findById trúng cache
     @Override
     public boolean existsById(String studentId) {
-        String sql = "SELECT COUNT(*) FROM students WHERE student_id = ?";
+        return findById(studentId) != null;
+    }
+    
+    @Override
+    public long count() {
+        String sql = "SELECT COUNT(*) FROM students";
         
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -196,54 +457,69 @@ public class StudentDAO implements StudentRepository {
         try {
             conn = DatabaseConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, studentId);
             rs = pstmt.executeQuery();
             
             if (rs.next()) {
-                return rs.getInt(1) > 0;
+                return rs.getLong(1);
             }
             
         } catch (SQLException e) {
-            System.err.println("Error checking student existence: " + e.getMessage());
+            System.err.println("Error counting students: " + e.getMessage());
         } finally {
             DatabaseConnection.closeAll(conn, pstmt, rs);
         }
         
-        return false;
+        return 0;
     }
     
+    // ===== Enhanced Search Methods =====
+    
+    // Dùng index trigram để thu hẹp ứng viên rồi so khớp không dấu trên các sinh viên đó.
+    // Keyword ngắn hơn 3 ký tự, có ký tự đại diện, khớp quá nhiều dòng hoặc index chưa dựng xong thì quét bảng,
+    // cũng so khớp không dấu.
     @Override
-    public long count() {
-        String sql = "SELECT COUNT(*) FROM students";
+    public List<Student> searchByKeyword(String keyword) {
+        if (!searchIndexEnabled) {
+            return scanByKeyword(keyword);
+        }
+        searchIndex.refreshIfNeeded(SEARCH_INDEX_TTL_MILLIS);
+        // Keyword phổ biến (khớp phần lớn bảng) thì một lần quét rẻ hơn đọc theo từng lô mã SV;
+        // quét cũng so khớp không dấu nên kết quả như nhau
+        List<String> candidates = searchIndex.candidates(keyword, maxIdLookups(searchIndex.size()));
+        if (candidates == null) {
+            return scanByKeyword(keyword);
+        }
+        
+        List<Student> students = new ArrayList<>();
+        if (candidates.isEmpty()) {
+            return students;
+        }
         
         Connection conn = null;
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
         
         try {
             conn = DatabaseConnection.getConnection();
-            pstmt = conn.prepareStatement(sql);
-            rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getLong(1);
+            // Kiểm tra lại trên khoá không dấu của từng ứng viên: "nguyen" khớp cả "Nguyễn"
+            String foldedKeyword = VietnameseText.fold(keyword);
+            for (Student student : findByIds(conn, candidates)) {
+                if (student.matchesKeyword(foldedKeyword)) {
+                    students.add(student);
+                }
             }
-            
         } catch (SQLException e) {
-            System.err.println("Error counting students: " + e.getMessage());
+            System.err.println("Error searching students: " + e.getMessage());
         } finally {
-            DatabaseConnection.closeAll(conn, pstmt, rs);
+            DatabaseConnection.closeConnection(conn);
         }
         
-        return 0;
+        return students;
     }
     
-    // ===== Enhanced Search Methods =====
-    
-    @Override
-    public List<Student> searchByKeyword(String keyword) {
-        String sql = "SELECT * FROM students WHERE student_id LIKE ? OR full_name LIKE ? OR class_name LIKE ? OR major LIKE ? OR address LIKE ? OR phone LIKE ? OR email LIKE ? ORDER BY student_id";
+    // Collation của database phân biệt dấu nên LIKE không tìm được "Nguyễn" từ "nguyen": đọc lần lượt cả bảng
+    // và so khớp trên khoá không dấu như đường đi qua index, để kết quả không phụ thuộc trạng thái index
+    private List<Student> scanByKeyword(String keyword) {
         List<Student> students = new ArrayList<>();
+        String foldedKeyword = VietnameseText.fold(keyword != null ? keyword : "");
         
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -251,16 +527,15 @@ public class StudentDAO implements StudentRepository {
         
         try {
             conn = DatabaseConnection.getConnection();
-            pstmt = conn.prepareStatement(sql);
-            String searchPattern = "%" + keyword + "%";
-            for (int i = 1; i <= 7; i++) {
-                pstmt.setString(i, searchPattern);
-            }
-            
+            pstmt = conn.prepareStatement(KEYWORD_SCAN_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
             rs = pstmt.executeQuery();
             
             while (rs.next()) {
-                students.add(mapResultSetToStudent(rs));
+                Student student = mapResultSetToStudent(rs);
+                if (student.matchesKeyword(foldedKeyword)) {
+                    students.add(student);
+                }
             }
             
         } catch (SQLException e) {
@@ -272,19 +547,90 @@ public class StudentDAO implements StudentRepository {
         return students;
     }
     
+    // Lấy nhiều sinh viên theo danh sách mã SV, sắp theo mã SV; mã không tồn tại bị bỏ qua
+    public List<Student> findByIds(Collection<String> studentIds) {
+        List<Student> students = new ArrayList<>();
+        if (studentIds == null || studentIds.isEmpty()) {
+            return students;
+        }
+        
+        Connection conn = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            students = findByIds(conn, new ArrayList<>(studentIds));
+        } catch (SQLException e) {
+            System.err.println("Error finding students by ids: " + e.getMessage());
+        } finally {
+            DatabaseConnection.closeConnection(conn);
+        }
+        
+        return students;
+    }
+    
+    private List<Student> findByIds(Connection conn, List<String> ids) throws SQLException {
+        List<String> sorted = new ArrayList<>(ids);
+        sorted.sort(String.CASE_INSENSITIVE_ORDER);
+        List<Student> students = new ArrayList<>(sorted.size());
+        
+        for (int from = 0; from < sorted.size(); from += ID_LOOKUP_CHUNK_SIZE) {
+            int to = Math.min(from + ID_LOOKUP_CHUNK_SIZE, sorted.size());
+            int paramCount = inListSize(to - from);
+            
+            PreparedStatement pstmt = null;
+            ResultSet rs = null;
+            
+            try {
+                pstmt = conn.prepareStatement(buildInListSql("SELECT * FROM students WHERE student_id IN (", paramCount));
+                for (int i = 0; i < paramCount; i++) {
+                    pstmt.setString(i + 1, sorted.get(Math.min(from + i, to - 1)));
+                }
+                rs = pstmt.executeQuery();
+                
+                while (rs.next()) {
+                    students.add(mapResultSetToStudent(rs));
+                }
+            } finally {
+                DatabaseConnection.closeResultSet(rs);
+                DatabaseConnection.closePreparedStatement(pstmt);
+            }
+        }
+        
+        students.sort((a, b) -> String.CASE_INSENSITIVE_ORDER.compare(a.getStudentId(), b.getStudentId()));
+        return students;
+    }
+    
     @Override
     public List<Student> findByClassName(String className) {
-        return findByField("class_name", className);
+        return findByIndexedField(BitmapIndex.CLASS_NAME, "class_name", className);
     }
     
     @Override
     public List<Student> findByMajor(String major) {
-        return findByField("major", major);
+        return findByIndexedField(BitmapIndex.MAJOR, "major", major);
     }
     
     @Override
     public List<Student> findByGender(String gender) {
-        return findByField("gender", gender);
+        return findByIndexedField(BitmapIndex.GENDER, "gender", gender);
+    }
+    
+    // Lấy mã SV từ index bitmap rồi đọc theo mã; index chưa dựng xong hoặc giá trị chiếm phần lớn bảng
+    // (vd: giới tính) thì truy vấn theo cột như cũ
+    private List<Student> findByIndexedField(int column, String fieldName, String value) {
+        filterIndex.refreshIfNeeded(FILTER_INDEX_TTL_MILLIS);
+        List<String> ids = filterIndex.lookup(column, value);
+        if (ids == null || ids.size() > maxIdLookups(filterIndex.size())) {
+            return findByField(fieldName, value);
+        }
+        // Kiểm tra lại trên dữ liệu vừa đọc: client khác có thể đã đổi cột này sau lần dựng index
+        List<Student> students = new ArrayList<>();
+        for (Student student : findByIds(ids)) {
+            if (value != null && value.equalsIgnoreCase(BitmapIndex.valuesOf(student)[column])) {
+                students.add(student);
+            }
+        }
+        return students;
     }
     
     private List<Student> findByField(String fieldName, String value) {
@@ -316,7 +662,22 @@ public class StudentDAO implements StudentRepository {
     
     @Override
     public List<Student> findByGPARange(double minGpa, double maxGpa) {
-        String sql = "SELECT * FROM students WHERE gpa BETWEEN ? AND ? ORDER BY gpa DESC";
+        gpaIndex.refreshIfNeeded(GPA_INDEX_TTL_MILLIS);
+        List<String> ids = gpaIndex.range(minGpa, maxGpa);
+        // Khoảng rộng (phần lớn bảng) thì một lần quét theo gpa rẻ hơn đọc theo từng lô mã SV
+        if (ids != null && ids.size() <= maxIdLookups(gpaIndex.size())) {
+            // Kiểm tra lại trên dữ liệu vừa đọc, phòng khi có ghi xen giữa lúc tra index và lúc đọc
+            List<Student> students = new ArrayList<>();
+            for (Student student : findByIds(ids)) {
+                if (student.getGpa() >= minGpa && student.getGpa() <= maxGpa) {
+                    students.add(student);
+                }
+            }
+            students.sort(GPA_DESC_ORDER);
+            return students;
+        }
+        
+        String sql = "SELECT * FROM students WHERE gpa BETWEEN ? AND ? ORDER BY gpa DESC, student_id";
         List<Student> students = new ArrayList<>();
         
         Connection conn = null;
@@ -345,6 +706,22 @@ public class StudentDAO implements StudentRepository {
     
     @Override
     public List<Student> findTopStudentsByGpa(int limit) {
+        gpaIndex.refreshIfNeeded(GPA_INDEX_TTL_MILLIS);
+        List<String> ids = gpaIndex.topWithTies(limit);
+        if (ids != null) {
+            List<Student> students = new ArrayList<>();
+            for (Student student : findByIds(ids)) {
+                if (student.getGpa() > 0) {
+                    students.add(student);
+                }
+            }
+            // Thiếu dòng so với index (GPA vừa bị sửa/xoá ngoài DAO) thì truy vấn lại để không trả về danh sách hụt
+            if (students.size() >= Math.min(limit, ids.size())) {
+                students.sort(GPA_DESC_ORDER);
+                return students.size() > limit ? new ArrayList<>(students.subList(0, limit)) : students;
+            }
+        }
+        
         String sql = "SELECT TOP (?) * FROM students WHERE gpa > 0 ORDER BY gpa DESC, student_id ASC";
         List<Student> students = new ArrayList<>();
         
@@ -371,11 +748,77 @@ public class StudentDAO implements StudentRepository {
         return students;
     }
     
-    // ===== Enhanced Statistics cho SQL Server =====
+    // ===== Keyset Pagination =====
+    
+    // Trang sau được lấy bằng điều kiện "sau khoá cuối cùng" thay vì OFFSET, nên chi phí mỗi trang
+    // không tăng theo vị trí trang. Cursor là khoá sắp xếp của dòng cuối + tổng ước lượng, mã hoá Base64.
     
     @Override
-    public Map<String, Object> getAcademicStatistics() {
-        Map<String, Object> stats = new HashMap<>();
+    public Page<Student> findAllPage(int pageSize, String afterCursor) {
+        return queryPage(new ArrayList<>(), new ArrayList<>(), false, pageSize, afterCursor);
+    }
+    
+    @Override
+    public Page<Student> searchByKeywordPage(String keyword, int pageSize, String afterCursor) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        
+        conditions.add("(student_id LIKE ? OR full_name LIKE ? OR class_name LIKE ? OR major LIKE ? OR address LIKE ? OR phone LIKE ? OR email LIKE ?)");
+        String searchPattern = "%" + keyword + "%";
+        for (int i = 0; i < 7; i++) {
+            parameters.add(searchPattern);
+        }
+        
+        return queryPage(conditions, parameters, false, pageSize, afterCursor);
+    }
+    
+    @Override
+    public Page<Student> findByClassNamePage(String className, int pageSize, String afterCursor) {
+        return findByFieldPage("class_name", className, pageSize, afterCursor);
+    }
+    
+    @Override
+    public Page<Student> findByMajorPage(String major, int pageSize, String afterCursor) {
+        return findByFieldPage("major", major, pageSize, afterCursor);
+    }
+    
+    @Override
+    public Page<Student> findByGenderPage(String gender, int pageSize, String afterCursor) {
+        return findByFieldPage("gender", gender, pageSize, afterCursor);
+    }
+    
+    private Page<Student> findByFieldPage(String fieldName, String value, int pageSize, String afterCursor) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        conditions.add(fieldName + " = ?");
+        parameters.add(value);
+        return queryPage(conditions, parameters, false, pageSize, afterCursor);
+    }
+    
+    // Sắp xếp theo gpa giảm dần như findByGPARange, student_id làm khoá phụ để cursor là duy nhất
+    @Override
+    public Page<Student> findByGPARangePage(double minGpa, double maxGpa, int pageSize, String afterCursor) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        conditions.add("gpa BETWEEN ? AND ?");
+        parameters.add(minGpa);
+        parameters.add(maxGpa);
+        return queryPage(conditions, parameters, true, pageSize, afterCursor);
+    }
+    
+    public Page<Student> advancedSearchPage(SearchCriteria criteria, int pageSize, String afterCursor) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        buildCriteriaFilter(criteria, conditions, parameters);
+        return queryPage(conditions, parameters, false, pageSize, afterCursor);
+    }
+    
+    // Ước lượng từ metadata của SQL Server (không quét bảng); dialect khác dùng COUNT(*)
+    @Override
+    public long estimateCount() {
+        if (DatabaseConnection.getDialect() != SqlDialect.SQL_SERVER) {
+            return count();
+        }
         
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -383,97 +826,568 @@ public class StudentDAO implements StudentRepository {
         
         try {
             conn = DatabaseConnection.getConnection();
-            
-            // Thống kê tổng quan
-            pstmt = conn.prepareStatement("SELECT COUNT(*) as total, AVG(gpa) as avg_gpa, MAX(gpa) as max_gpa, MIN(gpa) as min_gpa FROM students");
+            pstmt = conn.prepareStatement(ESTIMATE_COUNT_SQL);
             rs = pstmt.executeQuery();
-            if (rs.next()) {
-                stats.put("total", rs.getInt("total"));
-                stats.put("averageGpa", rs.getDouble("avg_gpa"));
-                stats.put("maxGpa", rs.getDouble("max_gpa"));
-                stats.put("minGpa", rs.getDouble("min_gpa"));
-            }
-            rs.close();
-            pstmt.close();
             
-            // Thống kê theo giới tính
-            pstmt = conn.prepareStatement("SELECT gender, COUNT(*) as count FROM students GROUP BY gender");
-            rs = pstmt.executeQuery();
-            Map<String, Long> genderStats = new HashMap<>();
-            while (rs.next()) {
-                genderStats.put(rs.getString("gender"), rs.getLong("count"));
+            if (rs.next()) {
+                return rs.getLong(1);
             }
-            stats.put("genderStats", genderStats);
-            rs.close();
-            pstmt.close();
             
-            // Thống kê theo xếp loại - Compatible với SQL Server
-            String rankQuery = "SELECT " +
-                "CASE " +
-                "WHEN gpa >= 3.6 THEN 'Xuất sắc' " +
-                "WHEN gpa >= 3.2 THEN 'Giỏi' " +
-                "WHEN gpa >= 2.5 THEN 'Khá' " +
-                "WHEN gpa >= 2.0 THEN 'Trung bình' " +
-                "ELSE 'Yếu' " +
-                "END as rank, COUNT(*) as count " +
-                "FROM students " +
-                "GROUP BY CASE " +
-                "WHEN gpa >= 3.6 THEN 'Xuất sắc' " +
-                "WHEN gpa >= 3.2 THEN 'Giỏi' " +
-                "WHEN gpa >= 2.5 THEN 'Khá' " +
-                "WHEN gpa >= 2.0 THEN 'Trung bình' " +
-                "ELSE 'Yếu' END";
-                
-            pstmt = conn.prepareStatement(rankQuery);
-            rs = pstmt.executeQuery();
-            Map<String, Long> rankStats = new HashMap<>();
-            while (rs.next()) {
-                rankStats.put(rs.getString("rank"), rs.getLong("count"));
+        } catch (SQLException e) {
+            System.err.println("Error estimating student count: " + e.getMessage());
+        } finally {
+            DatabaseConnection.closeAll(conn, pstmt, rs);
+        }
+        
+        return count();
+    }
+    
+    private Page<Student> queryPage(List<String> conditions, List<Object> parameters, boolean byGpa,
+                                    int pageSize, String afterCursor) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize phải lớn hơn 0");
+        }
+        
+        // Cursor: [tổng ước lượng, student_id] hoặc [tổng ước lượng, gpa, student_id]
+        String[] key = afterCursor != null ? decodeCursor(afterCursor, byGpa ? 3 : 2) : null;
+        long estimatedTotal;
+        if (key != null) {
+            estimatedTotal = Long.parseLong(key[0]);
+        } else {
+            estimatedTotal = conditions.isEmpty() ? estimateCount() : countWhere(conditions, parameters);
+        }
+        
+        List<String> pageConditions = new ArrayList<>(conditions);
+        List<Object> pageParameters = new ArrayList<>(parameters);
+        if (key != null) {
+            if (byGpa) {
+                BigDecimal lastGpa = new BigDecimal(key[1]);
+                pageConditions.add("(gpa < ? OR (gpa = ? AND student_id > ?))");
+                pageParameters.add(lastGpa);
+                pageParameters.add(lastGpa);
+                pageParameters.add(key[2]);
+            } else {
+                pageConditions.add("student_id > ?");
+                pageParameters.add(key[1]);
             }
-            stats.put("rankStats", rankStats);
-            rs.close();
-            pstmt.close();
-            
-            // Thống kê theo lớp
-            pstmt = conn.prepareStatement("SELECT class_name, COUNT(*) as count FROM students GROUP BY class_name");
+        }
+        pageParameters.add(pageSize + 1); // Lấy dư 1 dòng để biết còn trang sau hay không
+        
+        StringBuilder sql = new StringBuilder("SELECT * FROM students");
+        appendWhere(sql, pageConditions);
+        sql.append(byGpa ? " ORDER BY gpa DESC, student_id ASC" : " ORDER BY student_id");
+        sql.append(DatabaseConnection.getDialect().limitClause());
+        
+        List<Student> students = new ArrayList<>(pageSize);
+        String nextCursor = null;
+        
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(sql.toString());
+            bindParameters(pstmt, pageParameters);
             rs = pstmt.executeQuery();
-            Map<String, Long> classStats = new HashMap<>();
-            while (rs.next()) {
-                classStats.put(rs.getString("class_name"), rs.getLong("count"));
-            }
-            stats.put("classStats", classStats);
-            rs.close();
-            pstmt.close();
             
-            // Thống kê theo ngành
-            pstmt = conn.prepareStatement("SELECT major, COUNT(*) as count FROM students GROUP BY major");
-            rs = pstmt.executeQuery();
-            Map<String, Long> majorStats = new HashMap<>();
+            String lastGpa = null;
             while (rs.next()) {
-                majorStats.put(rs.getString("major"), rs.getLong("count"));
+                if (students.size() == pageSize) {
+                    Student last = students.get(students.size() - 1);
+                    nextCursor = byGpa
+                            ? encodeCursor(Long.toString(estimatedTotal), lastGpa, last.getStudentId())
+                            : encodeCursor(Long.toString(estimatedTotal), last.getStudentId());
+                    break;
+                }
+                students.add(mapResultSetToStudent(rs));
+                if (byGpa) {
+                    lastGpa = rs.getBigDecimal("gpa").toPlainString();
+                }
             }
-            stats.put("majorStats", majorStats);
             
         } catch (SQLException e) {
-            System.err.println("Error getting statistics: " + e.getMessage());
+            System.err.println("Error querying student page: " + e.getMessage());
         } finally {
             DatabaseConnection.closeAll(conn, pstmt, rs);
         }
         
-        return stats;
+        return new Page<>(students, nextCursor, estimatedTotal);
     }
     
-    // ===== Helper Methods =====
-    
-    private Student mapResultSetToStudent(ResultSet rs) throws SQLException {
-        Student student = new Student();
-        student.setStudentId(rs.getString("student_id"));
-        student.setFullName(rs.getString("full_name"));
-        
-        Date birthDate = rs.getDate("birth_date");
-        if (birthDate != null) {
-            student.setBirthDate(birthDate.toLocalDate());
-        }
+    private long countWhere(List<String> conditions, List<Object> parameters) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM students");
+        appendWhere(sql, conditions);
+        
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(sql.toString());
+            bindParameters(pstmt, parameters);
+            rs = pstmt.executeQuery();
+            
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error counting students: " + e.getMessage());
+        } finally {
+            DatabaseConnection.closeAll(conn, pstmt, rs);
+        }
+        
+        return -1;
+    }
+    
+    private static void appendWhere(StringBuilder sql, List<String> conditions) {
+        for (int i = 0; i < conditions.size(); i++) {
+            sql.append(i == 0 ? " WHERE " : " AND ").append(conditions.get(i));
+        }
+    }
+    
+    static String encodeCursor(String... parts) {
+        StringBuilder joined = new StringBuilder();
+        for (String part : parts) {
+            if (joined.length() > 0) joined.append('\n');
+            joined.append(part);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(joined.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    static String[] decodeCursor(String cursor, int expectedParts) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\n", -1);
+            if (parts.length == expectedParts) {
+                Long.parseLong(parts[0]);
+                return parts;
+            }
+        } catch (IllegalArgumentException e) {
+            // Rơi xuống lỗi bên dưới (NumberFormatException cũng là IllegalArgumentException)
+        }
+        throw new IllegalArgumentException("Cursor phân trang không hợp lệ");
+    }
+    
+    // ===== Enhanced Statistics cho SQL Server =====
+    
+    // Kết quả được cache đến lần ghi tiếp theo (hoặc hết TTL); map trả về không sửa được.
+    // Mặc định lấy từ thống kê cộng dồn trong bộ nhớ, không truy vấn database sau lần nạp đầu.
+    @Override
+    public Map<String, Object> getAcademicStatistics() {
+        return statisticsCache.get(dataVersion.get(),
+                incrementalStatistics ? this::loadIncrementalStatistics : this::computeAcademicStatistics);
+    }
+    
+    private Map<String, Object> loadIncrementalStatistics() {
+        long ttl = statisticsCache.getTtlMillis();
+        // Nạp lại khi quá TTL để nhận cả thay đổi từ client khác
+        if (!aggregates.isSeeded() || (ttl > 0 && aggregates.getAgeMillis() >= ttl)) {
+            try {
+                aggregates.seed();
+            } catch (SQLException e) {
+                System.err.println("Error loading statistics: " + e.getMessage());
+            }
+        }
+        return aggregates.snapshot();
+    }
+    
+    private Map<String, Object> computeAcademicStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        
+        Connection conn = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            
+            // Chỉ quét bảng một lần: GROUPING SETS trên SQL Server, đọc tuần tự rồi cộng dồn với dialect khác
+            if (DatabaseConnection.getDialect() == SqlDialect.SQL_SERVER) {
+                loadGroupedStatistics(conn, stats);
+            } else {
+                loadStreamedStatistics(conn, stats);
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error getting statistics: " + e.getMessage());
+        } finally {
+            DatabaseConnection.closeConnection(conn);
+        }
+        
+        return stats;
+    }
+    
+    private void loadGroupedStatistics(Connection conn, Map<String, Object> stats) throws SQLException {
+        Map<String, Long> genderStats = new HashMap<>();
+        Map<String, Long> rankStats = new HashMap<>();
+        Map<String, Long> classStats = new HashMap<>();
+        Map<String, Long> majorStats = new HashMap<>();
+        
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            pstmt = conn.prepareStatement(GROUPED_STATISTICS_SQL);
+            rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                long count = rs.getLong("count");
+                switch (rs.getInt("grouping_id")) {
+                    case 15: // () - tổng quan
+                        stats.put("total", (int) count);
+                        stats.put("averageGpa", rs.getDouble("avg_gpa"));
+                        stats.put("maxGpa", rs.getDouble("max_gpa"));
+                        stats.put("minGpa", rs.getDouble("min_gpa"));
+                        break;
+                    case 7: // (gender)
+                        genderStats.put(rs.getString("gender"), count);
+                        break;
+                    case 11: // (class_name)
+                        classStats.put(rs.getString("class_name"), count);
+                        break;
+                    case 13: // (major)
+                        majorStats.put(rs.getString("major"), count);
+                        break;
+                    case 14: // (rank_floor)
+                        rankStats.put(Student.getAcademyRank(rs.getDouble("rank_floor")), count);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            DatabaseConnection.closeResultSet(rs);
+            DatabaseConnection.closePreparedStatement(pstmt);
+        }
+        
+        stats.put("genderStats", genderStats);
+        stats.put("rankStats", rankStats);
+        stats.put("classStats", classStats);
+        stats.put("majorStats", majorStats);
+    }
+    
+    // Dùng cho H2/database nhúng: một lượt đọc forward-only, gom nhóm trong bộ nhớ (chỉ giữ các map đếm)
+    private void loadStreamedStatistics(Connection conn, Map<String, Object> stats) throws SQLException {
+        Map<String, Long> genderStats = new HashMap<>();
+        Map<String, Long> rankStats = new HashMap<>();
+        Map<String, Long> classStats = new HashMap<>();
+        Map<String, Long> majorStats = new HashMap<>();
+        
+        int total = 0;
+        int gpaCount = 0;
+        double gpaSum = 0.0;
+        double maxGpa = 0.0;
+        double minGpa = 0.0;
+        
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            pstmt = conn.prepareStatement(STREAMED_STATISTICS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+            rs = pstmt.executeQuery();
+            
+            while (rs.next()) {
+                total++;
+                genderStats.merge(rs.getString(1), 1L, Long::sum);
+                classStats.merge(rs.getString(2), 1L, Long::sum);
+                majorStats.merge(rs.getString(3), 1L, Long::sum);
+                
+                double gpa = rs.getDouble(4);
+                if (rs.wasNull()) {
+                    // Giống AVG/MIN/MAX của SQL: bỏ qua NULL, xếp loại rơi vào nhánh ELSE
+                    rankStats.merge(Student.getAcademyRank(0.0), 1L, Long::sum);
+                    continue;
+                }
+                rankStats.merge(Student.getAcademyRank(gpa), 1L, Long::sum);
+                if (gpaCount == 0) {
+                    maxGpa = gpa;
+                    minGpa = gpa;
+                } else {
+                    maxGpa = Math.max(maxGpa, gpa);
+                    minGpa = Math.min(minGpa, gpa);
+                }
+                gpaSum += gpa;
+                gpaCount++;
+            }
+        } finally {
+            DatabaseConnection.closeResultSet(rs);
+            DatabaseConnection.closePreparedStatement(pstmt);
+        }
+        
+        stats.put("total", total);
+        stats.put("averageGpa", gpaCount > 0 ? gpaSum / gpaCount : 0.0);
+        stats.put("maxGpa", maxGpa);
+        stats.put("minGpa", minGpa);
+        stats.put("genderStats", genderStats);
+        stats.put("rankStats", rankStats);
+        stats.put("classStats", classStats);
+        stats.put("majorStats", majorStats);
+    }
+    
+    // ===== Statistics Cache =====
+    
+    public static long getDataVersion() {
+        return dataVersion.get();
+    }
+    
+    private static void dataChanged() {
+        dataVersion.incrementAndGet();
+    }
+    
+    private static void studentWritten(Student student) {
+        entityCache.written(student);
+        aggregates.put(student);
+        searchIndex.put(student);
+        filterIndex.put(student);
+        gpaIndex.put(student);
+        journal.put(student);
+        dataChanged();
+    }
+    
+    private static void studentDeleted(String studentId) {
+        entityCache.deleted(studentId);
+        aggregates.remove(studentId);
+        searchIndex.remove(studentId);
+        filterIndex.remove(studentId);
+        gpaIndex.remove(studentId);
+        journal.delete(studentId);
+        dataChanged();
+    }
+    
+    // Ghi hàng loạt (import, đồng bộ): chỉ bỏ bản cũ khỏi entity cache thay vì đẩy cả lô vào
+    private static void studentsImported(Collection<Student> students) {
+        if (students.isEmpty()) {
+            return;
+        }
+        for (Student student : students) {
+            entityCache.invalidate(student.getStudentId());
+            aggregates.put(student);
+            searchIndex.put(student);
+            filterIndex.put(student);
+            gpaIndex.put(student);
+            journal.put(student);
+        }
+        dataChanged();
+    }
+    
+    private static void studentsDeleted(Collection<String> studentIds) {
+        if (studentIds.isEmpty()) {
+            return;
+        }
+        for (String studentId : studentIds) {
+            entityCache.deleted(studentId);
+            aggregates.remove(studentId);
+            searchIndex.remove(studentId);
+            filterIndex.remove(studentId);
+            gpaIndex.remove(studentId);
+            journal.delete(studentId);
+        }
+        dataChanged();
+    }
+    
+    // Bỏ cache thủ công, vd: sau khi dữ liệu bị sửa ngoài ứng dụng
+    public void invalidateStatisticsCache() {
+        aggregates.reset();
+        statisticsCache.invalidate();
+    }
+    
+    // Bỏ cache sinh viên, vd: sau khi dữ liệu bị sửa ngoài ứng dụng
+    public void invalidateEntityCache() {
+        entityCache.clear();
+    }
+    
+    public void setEntityCacheCapacity(int capacity) {
+        entityCache.setCapacity(capacity);
+    }
+    
+    // 0 = chỉ cập nhật theo các lần ghi qua DAO
+    public void setEntityCacheTtl(long ttlMillis) {
+        entityCache.setTtlMillis(ttlMillis);
+    }
+    
+    public double getEntityCacheHitRate() {
+        return entityCache.getHitRate();
+    }
+    
+    public String getEntityCacheStatus() {
+        return entityCache.getStatusSummary();
+    }
+    
+    // Bỏ index tìm kiếm, lần tìm tiếp theo quét bảng và dựng lại index ở thread nền
+    public void invalidateSearchIndex() {
+        searchIndex.reset();
+    }
+    
+    // false = searchByKeyword luôn quét bảng, không giữ index trong bộ nhớ
+    public void setSearchIndexEnabled(boolean enabled) {
+        searchIndexEnabled = enabled;
+        if (!enabled) {
+            searchIndex.reset();
+        }
+    }
+    
+    // false = mỗi lần hết cache đều truy vấn lại database, không giữ thống kê cộng dồn trong bộ nhớ
+    public void setIncrementalStatistics(boolean enabled) {
+        incrementalStatistics = enabled;
+        if (!enabled) {
+            aggregates.reset();
+        }
+        statisticsCache.invalidate();
+    }
+    
+    // 0 = chỉ hết hạn khi có ghi qua DAO này
+    public void setStatisticsCacheTtl(long ttlMillis) {
+        statisticsCache.setTtlMillis(ttlMillis);
+    }
+    
+    public double getStatisticsCacheHitRate() {
+        return statisticsCache.getHitRate();
+    }
+    
+    public double getStatisticsComputeMillis() {
+        return statisticsCache.getLastComputeMillis();
+    }
+    
+    public String getStatisticsCacheStatus() {
+        return statisticsCache.getStatusSummary();
+    }
+    
+    // ===== Change Tracking =====
+    
+    // Phiên bản hiện tại để truyền lại vào findChangesSince; đọc trước khi tải dữ liệu. -1 nếu không hỗ trợ
+    public long getChangeVersion() {
+        if (!isChangeTrackingAvailable()) {
+            return -1;
+        }
+        
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(CHANGE_VERSION_SQL);
+            rs = pstmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : -1;
+            
+        } catch (SQLException e) {
+            System.err.println("Error reading change version: " + e.getMessage());
+            return -1;
+        } finally {
+            DatabaseConnection.closeAll(conn, pstmt, rs);
+        }
+    }
+    
+    // Các dòng được thêm/sửa và mã SV bị xoá sau version. fullReload = true khi không thể tính phần thay đổi
+    // (database không hỗ trợ, version không hợp lệ hoặc lỗi), lúc đó bên gọi phải tải lại toàn bộ
+    public ChangeSet findChangesSince(long version) {
+        ChangeSet changes = new ChangeSet();
+        changes.version = version;
+        if (version < 0 || !isChangeTrackingAvailable()) {
+            changes.fullReload = true;
+            return changes;
+        }
+        
+        long current = getChangeVersion();
+        if (current < 0) {
+            changes.fullReload = true;
+            return changes;
+        }
+        if (current <= version) {
+            return changes;
+        }
+        
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(CHANGED_SINCE_SQL);
+            pstmt.setLong(1, version);
+            pstmt.setLong(2, current);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                changes.changed.add(mapResultSetToStudent(rs));
+            }
+            rs.close();
+            pstmt.close();
+            
+            pstmt = conn.prepareStatement(DELETED_SINCE_SQL);
+            pstmt.setLong(1, version);
+            pstmt.setLong(2, current);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                changes.deletedIds.add(rs.getString(1));
+            }
+            changes.version = current;
+            
+        } catch (SQLException e) {
+            System.err.println("Error reading changes: " + e.getMessage());
+            changes.changed.clear();
+            changes.deletedIds.clear();
+            changes.fullReload = true;
+        } finally {
+            DatabaseConnection.closeAll(conn, pstmt, rs);
+        }
+        
+        return changes;
+    }
+    
+    // Có cột row_version và bảng tombstone không; chỉ SQL Server
+    static boolean isChangeTrackingAvailable() {
+        if (changeTrackingAvailable) {
+            return true;
+        }
+        if (DatabaseConnection.getDialect() != SqlDialect.SQL_SERVER) {
+            return false;
+        }
+        synchronized (StudentDAO.class) {
+            if (!changeTrackingAvailable && System.currentTimeMillis() - changeTrackingCheckedAt >= CHANGE_TRACKING_RECHECK_MILLIS) {
+                changeTrackingAvailable = hasChangeTrackingSchema();
+                changeTrackingCheckedAt = System.currentTimeMillis();
+            }
+            return changeTrackingAvailable;
+        }
+    }
+    
+    private static boolean hasChangeTrackingSchema() {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(CHANGE_TRACKING_CHECK_SQL);
+            rs = pstmt.executeQuery();
+            if (rs.next() && rs.getInt(1) == 1) {
+                return true;
+            }
+            System.err.println("Change tracking unavailable: run sql/001_change_tracking.sql to enable incremental reload");
+            return false;
+            
+        } catch (SQLException e) {
+            System.err.println("Error checking change tracking schema: " + e.getMessage());
+            return false;
+        } finally {
+            DatabaseConnection.closeAll(conn, pstmt, rs);
+        }
+    }
+    
+    // ===== Helper Methods =====
+    
+    private Student mapResultSetToStudent(ResultSet rs) throws SQLException {
+        Student student = new Student();
+        student.setStudentId(rs.getString("student_id"));
+        student.setFullName(rs.getString("full_name"));
+        
+        Date birthDate = rs.getDate("birth_date");
+        if (birthDate != null) {
+            student.setBirthDate(birthDate.toLocalDate());
+        }
         
         student.setGender(rs.getString("gender"));
         student.setAddress(rs.getString("address"));
@@ -489,86 +1403,73 @@ public class StudentDAO implements StudentRepository {
     // ===== Enhanced CSV Import/Export  =====
     
     public ImportResult importFromCSV(String filePath) {
-        ImportResult result = new ImportResult();
-        List<String> errors = new ArrayList<>();
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            boolean isFirstLine = true;
-            int lineNumber = 0;
-
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue; // Skip header
-                }
-
-                try {
-                    Student student = parseCSVLine(line, lineNumber);
-                    if (student != null) {
-                        if (!existsById(student.getStudentId())) {
-                            if (save(student)) {
-                                result.successCount++;
-                            } else {
-                                result.failureCount++;
-                                errors.add("Dòng " + lineNumber + ": Lỗi lưu sinh viên " + student.getStudentId());
-                            }
-                        } else {
-                            result.duplicateCount++;
-                            errors.add("Dòng " + lineNumber + ": Mã SV " + student.getStudentId() + " đã tồn tại");
-                        }
-                    } else {
-                        result.failureCount++;
-                        errors.add("Dòng " + lineNumber + ": Dữ liệu không hợp lệ");
-                    }
-
-                } catch (Exception e) {
-                    result.failureCount++;
-                    errors.add("Dòng " + lineNumber + ": " + e.getMessage());
-                }
+        return readCSV(new CsvImportPipeline(this, importParallelism, IMPORT_PARSE_CHUNK_SIZE, batchCommitInterval), filePath);
+    }
+    
+    private ImportResult readCSV(CsvImportPipeline pipeline, String filePath) {
+        // File luôn được đọc theo UTF-8 (exportToCSV ghi UTF-8 có BOM), không theo charset mặc định của hệ thống
+        try {
+            Path path = Paths.get(filePath);
+            if (Files.size(path) >= mappedImportThreshold) {
+                return pipeline.runMapped(path);
             }
-            
-            result.errors = errors;
-            
         } catch (IOException e) {
+            // Không lấy được kích thước file: để luồng đọc tuần tự báo lỗi
+        }
+        
+        try (Reader reader = new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8)) {
+            return pipeline.run(reader);
+        } catch (IOException e) {
+            ImportResult result = new ImportResult();
             result.failureCount++;
-            errors.add("Lỗi đọc file: " + e.getMessage());
-            result.errors = errors;
+            result.errors.add("Lỗi đọc file: " + e.getMessage());
+            return result;
         }
-
-        return result;
     }
     
-    private Student parseCSVLine(String line, int lineNumber) throws Exception {
-        String[] rawData = line.split(",");
+    public void setImportParallelism(int importParallelism) {
+        this.importParallelism = Math.max(1, importParallelism);
+    }
+    
+    // 0 = luôn dùng memory-mapping, Long.MAX_VALUE = luôn đọc tuần tự
+    public void setMappedImportThreshold(long mappedImportThreshold) {
+        this.mappedImportThreshold = Math.max(0, mappedImportThreshold);
+    }
+    
+    // Map một bản ghi đã tách field sang Student. File cũ có thể chứa địa chỉ không đặt trong
+    // dấu nháy (dấu phẩy bị tách thành nhiều field), phần dư được gộp lại vào cột địa chỉ.
+    static Student parseCSVRecord(List<String> fields) throws Exception {
+        int count = fields.size();
         
-        if (rawData.length < 10) {
+        if (count < 10) {
             throw new Exception("Không đủ cột dữ liệu (cần ít nhất 10 cột)");
         }
         
+        // Cột "Xếp loại" là tuỳ chọn và bị bỏ qua khi nhập (tính lại từ GPA)
+        int columns = count >= 11 && !isGpaField(fields.get(count - 1)) ? 11 : 10;
+        int extra = count - columns;
+        
         Student student = new Student();
         
         // Mã sinh viên
-        String studentId = rawData[0].trim();
+        String studentId = fields.get(0).trim();
         if (studentId.isEmpty()) {
             throw new Exception("Mã sinh viên không được để trống");
         }
         student.setStudentId(studentId);
         
         // Họ tên
-        String fullName = rawData[1].trim();
+        String fullName = fields.get(1).trim();
         if (fullName.isEmpty()) {
             throw new Exception("Họ tên không được để trống");
         }
         student.setFullName(fullName);
         
         // Ngày sinh
-        String birthDateStr = rawData[2].trim();
+        String birthDateStr = fields.get(2).trim();
         if (!birthDateStr.isEmpty()) {
             try {
-                LocalDate birthDate = LocalDate.parse(birthDateStr, DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+                LocalDate birthDate = LocalDate.parse(birthDateStr, CSV_DATE_FORMAT);
                 student.setBirthDate(birthDate);
             } catch (Exception e) {
                 throw new Exception("Ngày sinh không đúng định dạng dd/MM/yyyy");
@@ -576,47 +1477,46 @@ public class StudentDAO implements StudentRepository {
         }
         
         // Giới tính
-        String gender = rawData[3].trim();
+        String gender = fields.get(3).trim();
         if (!gender.equals("Nam") && !gender.equals("Nữ")) {
             throw new Exception("Giới tính phải là 'Nam' hoặc 'Nữ'");
         }
         student.setGender(gender);
         
-        // Xử lý địa chỉ (có thể có dấu phẩy)
-        int phoneIndex = findPhoneIndex(rawData);
-        if (phoneIndex == -1) {
-            throw new Exception("Không tìm thấy số điện thoại hợp lệ");
-        }
-        
-        StringBuilder address = new StringBuilder();
-        for (int i = 4; i < phoneIndex; i++) {
-            if (address.length() > 0) address.append(", ");
-            address.append(rawData[i].trim());
+        // Địa chỉ
+        if (extra == 0) {
+            student.setAddress(fields.get(4).trim());
+        } else {
+            StringBuilder address = new StringBuilder();
+            for (int i = 4; i <= 4 + extra; i++) {
+                if (address.length() > 0) address.append(", ");
+                address.append(fields.get(i).trim());
+            }
+            student.setAddress(address.toString());
         }
-        student.setAddress(address.toString());
         
         // Điện thoại
-        String phone = rawData[phoneIndex].trim();
-        if (!phone.matches("0\\d{9,10}")) {
+        String phone = fields.get(5 + extra).trim();
+        if (!isValidPhone(phone)) {
             throw new Exception("Số điện thoại không hợp lệ");
         }
         student.setPhone(phone);
         
         // Email
-        student.setEmail(rawData[phoneIndex + 1].trim());
+        student.setEmail(fields.get(6 + extra).trim());
         
         // Lớp
-        String className = rawData[phoneIndex + 2].trim();
+        String className = fields.get(7 + extra).trim();
         if (className.isEmpty()) {
             throw new Exception("Tên lớp không được để trống");
         }
         student.setClassName(className);
         
         // Ngành
-        student.setMajor(rawData[phoneIndex + 3].trim());
+        student.setMajor(fields.get(8 + extra).trim());
         
         // GPA
-        String gpaStr = rawData[phoneIndex + 4].trim();
+        String gpaStr = fields.get(9 + extra).trim();
         if (!gpaStr.isEmpty()) {
             try {
                 double gpa = Double.parseDouble(gpaStr);
@@ -627,173 +1527,741 @@ public class StudentDAO implements StudentRepository {
             } catch (NumberFormatException e) {
                 throw new Exception("GPA không đúng định dạng số");
             }
-        } else {
-            student.setGpa(0.0);
+        } else {
+            student.setGpa(0.0);
+        }
+        
+        return student;
+    }
+    
+    // Số điện thoại: 0 theo sau bởi 9-10 chữ số (kiểm tra tay, không dùng regex)
+    private static boolean isValidPhone(String phone) {
+        int length = phone.length();
+        if (length < 10 || length > 11 || phone.charAt(0) != '0') {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            char c = phone.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // Field rỗng cũng tính là cột GPA (GPA để trống được hiểu là 0.0)
+    private static boolean isGpaField(String field) {
+        String value = field.trim();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && c != '.' && c != '-' && c != '+') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // ===== Enhanced CSV Export =====
+    
+    public boolean exportToCSV(String filePath, List<Student> studentsToExport) {
+        try (CsvExportWriter writer = new CsvExportWriter(filePath)) {
+            writer.writeHeader(CSV_HEADER);
+            for (Student student : studentsToExport) {
+                writer.writeStudent(student);
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error exporting to CSV: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    public boolean exportAllToCSV(String filePath) {
+        return exportAllToCSV(filePath, null);
+    }
+    
+    // Đọc thẳng từ ResultSet forward-only và ghi ngay từng dòng, không dựng List<Student> nên bộ nhớ không đổi theo số dòng
+    public boolean exportAllToCSV(String filePath, ExportProgressListener listener) {
+        try (CsvExportWriter writer = new CsvExportWriter(filePath)) {
+            writer.writeHeader(CSV_HEADER);
+            streamAll(writer, listener);
+            return true;
+        } catch (SQLException | IOException e) {
+            System.err.println("Error exporting to CSV: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    // File dữ liệu nhị phân (StudentCodec), cùng cách đọc tuần tự như exportAllToCSV
+    public boolean exportAllToDataFile(String filePath, ExportProgressListener listener) {
+        try {
+            writeDataFile(filePath, writer -> streamAll(writer, listener));
+            return true;
+        } catch (SQLException | IOException e) {
+            System.err.println("Error exporting data file: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    // Nhận file StudentCodec hoặc students.dat cũ (Java serialization); ghi vào database theo từng lô batchCommitInterval dòng.
+    // Kiểm tra checksum cả file trước như restoreSnapshot, để file hỏng không bị nhập dở dang
+    public ImportResult importFromDataFile(String filePath) {
+        ImportResult result = new ImportResult();
+        
+        try {
+            if (StudentCodec.isCodecFile(filePath)) {
+                try {
+                    StudentCodec.verify(filePath);
+                } catch (IOException e) {
+                    result.failureCount++;
+                    result.errors.add("File dữ liệu không hợp lệ: " + e.getMessage());
+                    return result;
+                }
+                try (StudentCodec.Reader reader = new StudentCodec.Reader(filePath)) {
+                    List<Student> chunk = new ArrayList<>();
+                    Student student;
+                    while ((student = reader.read()) != null) {
+                        chunk.add(student);
+                        if (chunk.size() == batchCommitInterval) {
+                            addBatchResult(result, batchInsert(chunk));
+                            chunk.clear();
+                        }
+                    }
+                    if (!chunk.isEmpty()) {
+                        addBatchResult(result, batchInsert(chunk));
+                    }
+                }
+            } else if (LegacyStudentFile.isLegacyFile(filePath)) {
+                List<Student> students = LegacyStudentFile.read(filePath);
+                for (int i = 0; i < students.size(); i += batchCommitInterval) {
+                    addBatchResult(result, batchInsert(students.subList(i, Math.min(students.size(), i + batchCommitInterval))));
+                }
+            } else {
+                result.failureCount++;
+                result.errors.add("Không phải file dữ liệu sinh viên: " + filePath);
+            }
+        } catch (IOException e) {
+            result.failureCount++;
+            result.errors.add("Lỗi đọc file dữ liệu: " + e.getMessage());
+        }
+        
+        return result;
+    }
+    
+    // Chuyển một lần students.dat cũ sang định dạng StudentCodec, không cần database
+    public boolean convertLegacyDataFile(String legacyPath, String targetPath) {
+        try {
+            List<Student> students = LegacyStudentFile.read(legacyPath);
+            writeDataFile(targetPath, writer -> {
+                for (Student student : students) {
+                    writer.write(student);
+                }
+            });
+            return true;
+        } catch (SQLException | IOException e) {
+            System.err.println("Error converting legacy data file: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private interface DataFileContent {
+        void writeTo(StudentCodec.Writer writer) throws SQLException, IOException;
+    }
+    
+    // Ghi ra file tạm rồi mới thay filePath (như backupData), để lỗi giữa chừng không để lại file dở hay đè mất file cũ;
+    // targetPath trùng file nguồn (chuyển students.dat tại chỗ) cũng an toàn
+    private static void writeDataFile(String filePath, DataFileContent content) throws SQLException, IOException {
+        Path target = Paths.get(filePath);
+        Path temp = Paths.get(filePath + ".tmp");
+        boolean moved = false;
+        try {
+            try (StudentCodec.Writer writer = new StudentCodec.Writer(temp.toString())) {
+                content.writeTo(writer);
+                writer.finish();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            moved = true;
+        } finally {
+            if (!moved) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    System.err.println("Error deleting temporary data file: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    private static void addBatchResult(ImportResult result, BatchResult written) {
+        result.successCount += written.successCount;
+        result.duplicateCount += written.duplicateCount;
+        result.failureCount += written.failureCount;
+        result.errors.addAll(written.errors);
+    }
+    
+    // Đọc tuần tự cả bảng theo mã SV vào writer, báo tiến độ nếu có listener
+    private void streamAll(StudentRowWriter writer, ExportProgressListener listener) throws SQLException, IOException {
+        long totalRows = listener != null ? count() : -1;
+        
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+            rs = pstmt.executeQuery();
+            
+            long startTime = System.nanoTime();
+            long lastReport = startTime;
+            long rows = 0;
+            
+            while (rs.next()) {
+                Date birthDate = rs.getDate(3);
+                writer.writeRow(rs.getString(1), rs.getString(2), birthDate != null ? birthDate.toLocalDate() : null,
+                        rs.getString(4), rs.getString(5), rs.getString(6), rs.getString(7),
+                        rs.getString(8), rs.getString(9), rs.getDouble(10));
+                rows++;
+                
+                if (listener != null && rows % EXPORT_PROGRESS_ROWS == 0) {
+                    long now = System.nanoTime();
+                    if (now - lastReport >= EXPORT_PROGRESS_INTERVAL_NANOS) {
+                        lastReport = now;
+                        listener.onProgress(rows, totalRows, rowsPerSecond(rows, now - startTime));
+                    }
+                }
+            }
+            
+            if (listener != null) {
+                listener.onProgress(rows, Math.max(rows, totalRows), rowsPerSecond(rows, System.nanoTime() - startTime));
+            }
+        } finally {
+            DatabaseConnection.closeAll(conn, pstmt, rs);
+        }
+    }
+    
+    private static double rowsPerSecond(long rows, long elapsedNanos) {
+        return elapsedNanos > 0 ? rows * 1_000_000_000.0 / elapsedNanos : 0.0;
+    }
+    
+    // ===== Batch Operations =====
+    
+    public BatchResult batchInsert(List<Student> students) {
+        return batchInsert(students, batchChunkSize, batchCommitInterval);
+    }
+    
+    // Ghi theo khối chunkSize dòng, commit sau mỗi commitInterval dòng; lỗi chỉ ảnh hưởng dòng hỏng
+    public BatchResult batchInsert(List<Student> students, int chunkSize, int commitInterval) {
+        BatchResult result = new BatchResult();
+        result.rowOutcomes = new WriteOutcome[students.size()];
+        result.rowErrors = new String[students.size()];
+        Connection conn = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            new StudentBatchWriter(conn, chunkSize, commitInterval).write(students, result);
+            
+        } catch (SQLException e) {
+            try {
+                if (conn != null) conn.rollback();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            result.errors.add("Lỗi batch insert: " + e.getMessage());
+            
+            // Các dòng chưa kịp xử lý coi như thất bại
+            for (int i = 0; i < result.rowOutcomes.length; i++) {
+                if (result.rowOutcomes[i] == null) {
+                    result.rowOutcomes[i] = WriteOutcome.FAILED;
+                    result.rowErrors[i] = e.getMessage();
+                    result.failureCount++;
+                }
+            }
+        } finally {
+            try {
+                if (conn != null) conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            DatabaseConnection.closeConnection(conn);
+            // Có thể đã commit một phần trước khi lỗi
+            if (result.successCount > 0) {
+                List<Student> inserted = new ArrayList<>(result.successCount);
+                for (int i = 0; i < students.size(); i++) {
+                    if (result.getRowOutcome(i) == WriteOutcome.INSERTED) {
+                        inserted.add(students.get(i));
+                    }
+                }
+                studentsImported(inserted);
+            }
+        }
+        
+        return result;
+    }
+    
+    public void setBatchChunkSize(int batchChunkSize) {
+        this.batchChunkSize = Math.max(1, batchChunkSize);
+    }
+    
+    public void setBatchCommitInterval(int batchCommitInterval) {
+        this.batchCommitInterval = Math.max(1, batchCommitInterval);
+    }
+    
+    static Set<String> findExistingIds(Connection conn, List<String> ids) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        
+        for (int from = 0; from < ids.size(); from += ID_LOOKUP_CHUNK_SIZE) {
+            int to = Math.min(from + ID_LOOKUP_CHUNK_SIZE, ids.size());
+            // Làm tròn số tham số lên bậc cố định để statement cache chỉ giữ vài dạng câu lệnh
+            int paramCount = inListSize(to - from);
+            
+            PreparedStatement pstmt = null;
+            ResultSet rs = null;
+            
+            try {
+                pstmt = conn.prepareStatement(buildInListSql("SELECT student_id FROM students WHERE student_id IN (", paramCount));
+                for (int i = 0; i < paramCount; i++) {
+                    // Lặp lại mã SV cuối cho các tham số dư
+                    pstmt.setString(i + 1, ids.get(Math.min(from + i, to - 1)));
+                }
+                rs = pstmt.executeQuery();
+                
+                while (rs.next()) {
+                    existing.add(idKey(rs.getString(1)));
+                }
+            } finally {
+                DatabaseConnection.closeResultSet(rs);
+                DatabaseConnection.closePreparedStatement(pstmt);
+            }
+        }
+        
+        return existing;
+    }
+    
+    // Đọc theo lô mã SV chỉ rẻ hơn một lần quét khi số mã nhỏ so với bảng (index có indexSize dòng)
+    static int maxIdLookups(int indexSize) {
+        return Math.max(ID_LOOKUP_CHUNK_SIZE, indexSize / 4);
+    }
+    
+    private static int inListSize(int count) {
+        int size = 1;
+        while (size < count) {
+            size <<= 1;
+        }
+        return Math.min(size, ID_LOOKUP_CHUNK_SIZE);
+    }
+    
+    private static String buildInListSql(String prefix, int paramCount) {
+        StringBuilder sql = new StringBuilder(prefix.length() + paramCount * 3 + 1);
+        sql.append(prefix);
+        for (int i = 0; i < paramCount; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')').toString();
+    }
+    
+    // SQL Server so sánh student_id không phân biệt hoa thường
+    static String idKey(String studentId) {
+        return studentId != null ? studentId.toUpperCase(Locale.ROOT) : null;
+    }
+    
+    // ===== Data Sync Methods =====
+    
+    public SyncResult syncWithCSV(String csvFilePath) {
+        return syncWithCSV(csvFilePath, false);
+    }
+    
+    // So file với database theo mã SV (StudentSync) và chỉ ghi phần khác nhau: dòng mới được thêm, dòng đổi nội dung
+    // được cập nhật. deleteMissing = true thì xoá thêm các dòng không còn trong file (bị bỏ qua nếu file có dòng lỗi)
+    public SyncResult syncWithCSV(String csvFilePath, boolean deleteMissing) {
+        SyncResult result = new SyncResult();
+        
+        // Chỉ parse, chưa ghi gì
+        List<Student> csvStudents = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        ImportResult parsed = readCSV(new CsvImportPipeline(this, importParallelism, IMPORT_PARSE_CHUNK_SIZE, batchCommitInterval)
+                .collectInto(csvStudents, lineNumbers), csvFilePath);
+        result.csvErrors.addAll(parsed.errors);
+        if (parsed.failureCount > 0) {
+            if (csvStudents.isEmpty()) {
+                return result;
+            }
+            if (deleteMissing) {
+                // Dòng lỗi có thể là sinh viên vẫn còn: không xoá để tránh mất dữ liệu
+                deleteMissing = false;
+                result.csvErrors.add("File có dòng lỗi: bỏ qua bước xoá sinh viên không có trong file");
+            }
+        }
+        
+        Connection conn = null;
+        StudentSync sync = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            sync = new StudentSync(conn, DatabaseConnection.getDialect(), batchChunkSize, isChangeTrackingAvailable());
+            sync.run(csvStudents, lineNumbers, deleteMissing, result);
+            result.csvImported = result.insertedCount + result.updatedCount;
+            result.totalAfterSync = result.dbCount + result.insertedCount - result.deletedCount;
+            result.success = true;
+            
+        } catch (SQLException e) {
+            result.success = false;
+            result.csvErrors.add("Lỗi đồng bộ: " + e.getMessage());
+        } finally {
+            try {
+                if (conn != null) conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            DatabaseConnection.closeConnection(conn);
+            // Các khối đã commit trước khi lỗi vẫn phải cập nhật cache và index
+            if (sync != null) {
+                studentsImported(sync.written);
+                studentsDeleted(sync.deleted);
+            }
         }
         
-        return student;
+        return result;
+    }
+    
+    // ===== Backup/Restore cho SQL Server =====
+    
+    public boolean backupData(String backupPath) {
+        return backupData(backupPath, null);
     }
     
-    private int findPhoneIndex(String[] data) {
-        for (int i = 4; i < data.length; i++) {
-            String field = data[i].trim();
-            if (field.matches("0\\d{9,10}")) {
-                return i;
+    // Snapshot nhị phân theo cột (SnapshotWriter), ghi ra file tạm rồi mới thay backupPath, để lỗi giữa chừng không
+    // đè mất bản sao lưu cũ. Snapshot ghi lại vị trí nhật ký thay đổi và row_version ngay trước khi đọc bảng,
+    // làm mốc cho backupIncremental sau này
+    public boolean backupData(String backupPath, ExportProgressListener listener) {
+        long journalId = -1;
+        long journalSequence = -1;
+        try {
+            journalSequence = journal.checkpoint();
+            journalId = journal.getJournalId();
+        } catch (IOException e) {
+            // Vẫn sao lưu toàn bộ được, chỉ không làm mốc cho bản gia tăng
+            System.err.println("Change journal unavailable: " + e.getMessage());
+        }
+        long databaseId = 0;
+        long changeVersion = getChangeVersion();
+        if (changeVersion >= 0) {
+            databaseId = getDatabaseId();
+            if (databaseId == 0) {
+                changeVersion = -1;
             }
         }
-        return -1;
+        
+        Path target = Paths.get(backupPath);
+        Path temp = Paths.get(backupPath + ".tmp");
+        boolean moved = false;
+        try {
+            try (SnapshotWriter writer = new SnapshotWriter(temp.toString(), backupCompression, journalId, journalSequence,
+                    databaseId, changeVersion)) {
+                streamAll(writer, listener);
+                writer.finish();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            moved = true;
+        } catch (SQLException | IOException e) {
+            System.err.println("Error creating backup: " + e.getMessage());
+            return false;
+        } finally {
+            if (!moved) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    System.err.println("Error deleting temporary backup: " + e.getMessage());
+                }
+            }
+        }
+        if (journalSequence >= 0) {
+            journal.truncateThrough(journalSequence);
+        }
+        return true;
     }
     
-    // ===== Enhanced CSV Export =====
-    
-    public boolean exportToCSV(String filePath, List<Student> studentsToExport) {
-        try (FileWriter writer = new FileWriter(filePath, false)) { // false = overwrite
-            // Write BOM for UTF-8 (để hiển thị tiếng Việt đúng trong Excel)
-            writer.write('\ufeff');
-            writer.write(CSV_HEADER + "\n");
-            
-            for (Student student : studentsToExport) {
-                String csvLine = String.format("%s,%s,%s,%s,\"%s\",%s,%s,%s,%s,%.2f,%s",
-                    escapeCSVField(student.getStudentId()),
-                    escapeCSVField(student.getFullName()),
-                    student.getBirthDateString(),
-                    escapeCSVField(student.getGender()),
-                    escapeCSVField(student.getAddress()), // Quoted vì có thể chứa dấu phẩy
-                    escapeCSVField(student.getPhone()),
-                    escapeCSVField(student.getEmail()),
-                    escapeCSVField(student.getClassName()),
-                    escapeCSVField(student.getMajor()),
-                    student.getGpa(),
-                    escapeCSVField(student.getAcademyRank())
-                );
-                writer.write(csvLine + "\n");
+    // Chỉ ghi các thay đổi từ sau previousBackupPath (snapshot hoặc bản gia tăng trước đó), nên tốn I/O theo số thay đổi
+    // chứ không theo kích thước bảng. Ưu tiên row_version và bảng tombstone của database (gồm cả thay đổi của client
+    // khác); nếu bản trước không có mốc row_version hoặc database không theo dõi thay đổi thì dùng nhật ký thay đổi,
+    // vốn chỉ gồm các thay đổi qua DAO của process này
+    public boolean backupIncremental(String previousBackupPath, String incrementPath) {
+        try {
+            long[] previous = backupPosition(previousBackupPath);
+            if (previous[3] >= 0 && isChangeTrackingAvailable()) {
+                writeServerIncrement(previous[2], previous[3], incrementPath);
+                return true;
             }
+            if (previous[1] < 0) {
+                System.err.println("Error creating incremental backup: bản sao lưu trước không có thông tin nhật ký thay đổi");
+                return false;
+            }
+            journal.writeIncrement(previous[0], previous[1], incrementPath);
             return true;
-        } catch (IOException e) {
-            System.err.println("Error exporting to CSV: " + e.getMessage());
+        } catch (SQLException | IOException e) {
+            System.err.println("Error creating incremental backup: " + e.getMessage());
             return false;
         }
     }
     
-    private String escapeCSVField(String field) {
-        if (field == null) return "";
-        // Escape quotes và wrap trong quotes nếu có dấu phẩy
-        if (field.contains(",") || field.contains("\"") || field.contains("\n")) {
-            return "\"" + field.replace("\"", "\"\"") + "\"";
+    // Các dòng có row_version trong (fromVersion, hiện tại] và tombstone cùng khoảng, trộn theo row_version tăng dần:
+    // xoá rồi thêm lại cùng mã SV thì bản ghi xoá đứng trước
+    private void writeServerIncrement(long databaseId, long fromVersion, String incrementPath) throws SQLException, IOException {
+        if (databaseId == 0 || databaseId != getDatabaseId()) {
+            throw new IOException("Bản sao lưu trước không thuộc database này");
         }
-        return field;
-    }
-    
-    // ===== Batch Operations =====
-    
-    public BatchResult batchInsert(List<Student> students) {
-        BatchResult result = new BatchResult();
+        long current = getChangeVersion();
+        if (current < fromVersion) {
+            throw new IOException("Không đọc được row_version hiện tại của database");
+        }
+        
         Connection conn = null;
         PreparedStatement pstmt = null;
+        ResultSet rs = null;
         
         try {
             conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false); // Start transaction
-            
-            String sql = "INSERT INTO students (student_id, full_name, birth_date, gender, address, phone, email, class_name, major, gpa) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            pstmt = conn.prepareStatement(sql);
+            List<Long> deletedVersions = new ArrayList<>();
+            List<String> deletedIds = new ArrayList<>();
+            pstmt = conn.prepareStatement(DELETED_SINCE_SQL);
+            pstmt.setLong(1, fromVersion);
+            pstmt.setLong(2, current);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                deletedIds.add(rs.getString(1));
+                deletedVersions.add(rs.getLong(2));
+            }
+            rs.close();
+            pstmt.close();
             
-            for (Student student : students) {
-                try {
-                    if (!existsById(student.getStudentId())) {
-                        pstmt.setString(1, student.getStudentId());
-                        pstmt.setString(2, student.getFullName());
-                        pstmt.setDate(3, student.getBirthDate() != null ? Date.valueOf(student.getBirthDate()) : null);
-                        pstmt.setString(4, student.getGender());
-                        pstmt.setString(5, student.getAddress());
-                        pstmt.setString(6, student.getPhone());
-                        pstmt.setString(7, student.getEmail());
-                        pstmt.setString(8, student.getClassName());
-                        pstmt.setString(9, student.getMajor());
-                        pstmt.setDouble(10, student.getGpa());
-                        
-                        pstmt.addBatch();
-                        result.processedCount++;
-                    } else {
-                        result.duplicateCount++;
+            try (ChangeJournal.ServerIncrementWriter writer = new ChangeJournal.ServerIncrementWriter(
+                    incrementPath, databaseId, fromVersion, current)) {
+                pstmt = conn.prepareStatement(CHANGED_SINCE_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                pstmt.setFetchSize(STREAM_FETCH_SIZE);
+                pstmt.setLong(1, fromVersion);
+                pstmt.setLong(2, current);
+                rs = pstmt.executeQuery();
+                int d = 0;
+                while (rs.next()) {
+                    long version = rs.getLong("change_version");
+                    for (; d < deletedIds.size() && deletedVersions.get(d) < version; d++) {
+                        writer.delete(deletedVersions.get(d), deletedIds.get(d));
                     }
-                } catch (Exception e) {
-                    result.errors.add("Lỗi với SV " + student.getStudentId() + ": " + e.getMessage());
+                    writer.put(version, mapResultSetToStudent(rs));
                 }
+                for (; d < deletedIds.size(); d++) {
+                    writer.delete(deletedVersions.get(d), deletedIds.get(d));
+                }
+                writer.finish();
             }
-            
-            int[] results = pstmt.executeBatch();
-            conn.commit();
-            
-            for (int i : results) {
-                if (i > 0) result.successCount++;
+        } finally {
+            DatabaseConnection.closeAll(conn, pstmt, rs);
+        }
+    }
+    
+    // false = không nén các khối: file lớn hơn nhưng sao lưu/khôi phục tốn ít CPU hơn
+    public void setBackupCompression(boolean backupCompression) {
+        this.backupCompression = backupCompression;
+    }
+    
+    // Một snapshot cùng các bản gia tăng sau nó, theo thứ tự bất kỳ
+    public boolean restoreData(List<String> backupPaths) {
+        if (backupPaths.size() == 1 && !ChangeJournal.isIncrement(backupPaths.get(0))) {
+            return restoreData(backupPaths.get(0));
+        }
+        ImportResult result = restoreBackupChain(backupPaths);
+        if (result.hasErrors()) {
+            System.err.println("Error restoring data: " + result.errors);
+        }
+        return result.failureCount == 0;
+    }
+    
+    // Nhận snapshot nhị phân, file dữ liệu (StudentCodec hoặc students.dat cũ) và bản sao lưu CSV cũ
+    // (trước đây backupData đổi .dat thành .csv)
+    public boolean restoreData(String backupPath) {
+        try {
+            if (SnapshotReader.isSnapshot(backupPath)) {
+                ImportResult result = restoreSnapshot(backupPath);
+                return result.failureCount == 0;
+            }
+            if (StudentCodec.isCodecFile(backupPath) || LegacyStudentFile.isLegacyFile(backupPath)) {
+                ImportResult result = importFromDataFile(backupPath);
+                return result.failureCount == 0;
             }
             
-        } catch (SQLException e) {
-            try {
-                if (conn != null) conn.rollback();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
+            String csvPath = backupPath;
+            if (!Files.exists(Paths.get(csvPath)) && csvPath.endsWith(".dat")) {
+                csvPath = csvPath.substring(0, csvPath.length() - 4) + ".csv";
             }
-            result.errors.add("Lỗi batch insert: " + e.getMessage());
-        } finally {
-            try {
-                if (conn != null) conn.setAutoCommit(true);
-            } catch (SQLException e) {
-                e.printStackTrace();
+            ImportResult result = importFromCSV(csvPath);
+            return result.successCount > 0;
+        } catch (Exception e) {
+            System.err.println("Error restoring data: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    // Kiểm tra checksum cả file trước, để file hỏng không bị khôi phục dở dang; sau đó mỗi khối là một lần batchInsert
+    public ImportResult restoreSnapshot(String backupPath) {
+        ImportResult result = new ImportResult();
+        
+        try {
+            SnapshotReader.verify(backupPath);
+        } catch (IOException e) {
+            result.failureCount++;
+            result.errors.add("File sao lưu không hợp lệ: " + e.getMessage());
+            return result;
+        }
+        
+        try (SnapshotReader reader = new SnapshotReader(backupPath)) {
+            List<Student> block;
+            while ((block = reader.nextBlock()) != null) {
+                addBatchResult(result, batchInsert(block));
             }
-            DatabaseConnection.closeAll(conn, pstmt, null);
+        } catch (IOException e) {
+            result.failureCount++;
+            result.errors.add("Lỗi đọc file sao lưu: " + e.getMessage());
         }
         
         return result;
     }
     
-    // ===== Data Sync Methods =====
-    
-    public SyncResult syncWithCSV(String csvFilePath) {
-        SyncResult result = new SyncResult();
+    // Kiểm tra cả chuỗi (cùng nhật ký, số thứ tự nối tiếp, checksum) trước khi ghi gì vào database,
+    // rồi khôi phục snapshot và áp các thay đổi sau mốc của nó; mỗi mã SV chỉ áp trạng thái cuối cùng
+    public ImportResult restoreBackupChain(List<String> backupPaths) {
+        ImportResult result = new ImportResult();
+        String basePath = null;
+        long[] base = null;
+        List<String> incrementPaths = new ArrayList<>();
+        List<ChangeJournal.Increment> increments = new ArrayList<>();
         
         try {
-            // Đọc dữ liệu từ CSV
-            ImportResult csvResult = importFromCSV(csvFilePath);
-            result.csvImported = csvResult.successCount;
-            result.csvErrors = csvResult.errors;
+            for (String path : backupPaths) {
+                if (ChangeJournal.isIncrement(path)) {
+                    incrementPaths.add(path);
+                    increments.add(ChangeJournal.readIncrement(path, null));
+                } else if (basePath != null) {
+                    throw new IOException("Chỉ được chọn một bản sao lưu toàn bộ");
+                } else if (!SnapshotReader.isSnapshot(path)) {
+                    throw new IOException("Không phải file sao lưu: " + path);
+                } else {
+                    SnapshotReader.verify(path);
+                    basePath = path;
+                    base = backupPosition(path);
+                }
+            }
+            if (basePath == null) {
+                throw new IOException("Cần chọn bản sao lưu toàn bộ cùng các bản gia tăng");
+            }
+            // Mọi bản gia tăng phải cùng nguồn (nhật ký hoặc row_version), so với mốc tương ứng của snapshot
+            boolean fromServer = !increments.isEmpty() && increments.get(0).source == ChangeJournal.SOURCE_SERVER;
+            long baseId = fromServer ? base[2] : base[0];
+            long baseSequence = fromServer ? base[3] : base[1];
+            if (!increments.isEmpty() && baseSequence < 0) {
+                throw new IOException(fromServer ? "Bản sao lưu toàn bộ không có mốc row_version"
+                        : "Bản sao lưu toàn bộ không có thông tin nhật ký thay đổi");
+            }
+            
+            // Xếp theo số thứ tự đầu và kiểm tra không có khoảng trống sau mốc của snapshot
+            Integer[] order = new Integer[increments.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(increments.get(a).fromSequence, increments.get(b).fromSequence));
+            long position = baseSequence;
+            for (Integer i : order) {
+                ChangeJournal.Increment increment = increments.get(i);
+                if (increment.source != increments.get(0).source) {
+                    throw new IOException("Không dùng chung bản gia tăng từ nhật ký và từ row_version: " + incrementPaths.get(i));
+                }
+                if (increment.journalId != baseId) {
+                    throw new IOException("Bản gia tăng không thuộc cùng nhật ký với bản sao lưu toàn bộ: " + incrementPaths.get(i));
+                }
+                if (increment.fromSequence > position) {
+                    throw new IOException("Thiếu bản gia tăng cho các thay đổi từ số thứ tự " + (position + 1));
+                }
+                position = Math.max(position, increment.toSequence);
+            }
             
-            // Đồng bộ với database
-            List<Student> dbStudents = findAll();
-            result.dbCount = dbStudents.size();
+            // Đọc trước mọi thay đổi để chỉ giữ trạng thái cuối của từng mã SV
+            final long after = baseSequence;
+            final long[] applied = {after};
+            final Map<String, ChangeJournal.Record> latest = new LinkedHashMap<>();
+            for (Integer i : order) {
+                ChangeJournal.readIncrement(incrementPaths.get(i), record -> {
+                    if (record.sequence > applied[0]) {
+                        applied[0] = record.sequence;
+                        String key = idKey(record.studentId);
+                        latest.remove(key);
+                        latest.put(key, record);
+                    }
+                });
+            }
             
-            result.totalAfterSync = count();
-            result.success = true;
+            ImportResult restored = restoreSnapshot(basePath);
+            result.successCount += restored.successCount;
+            result.duplicateCount += restored.duplicateCount;
+            result.failureCount += restored.failureCount;
+            result.errors.addAll(restored.errors);
             
-        } catch (Exception e) {
-            result.success = false;
-            result.csvErrors.add("Lỗi đồng bộ: " + e.getMessage());
+            for (ChangeJournal.Record record : latest.values()) {
+                if (record.type == ChangeJournal.DELETE) {
+                    deleteById(record.studentId);
+                    continue;
+                }
+                if (upsert(record.student) == WriteOutcome.FAILED) {
+                    result.failureCount++;
+                    result.errors.add("Không áp dụng được thay đổi của " + record.studentId);
+                } else {
+                    result.successCount++;
+                }
+            }
+        } catch (IOException e) {
+            result.failureCount++;
+            result.errors.add("Chuỗi sao lưu không hợp lệ: " + e.getMessage());
         }
         
         return result;
     }
     
-    // ===== Backup/Restore cho SQL Server =====
-    
-    public boolean backupData(String backupPath) {
-        // Cho SQL Server, ta sẽ backup bằng cách export ra CSV thay vì database backup
-        try {
-            List<Student> allStudents = findAll();
-            return exportToCSV(backupPath.replace(".dat", ".csv"), allStudents);
-        } catch (Exception e) {
-            System.err.println("Error creating backup: " + e.getMessage());
-            return false;
+    // {mã nhật ký, số thứ tự cuối đã có trong bản sao lưu, mã database, row_version cuối đã có}; số thứ tự/row_version
+    // là -1 nếu bản sao lưu không có mốc tương ứng
+    private static long[] backupPosition(String backupPath) throws IOException {
+        if (ChangeJournal.isIncrement(backupPath)) {
+            ChangeJournal.Increment increment = ChangeJournal.readIncrement(backupPath, null);
+            if (increment.source == ChangeJournal.SOURCE_SERVER) {
+                return new long[]{0, -1, increment.journalId, increment.toSequence};
+            }
+            return new long[]{increment.journalId, increment.toSequence, 0, -1};
+        }
+        try (SnapshotReader reader = new SnapshotReader(backupPath)) {
+            return new long[]{reader.getJournalId(), reader.getJournalSequence(), reader.getDatabaseId(), reader.getChangeVersion()};
         }
     }
     
-    public boolean restoreData(String backupPath) {
+    // Mã database cho mốc row_version, 0 nếu không đọc được
+    private static long getDatabaseId() {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        
         try {
-            ImportResult result = importFromCSV(backupPath);
-            return result.successCount > 0;
-        } catch (Exception e) {
-            System.err.println("Error restoring data: " + e.getMessage());
-            return false;
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(DATABASE_ID_SQL);
+            rs = pstmt.executeQuery();
+            if (!rs.next() || rs.getString(1) == null) {
+                return 0;
+            }
+            UUID guid = UUID.fromString(rs.getString(1).trim());
+            long id = guid.getMostSignificantBits() ^ guid.getLeastSignificantBits();
+            return id != 0 ? id : 1;
+            
+        } catch (SQLException | IllegalArgumentException e) {
+            System.err.println("Error reading database id: " + e.getMessage());
+            return 0;
+        } finally {
+            DatabaseConnection.closeAll(conn, pstmt, rs);
         }
     }
     
@@ -805,6 +2273,18 @@ public class StudentDAO implements StudentRepository {
     
     // ===== Result Classes cho NetBeans 8.2 =====
     
+    public enum WriteOutcome {
+        INSERTED,
+        UPDATED,
+        DUPLICATE,
+        FAILED
+    }
+    
+    // totalRows = -1 nếu không đếm trước; được gọi trên thread đang export
+    public interface ExportProgressListener {
+        void onProgress(long rowsWritten, long totalRows, double rowsPerSecond);
+    }
+    
     public static class ImportResult {
         public int successCount = 0;
         public int failureCount = 0;
@@ -839,8 +2319,16 @@ public class StudentDAO implements StudentRepository {
         public int processedCount = 0;
         public int successCount = 0;
         public int duplicateCount = 0;
+        public int failureCount = 0;
+        // Kết quả từng dòng theo đúng thứ tự danh sách đầu vào
+        public WriteOutcome[] rowOutcomes = new WriteOutcome[0];
+        public String[] rowErrors = new String[0];
         public List<String> errors = new ArrayList<>();
         
+        public WriteOutcome getRowOutcome(int index) {
+            return index >= 0 && index < rowOutcomes.length ? rowOutcomes[index] : null;
+        }
+        
         public boolean isSuccess() {
             return successCount > 0 && errors.isEmpty();
         }
@@ -848,8 +2336,14 @@ public class StudentDAO implements StudentRepository {
     
     public static class SyncResult {
         public boolean success = false;
+        // Số dòng từ CSV được ghi (thêm + cập nhật)
         public int csvImported = 0;
+        // Số dòng trong database trước khi đồng bộ
         public int dbCount = 0;
+        public int insertedCount = 0;
+        public int updatedCount = 0;
+        public int deletedCount = 0;
+        public int unchangedCount = 0;
         public long totalAfterSync = 0;
         public List<String> csvErrors = new ArrayList<>();
         
@@ -858,6 +2352,8 @@ public class StudentDAO implements StudentRepository {
             sb.append("Kết quả đồng bộ:\n");
             sb.append("- Từ CSV: ").append(csvImported).append(" bản ghi\n");
             sb.append("- Từ DB: ").append(dbCount).append(" bản ghi\n");
+            sb.append("- Thêm mới: ").append(insertedCount).append(", cập nhật: ").append(updatedCount)
+              .append(", xoá: ").append(deletedCount).append(", không đổi: ").append(unchangedCount).append("\n");
             sb.append("- Tổng sau đồng bộ: ").append(totalAfterSync).append(" bản ghi\n");
             if (!csvErrors.isEmpty()) {
                 sb.append("\nLỗi:\n");
@@ -869,6 +2365,18 @@ public class StudentDAO implements StudentRepository {
         }
     }
     
+    public static class ChangeSet {
+        public List<Student> changed = new ArrayList<>();
+        public List<String> deletedIds = new ArrayList<>();
+        // Truyền vào lần gọi findChangesSince tiếp theo
+        public long version = -1;
+        public boolean fullReload = false;
+        
+        public boolean isEmpty() {
+            return changed.isEmpty() && deletedIds.isEmpty();
+        }
+    }
+    
     // ===== Data Validation =====
     
     public ValidationResult validateStudent(Student student) {
@@ -1012,86 +2520,171 @@ public class StudentDAO implements StudentRepository {
     // ===== Advanced Search với Filter =====
     
     public List<Student> advancedSearch(SearchCriteria criteria) {
-        StringBuilder sql = new StringBuilder("SELECT * FROM students WHERE 1=1");
-        List<Object> parameters = new ArrayList<>();
-        
-        if (criteria.studentId != null && !criteria.studentId.trim().isEmpty()) {
-            sql.append(" AND student_id LIKE ?");
-            parameters.add("%" + criteria.studentId.trim() + "%");
-        }
-        
-        if (criteria.fullName != null && !criteria.fullName.trim().isEmpty()) {
-            sql.append(" AND full_name LIKE ?");
-            parameters.add("%" + criteria.fullName.trim() + "%");
-        }
-        
-        if (criteria.className != null && !criteria.className.trim().isEmpty()) {
-            sql.append(" AND class_name LIKE ?");
-            parameters.add("%" + criteria.className.trim() + "%");
+        return advancedSearch(criteria, null);
+    }
+    
+    // Lọc trong database (và index tìm kiếm); chỉ điều kiện CONTAINS mà index và dialect đều không trả lời được
+    // mới phải đọc các dòng còn lại về so khớp không dấu trong Java.
+    // cancellation != null: có thể huỷ từ thread khác, khi đó trả về danh sách rỗng.
+    public List<Student> advancedSearch(SearchCriteria criteria, QueryCancellation cancellation) {
+        TrigramIndex index = null;
+        if (searchIndexEnabled) {
+            searchIndex.refreshIfNeeded(SEARCH_INDEX_TTL_MILLIS);
+            index = searchIndex;
         }
+        SearchPlan plan = SearchPlan.of(criteria, index, DatabaseConnection.getDialect(), true);
+        List<Student> students = new ArrayList<>();
         
-        if (criteria.major != null && !criteria.major.trim().isEmpty()) {
-            sql.append(" AND major LIKE ?");
-            parameters.add("%" + criteria.major.trim() + "%");
+        if (plan.candidateIds != null && plan.candidateIds.isEmpty()) {
+            return students;
         }
         
-        if (criteria.gender != null && !criteria.gender.equals("Tất cả")) {
-            sql.append(" AND gender = ?");
-            parameters.add(criteria.gender);
-        }
+        Connection conn = null;
         
-        if (criteria.minGpa != null) {
-            sql.append(" AND gpa >= ?");
-            parameters.add(criteria.minGpa);
+        try {
+            conn = DatabaseConnection.getConnection();
+            
+            if (plan.candidateIds == null) {
+                runSearchPlan(conn, plan, null, 0, 0, students, cancellation);
+            } else {
+                List<String> ids = new ArrayList<>(plan.candidateIds);
+                ids.sort(String.CASE_INSENSITIVE_ORDER);
+                for (int from = 0; from < ids.size(); from += ID_LOOKUP_CHUNK_SIZE) {
+                    int to = Math.min(from + ID_LOOKUP_CHUNK_SIZE, ids.size());
+                    runSearchPlan(conn, plan, ids, from, to, students, cancellation);
+                }
+            }
+        } catch (SQLException e) {
+            if (cancellation == null || !cancellation.isCancelled()) {
+                System.err.println("Error executing search query: " + e.getMessage());
+            }
+        } finally {
+            if (cancellation != null) {
+                cancellation.running = null;
+            }
+            DatabaseConnection.closeConnection(conn);
         }
         
-        if (criteria.maxGpa != null) {
-            sql.append(" AND gpa <= ?");
-            parameters.add(criteria.maxGpa);
+        if (cancellation != null && cancellation.isCancelled()) {
+            return new ArrayList<>();
         }
-        
-        sql.append(" ORDER BY student_id");
-        
-        return executeSearchQuery(sql.toString(), parameters);
+        return students;
     }
     
-    private List<Student> executeSearchQuery(String sql, List<Object> parameters) {
-        List<Student> students = new ArrayList<>();
-        Connection conn = null;
+    private void runSearchPlan(Connection conn, SearchPlan plan, List<String> ids, int from, int to,
+                               List<Student> students, QueryCancellation cancellation) throws SQLException {
+        if (cancellation != null && cancellation.isCancelled()) {
+            return;
+        }
+        int paramCount = ids != null ? inListSize(to - from) : 0;
+        
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         
         try {
-            conn = DatabaseConnection.getConnection();
-            pstmt = conn.prepareStatement(sql);
+            pstmt = conn.prepareStatement(searchPlanSql(plan, paramCount));
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+            int index = 1;
+            for (int i = 0; i < paramCount; i++) {
+                pstmt.setString(index++, ids.get(Math.min(from + i, to - 1)));
+            }
+            for (Object param : plan.parameters) {
+                bindParameter(pstmt, index++, param);
+            }
             
-            for (int i = 0; i < parameters.size(); i++) {
-                Object param = parameters.get(i);
-                if (param instanceof String) {
-                    pstmt.setString(i + 1, (String) param);
-                } else if (param instanceof Double) {
-                    pstmt.setDouble(i + 1, (Double) param);
-                } else if (param instanceof Integer) {
-                    pstmt.setInt(i + 1, (Integer) param);
+            if (cancellation != null) {
+                cancellation.running = pstmt;
+                if (cancellation.isCancelled()) {
+                    return;
                 }
             }
-            
             rs = pstmt.executeQuery();
             
             while (rs.next()) {
-                students.add(mapResultSetToStudent(rs));
+                if (cancellation != null && cancellation.isCancelled()) {
+                    return;
+                }
+                Student student = mapResultSetToStudent(rs);
+                if (plan.matches(student)) {
+                    students.add(student);
+                }
             }
-            
-        } catch (SQLException e) {
-            System.err.println("Error executing search query: " + e.getMessage());
         } finally {
-            DatabaseConnection.closeAll(conn, pstmt, rs);
+            DatabaseConnection.closeResultSet(rs);
+            DatabaseConnection.closePreparedStatement(pstmt);
+        }
+    }
+    
+    // Cùng tổ hợp điều kiện thì cùng một chuỗi SQL, nên statement cache của connection dùng lại được
+    private static String searchPlanSql(SearchPlan plan, int inListSize) {
+        // shape dùng 11 bit thấp, inListSize tối đa ID_LOOKUP_CHUNK_SIZE
+        int key = plan.shape | inListSize << 11;
+        String sql = searchPlanShapes.get(key);
+        if (sql == null) {
+            List<String> conditions = new ArrayList<>();
+            if (inListSize > 0) {
+                conditions.add(buildInListSql("student_id IN (", inListSize));
+            }
+            conditions.addAll(plan.conditions);
+            StringBuilder builder = new StringBuilder("SELECT * FROM students");
+            appendWhere(builder, conditions);
+            builder.append(" ORDER BY student_id");
+            sql = builder.toString();
+            searchPlanShapes.putIfAbsent(key, sql);
+        }
+        return sql;
+    }
+    
+    private static void buildCriteriaFilter(SearchCriteria criteria, List<String> conditions, List<Object> parameters) {
+        SearchPlan plan = SearchPlan.of(criteria, null, DatabaseConnection.getDialect(), false);
+        conditions.addAll(plan.conditions);
+        parameters.addAll(plan.parameters);
+    }
+    
+    private static void bindParameters(PreparedStatement pstmt, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            bindParameter(pstmt, i + 1, parameters.get(i));
+        }
+    }
+    
+    private static void bindParameter(PreparedStatement pstmt, int index, Object param) throws SQLException {
+        if (param instanceof String) {
+            pstmt.setString(index, (String) param);
+        } else if (param instanceof Double) {
+            pstmt.setDouble(index, (Double) param);
+        } else if (param instanceof Integer) {
+            pstmt.setInt(index, (Integer) param);
+        } else if (param instanceof BigDecimal) {
+            pstmt.setBigDecimal(index, (BigDecimal) param);
+        }
+    }
+    
+    // Huỷ một truy vấn đang chạy từ thread khác (vd: nút Hủy trên giao diện)
+    public static class QueryCancellation {
+        private volatile boolean cancelled;
+        private volatile PreparedStatement running;
+        
+        public void cancel() {
+            cancelled = true;
+            PreparedStatement statement = running;
+            if (statement != null) {
+                try {
+                    statement.cancel();
+                } catch (SQLException e) {
+                    System.err.println("Error cancelling query: " + e.getMessage());
+                }
+            }
         }
         
-        return students;
+        public boolean isCancelled() {
+            return cancelled;
+        }
     }
     
     public static class SearchCriteria {
+        // CONTAINS: chứa chuỗi (không dấu), PREFIX: bắt đầu bằng, EXACT: bằng đúng giá trị
+        public enum MatchMode { CONTAINS, PREFIX, EXACT }
+        
         public String studentId;
         public String fullName;
         public String className;
@@ -1099,6 +2692,8 @@ public class StudentDAO implements StudentRepository {
         public String gender;
         public Double minGpa;
         public Double maxGpa;
+        // Áp dụng cho mã SV, họ tên, lớp, ngành
+        public MatchMode textMatch = MatchMode.CONTAINS;
         
         public SearchCriteria() {}
         
@@ -1112,6 +2707,82 @@ public class StudentDAO implements StudentRepository {
         }
     }
     
+    // ===== Filter theo index bitmap =====
+    
+    // Giá trị trong cùng một cột là OR, giữa các cột là AND
+    public List<Student> findByFilter(StudentFilter filter) {
+        List<String> ids = filterIds(filter);
+        return ids != null ? findByIds(ids) : new ArrayList<>();
+    }
+    
+    public List<String> findIdsByFilter(StudentFilter filter) {
+        List<String> ids = filterIds(filter);
+        return ids != null ? ids : new ArrayList<>();
+    }
+    
+    // Số sinh viên theo từng giá trị của field khi áp dụng điều kiện của các cột còn lại (đếm cho bộ lọc trên giao diện)
+    public Map<String, Long> getFilterCounts(StudentFilter.Field field, StudentFilter filter) {
+        if (!ensureFilterIndex()) {
+            return new HashMap<>();
+        }
+        Map<String, Long> counts = filterIndex.counts(field.ordinal(), filter != null ? filter.toArray() : null);
+        return counts != null ? counts : new HashMap<>();
+    }
+    
+    public long getFilterIndexMemoryBytes() {
+        return filterIndex.memoryBytes();
+    }
+    
+    public String getFilterIndexStatus() {
+        return filterIndex.getStatusSummary();
+    }
+    
+    public void invalidateFilterIndex() {
+        filterIndex.reset();
+    }
+    
+    private List<String> filterIds(StudentFilter filter) {
+        if (!ensureFilterIndex()) {
+            return null;
+        }
+        return filterIndex.filter(filter != null ? filter.toArray() : null);
+    }
+    
+    // Lần lọc đầu tiên chờ dựng index (giống thống kê cộng dồn), các lần sau chỉ làm mới ở thread nền
+    private boolean ensureFilterIndex() {
+        if (!filterIndex.isReady()) {
+            try {
+                filterIndex.buildIfMissing();
+            } catch (SQLException e) {
+                System.err.println("Error building filter index: " + e.getMessage());
+                return false;
+            }
+        }
+        filterIndex.refreshIfNeeded(FILTER_INDEX_TTL_MILLIS);
+        return filterIndex.isReady();
+    }
+    
+    public static class StudentFilter {
+        // Thứ tự trùng với cột trong BitmapIndex
+        public enum Field { CLASS_NAME, MAJOR, GENDER, RANK }
+        
+        public List<String> classNames;
+        public List<String> majors;
+        public List<String> genders;
+        // Theo Student.getAcademyRank(): "Xuất sắc", "Giỏi", "Khá", "Trung bình", "Yếu"
+        public List<String> ranks;
+        
+        public StudentFilter() {}
+        
+        String[][] toArray() {
+            return new String[][] {toArray(classNames), toArray(majors), toArray(genders), toArray(ranks)};
+        }
+        
+        private static String[] toArray(List<String> values) {
+            return values != null ? values.toArray(new String[0]) : null;
+        }
+    }
+    
     // ===== Legacy Methods cho backward compatibility =====
     
     public boolean addStudent(Student student) {
@@ -1160,7 +2831,7 @@ public class StudentDAO implements StudentRepository {
     // ===== Cleanup =====
     
     public void shutdown() {
-        // Cleanup resources if needed
+        DatabaseConnection.shutdownPool();
         System.out.println("StudentDAO shutdown completed.");
     }
 }
\ No newline at end of file
@@ -11,4 +11,13 @@ public interface StudentRepository extends CrudRepository<Student, String>{
     List<Student> findByGender (String gender);
     List<Student> findTopStudentsByGpa (int limit);
     java.util.Map<String , Object> getAcademicStatistics();
+    
+    // Phân trang theo keyset: afterCursor = null cho trang đầu, sau đó dùng Page.getNextCursor()
+    Page<Student> findAllPage (int pageSize, String afterCursor);
+    Page<Student> searchByKeywordPage (String keyword, int pageSize, String afterCursor);
+    Page<Student> findByClassNamePage (String className, int pageSize, String afterCursor);
+    Page<Student> findByMajorPage (String major, int pageSize, String afterCursor);
+    Page<Student> findByGenderPage (String gender, int pageSize, String afterCursor);
+    Page<Student> findByGPARangePage (double minGpa, double maxGpa, int pageSize, String afterCursor);
+    long estimateCount ();
 }
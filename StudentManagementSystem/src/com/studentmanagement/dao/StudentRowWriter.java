@@ -0,0 +1,12 @@
+package com.studentmanagement.dao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDate;
+
+// Đích ghi khi đọc tuần tự toàn bộ bảng (export CSV, sao lưu)
+interface StudentRowWriter extends Closeable {
+
+    void writeRow(String studentId, String fullName, LocalDate birthDate, String gender, String address,
+                  String phone, String email, String className, String major, double gpa) throws IOException;
+}
@@ -0,0 +1,336 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.dao.StudentDAO.SyncResult;
+import com.studentmanagement.database.SqlDialect;
+import com.studentmanagement.model.Student;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Đồng bộ CSV -> database bằng merge-join: bản ghi CSV được sắp theo mã SV (chữ hoa), database trả về các dòng
+// theo cùng thứ tự, hai phía đi song song và chỉ so băm nội dung. Chỉ các dòng thêm/sửa/xoá mới được ghi.
+// Trên SQL Server băm được tính ở server (HASHBYTES) nên mỗi dòng chỉ truyền mã SV và 8 byte.
+class StudentSync {
+
+    private static final char FIELD_SEPARATOR = '\u001F';
+    private static final int SCAN_FETCH_SIZE = 1000;
+
+    // Cùng chuỗi chuẩn hoá với canonical(): các cột nối bằng ký tự 0x1F, NULL = chuỗi rỗng, ngày yyyy-MM-dd,
+    // GPA 2 chữ số thập phân. Băm UTF-16LE của nvarchar, lấy 8 byte đầu (big-endian) như rowHash
+    private static final String SERVER_HASH_SQL = "SELECT student_id, CAST(SUBSTRING(HASHBYTES('SHA2_256', CONCAT("
+            + "CAST(full_name AS nvarchar(4000)), NCHAR(31), "
+            + "CONVERT(nvarchar(10), birth_date, 23), NCHAR(31), "
+            + "CAST(gender AS nvarchar(4000)), NCHAR(31), "
+            + "CAST(address AS nvarchar(4000)), NCHAR(31), "
+            + "CAST(phone AS nvarchar(4000)), NCHAR(31), "
+            + "CAST(email AS nvarchar(4000)), NCHAR(31), "
+            + "CAST(class_name AS nvarchar(4000)), NCHAR(31), "
+            + "CAST(major AS nvarchar(4000)), NCHAR(31), "
+            + "CAST(CAST(ISNULL(gpa, 0) AS decimal(9, 2)) AS nvarchar(20)))), 1, 8) AS bigint) AS row_hash "
+            + "FROM students ORDER BY UPPER(student_id) COLLATE Latin1_General_BIN2";
+    private static final String CLIENT_HASH_SQL = "SELECT student_id, full_name, birth_date, gender, address, phone, email, major, gpa, class_name "
+            + "FROM students ORDER BY UPPER(student_id)";
+    private static final String DELETE_SQL = "DELETE FROM students WHERE student_id = ?";
+
+    private static final class CsvRow {
+        final Student student;
+        final String key;
+        final int lineNumber;
+
+        CsvRow(Student student, int lineNumber) {
+            this.student = student;
+            this.key = StudentDAO.idKey(student.getStudentId());
+            this.lineNumber = lineNumber;
+        }
+    }
+
+    private interface Binder<T> {
+        void bind(int statement, PreparedStatement pstmt, T row) throws SQLException;
+    }
+
+    private final Connection conn;
+    private final SqlDialect dialect;
+    private final int chunkSize;
+    // Ghi tombstone khi xoá để findChangesSince thấy các dòng bị xoá
+    private final boolean recordTombstones;
+
+    // Các thay đổi đã commit, để DAO cập nhật cache và index
+    final List<Student> written = new ArrayList<>();
+    final List<String> deleted = new ArrayList<>();
+
+    StudentSync(Connection conn, SqlDialect dialect, int chunkSize, boolean recordTombstones) {
+        this.conn = conn;
+        this.dialect = dialect;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.recordTombstones = recordTombstones;
+    }
+
+    // deleteMissing: xoá các dòng trong database không có trong file
+    void run(List<Student> students, List<Integer> lineNumbers, boolean deleteMissing, SyncResult result) throws SQLException {
+        CsvRow[] rows = sortedRows(students, lineNumbers, result);
+        long[] hashes = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            hashes[i] = rowHash(rows[i].student);
+        }
+
+        List<Student> inserts = new ArrayList<>();
+        List<Student> updates = new ArrayList<>();
+        List<String> deletes = new ArrayList<>();
+        boolean serverHash = dialect == SqlDialect.SQL_SERVER;
+
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            pstmt = conn.prepareStatement(serverHash ? SERVER_HASH_SQL : CLIENT_HASH_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(SCAN_FETCH_SIZE);
+            rs = pstmt.executeQuery();
+
+            int i = 0;
+            String previous = null;
+            while (rs.next()) {
+                String studentId = rs.getString(1);
+                String key = StudentDAO.idKey(studentId);
+                result.dbCount++;
+                if (previous != null) {
+                    int order = key.compareTo(previous);
+                    if (order < 0) {
+                        // Collation của database sắp khác Java: merge-join sẽ sai, dừng trước khi ghi gì
+                        throw new SQLException("Thứ tự mã SV từ database không khớp (" + previous + " > " + key + ")");
+                    }
+                    if (order == 0) {
+                        // Mã chỉ khác hoa thường đã được so với dòng trước
+                        continue;
+                    }
+                }
+                previous = key;
+                long hash;
+                if (serverHash) {
+                    hash = rs.getLong(2);
+                } else {
+                    Date birthDate = rs.getDate(3);
+                    hash = rowHash(new Student(studentId, rs.getString(2), birthDate != null ? birthDate.toLocalDate() : null,
+                            rs.getString(4), rs.getString(5), rs.getString(6), rs.getString(7), rs.getString(8),
+                            rs.getDouble(9), rs.getString(10)));
+                }
+
+                while (i < rows.length && rows[i].key.compareTo(key) < 0) {
+                    inserts.add(rows[i++].student);
+                }
+                if (i < rows.length && rows[i].key.equals(key)) {
+                    if (hashes[i] != hash) {
+                        // Giữ mã SV như trong database để WHERE khớp đúng dòng
+                        Student changed = rows[i].student;
+                        changed.setStudentId(studentId);
+                        updates.add(changed);
+                    } else {
+                        result.unchangedCount++;
+                    }
+                    i++;
+                } else if (deleteMissing) {
+                    deletes.add(studentId);
+                }
+            }
+            while (i < rows.length) {
+                inserts.add(rows[i++].student);
+            }
+        } finally {
+            if (rs != null) {
+                rs.close();
+            }
+            if (pstmt != null) {
+                pstmt.close();
+            }
+        }
+
+        conn.setAutoCommit(false);
+        result.deletedCount = write(recordTombstones
+                ? new String[]{DELETE_SQL, StudentDAO.TOMBSTONE_SQL} : new String[]{DELETE_SQL},
+                deletes, (statement, p, id) -> p.setString(1, id), deleted, "xoá", result);
+        result.updatedCount = write(new String[]{StudentDAO.UPDATE_SQL}, updates,
+                (statement, p, s) -> StudentDAO.bindUpdateParameters(p, s),
+                written, "cập nhật", result);
+        result.insertedCount = write(new String[]{StudentDAO.INSERT_SQL}, inserts,
+                (statement, p, s) -> StudentDAO.bindInsertParameters(p, s), written, "thêm", result);
+    }
+
+    // Sắp theo mã SV; mã trùng trong file chỉ lấy lần xuất hiện đầu tiên (giống nhập CSV)
+    private static CsvRow[] sortedRows(List<Student> students, List<Integer> lineNumbers, SyncResult result) {
+        CsvRow[] rows = new CsvRow[students.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new CsvRow(students.get(i), lineNumbers.get(i));
+        }
+        // Sắp xếp ổn định: bản ghi trùng mã giữ thứ tự trong file
+        Arrays.sort(rows, (a, b) -> a.key.compareTo(b.key));
+
+        int n = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (n > 0 && rows[n - 1].key.equals(rows[i].key)) {
+                result.csvErrors.add("Dòng " + rows[i].lineNumber + ": Mã SV " + rows[i].student.getStudentId()
+                        + " bị trùng trong file");
+                continue;
+            }
+            rows[n++] = rows[i];
+        }
+        return n == rows.length ? rows : Arrays.copyOf(rows, n);
+    }
+
+    // Ghi theo khối, mỗi khối một transaction; khối lỗi được ghi lại từng dòng để chỉ bỏ các dòng hỏng
+    private <T> int write(String[] sqls, List<T> rows, Binder<T> binder, List<? super T> applied,
+                          String action, SyncResult result) throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        PreparedStatement[] statements = new PreparedStatement[sqls.length];
+        int count = 0;
+        try {
+            for (int k = 0; k < sqls.length; k++) {
+                statements[k] = conn.prepareStatement(sqls[k]);
+            }
+            for (int from = 0; from < rows.size(); from += chunkSize) {
+                List<T> chunk = rows.subList(from, Math.min(from + chunkSize, rows.size()));
+                try {
+                    count += writeChunk(statements, chunk, binder, applied, action, result);
+                } catch (SQLException e) {
+                    rollbackQuietly();
+                    if (isConnectionFailure(e)) {
+                        throw e;
+                    }
+                    if (chunk.size() == 1) {
+                        result.csvErrors.add("Lỗi " + action + " SV " + idOf(chunk.get(0)) + ": " + rootMessage(e));
+                        continue;
+                    }
+                    for (int i = 0; i < chunk.size(); i++) {
+                        try {
+                            count += writeChunk(statements, chunk.subList(i, i + 1), binder, applied, action, result);
+                        } catch (SQLException rowError) {
+                            rollbackQuietly();
+                            if (isConnectionFailure(rowError)) {
+                                throw rowError;
+                            }
+                            result.csvErrors.add("Lỗi " + action + " SV " + idOf(chunk.get(i)) + ": " + rootMessage(rowError));
+                        }
+                    }
+                }
+            }
+        } finally {
+            for (PreparedStatement statement : statements) {
+                if (statement != null) {
+                    statement.close();
+                }
+            }
+        }
+        return count;
+    }
+
+    private <T> int writeChunk(PreparedStatement[] statements, List<T> chunk, Binder<T> binder,
+                               List<? super T> applied, String action, SyncResult result) throws SQLException {
+        int[] counts = null;
+        for (int k = 0; k < statements.length; k++) {
+            for (T row : chunk) {
+                binder.bind(k, statements[k], row);
+                statements[k].addBatch();
+            }
+            try {
+                int[] statementCounts = statements[k].executeBatch();
+                if (k == 0) {
+                    counts = statementCounts;
+                }
+            } catch (SQLException e) {
+                for (PreparedStatement statement : statements) {
+                    statement.clearBatch();
+                }
+                throw e;
+            }
+        }
+        conn.commit();
+
+        int count = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            int rowCount = i < counts.length ? counts[i] : Statement.EXECUTE_FAILED;
+            if (rowCount > 0 || rowCount == Statement.SUCCESS_NO_INFO) {
+                applied.add(chunk.get(i));
+                count++;
+            } else {
+                // Dòng bị client khác xoá trong lúc đồng bộ
+                result.csvErrors.add("Không " + action + " được SV " + idOf(chunk.get(i)) + ": không còn trong database");
+            }
+        }
+        return count;
+    }
+
+    private void rollbackQuietly() {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            System.err.println("Error rolling back sync: " + e.getMessage());
+        }
+    }
+
+    // ===== Băm nội dung =====
+
+    // 8 byte đầu của SHA-256 trên UTF-16LE của chuỗi chuẩn hoá; không gồm mã SV (khác hoa thường không tính là thay đổi)
+    static long rowHash(Student student) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(canonical(student).getBytes(StandardCharsets.UTF_16LE));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        long hash = 0;
+        for (int i = 0; i < 8; i++) {
+            hash = (hash << 8) | (digest[i] & 0xFF);
+        }
+        return hash;
+    }
+
+    private static String canonical(Student s) {
+        StringBuilder sb = new StringBuilder(160);
+        append(sb, s.getFullName());
+        append(sb, s.getBirthDate() != null ? s.getBirthDate().toString() : null);
+        append(sb, s.getGender());
+        append(sb, s.getAddress());
+        append(sb, s.getPhone());
+        append(sb, s.getEmail());
+        append(sb, s.getClassName());
+        append(sb, s.getMajor());
+        sb.append(BigDecimal.valueOf(s.getGpa()).setScale(2, RoundingMode.HALF_UP).toPlainString());
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, String value) {
+        if (value != null) {
+            sb.append(value);
+        }
+        sb.append(FIELD_SEPARATOR);
+    }
+
+    private static String idOf(Object row) {
+        return row instanceof Student ? ((Student) row).getStudentId() : String.valueOf(row);
+    }
+
+    private static boolean isConnectionFailure(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && state.startsWith("08");
+    }
+
+    private static String rootMessage(SQLException e) {
+        if (e instanceof BatchUpdateException && e.getNextException() != null) {
+            return e.getNextException().getMessage();
+        }
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,253 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.model.Student;
+import com.studentmanagement.model.VietnameseText;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Inverted index theo trigram (3 ký tự liên tiếp) trên các cột mà searchByKeyword tìm, ở dạng không dấu.
+// Trả về tập ứng viên (có thể dư, không bao giờ thiếu); bên gọi phải kiểm tra lại điều kiện chính xác.
+class TrigramIndex extends BackgroundIndex<TrigramIndex.State> {
+
+    private static final String SEED_SQL = "SELECT student_id, full_name, class_name, major, address, phone, email FROM students";
+    private static final int SEARCH_FIELDS = 7;
+
+    static final class State {
+        final Map<Long, PostingList> postings = new HashMap<>();
+        final IdOrdinals ordinals = new IdOrdinals();
+    }
+
+    TrigramIndex() {
+        super("search index", SEED_SQL);
+    }
+
+    // Số mã SV đang có trong index, 0 nếu chưa sẵn sàng
+    synchronized int size() {
+        State state = current();
+        return state != null ? state.ordinals.liveCount() : 0;
+    }
+
+    void put(Student student) {
+        record(student.getStudentId(), new String[]{student.getStudentId(), student.getFullName(),
+                student.getClassName(), student.getMajor(), student.getAddress(), student.getPhone(), student.getEmail()});
+    }
+
+    void remove(String studentId) {
+        record(studentId, null);
+    }
+
+    @Override
+    State newState() {
+        return new State();
+    }
+
+    @Override
+    void seedRow(State target, ResultSet rs) throws SQLException {
+        String[] fields = new String[SEARCH_FIELDS];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = rs.getString(i + 1);
+        }
+        add(target, fields[0], fields);
+    }
+
+    @Override
+    void apply(State target, String studentId, Object value) {
+        if (value != null) {
+            add(target, studentId, (String[]) value);
+        } else {
+            target.ordinals.remove(studentId);
+        }
+    }
+
+    // Quá nhiều ordinal chết (sinh viên đã ghi lại hoặc xoá) thì dựng lại dù chưa quá TTL
+    @Override
+    boolean isStale(State current) {
+        return current.ordinals.deadCount() > Math.max(1024, current.ordinals.liveCount());
+    }
+
+    // Mã SV có thể khớp keyword; null nếu index chưa sẵn sàng, keyword không dùng được trigram
+    // (ngắn hơn 3 ký tự, hoặc có ký tự đại diện của LIKE) hoặc có hơn maxCandidates ứng viên
+    synchronized List<String> candidates(String keyword, int maxCandidates) {
+        State state = current();
+        if (state == null || keyword == null) {
+            return null;
+        }
+        String normalized = normalize(keyword);
+        if (normalized.length() < 3 || hasLikeWildcard(normalized)) {
+            return null;
+        }
+
+        long[] trigrams = trigramsOf(normalized);
+        PostingList[] lists = new PostingList[trigrams.length];
+        for (int i = 0; i < trigrams.length; i++) {
+            lists[i] = state.postings.get(trigrams[i]);
+            if (lists[i] == null) {
+                return new ArrayList<>(); // Có trigram không xuất hiện ở đâu cả
+            }
+        }
+        // Giao từ danh sách ngắn nhất để tập trung gian nhỏ nhất có thể
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.count, b.count));
+
+        int[] result = lists[0].decode();
+        int size = result.length;
+        for (int i = 1; i < lists.length && size > 0; i++) {
+            size = lists[i].retainAll(result, size);
+        }
+        if (size > maxCandidates) {
+            return null;
+        }
+
+        List<String> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String id = state.ordinals.idAt(result[i]);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    // ===== Trigram =====
+
+    static String normalize(String text) {
+        return VietnameseText.fold(text);
+    }
+
+    private static boolean hasLikeWildcard(String keyword) {
+        return keyword.indexOf('%') >= 0 || keyword.indexOf('_') >= 0 || keyword.indexOf('[') >= 0;
+    }
+
+    private static void add(State target, String studentId, String[] fields) {
+        if (studentId == null) {
+            return;
+        }
+        int ordinal = target.ordinals.assign(studentId);
+
+        // Trigram tính riêng từng cột vì LIKE không khớp xuyên qua ranh giới giữa các cột
+        int total = 0;
+        for (String field : fields) {
+            if (field != null) total += Math.max(0, field.length() - 2);
+        }
+        long[] trigrams = new long[total];
+        int n = 0;
+        for (String field : fields) {
+            if (field != null && field.length() >= 3) {
+                n = appendTrigrams(normalize(field), trigrams, n);
+            }
+        }
+        Arrays.sort(trigrams, 0, n);
+
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && trigrams[i] == trigrams[i - 1]) {
+                continue;
+            }
+            PostingList list = target.postings.get(trigrams[i]);
+            if (list == null) {
+                list = new PostingList();
+                target.postings.put(trigrams[i], list);
+            }
+            list.add(ordinal);
+        }
+    }
+
+    private static long[] trigramsOf(String text) {
+        long[] trigrams = new long[text.length() - 2];
+        int n = appendTrigrams(text, trigrams, 0);
+        Arrays.sort(trigrams, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[unique++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, unique);
+    }
+
+    private static int appendTrigrams(String text, long[] out, int n) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            out[n++] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return n;
+    }
+
+    // ===== Posting list =====
+
+    // Danh sách ordinal tăng dần, lưu khoảng cách giữa hai ordinal liên tiếp dạng varint (thường 1-2 byte/phần tử)
+    private static final class PostingList {
+        byte[] data = new byte[4];
+        int length = 0;
+        int count = 0;
+        int last = -1;
+
+        void add(int ordinal) {
+            if (ordinal <= last) {
+                return; // Ordinal luôn tăng nên chỉ có thể là trùng
+            }
+            int delta = ordinal - last;
+            last = ordinal;
+            count++;
+
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+            }
+            while ((delta & ~0x7F) != 0) {
+                data[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            data[length++] = (byte) delta;
+        }
+
+        int[] decode() {
+            int[] out = new int[count];
+            int value = -1;
+            int pos = 0;
+            for (int i = 0; i < count; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                value += delta;
+                out[i] = value;
+            }
+            return out;
+        }
+
+        // Giữ lại trong candidates[0..size) các ordinal có trong danh sách này, trả về kích thước mới
+        int retainAll(int[] candidates, int size) {
+            int kept = 0;
+            int c = 0;
+            int value = -1;
+            int pos = 0;
+            for (int i = 0; i < count && c < size; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                value += delta;
+
+                while (c < size && candidates[c] < value) {
+                    c++;
+                }
+                if (c < size && candidates[c] == value) {
+                    candidates[kept++] = value;
+                    c++;
+                }
+            }
+            return kept;
+        }
+    }
+}
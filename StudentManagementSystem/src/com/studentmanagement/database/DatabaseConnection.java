@@ -12,6 +12,17 @@ public class DatabaseConnection {
     private static String PASSWORD;
     private static String DRIVER_CLASS;
     
+    // Pool configuration
+    private static int POOL_MIN_SIZE = 2;
+    private static int POOL_MAX_SIZE = 10;
+    private static long POOL_IDLE_TIMEOUT = 300000;
+    private static long POOL_BORROW_TIMEOUT = 10000;
+    private static long POOL_VALIDATION_INTERVAL = 1000;
+    private static int POOL_VALIDATION_TIMEOUT = 2;
+    private static int STATEMENT_CACHE_SIZE = 32;
+    
+    private static ConnectionPool pool;
+    
     static {
         loadConfiguration();
     }
@@ -30,6 +41,14 @@ public class DatabaseConnection {
             PASSWORD = props.getProperty("database.password");
             DRIVER_CLASS = props.getProperty("database.driver");  
             
+            POOL_MIN_SIZE = getIntProperty(props, "database.pool.minSize", POOL_MIN_SIZE);
+            POOL_MAX_SIZE = getIntProperty(props, "database.pool.maxSize", POOL_MAX_SIZE);
+            POOL_IDLE_TIMEOUT = getLongProperty(props, "database.pool.idleTimeout", POOL_IDLE_TIMEOUT);
+            POOL_BORROW_TIMEOUT = getLongProperty(props, "database.pool.borrowTimeout", POOL_BORROW_TIMEOUT);
+            POOL_VALIDATION_INTERVAL = getLongProperty(props, "database.pool.validationInterval", POOL_VALIDATION_INTERVAL);
+            POOL_VALIDATION_TIMEOUT = getIntProperty(props, "database.pool.validationTimeout", POOL_VALIDATION_TIMEOUT);
+            STATEMENT_CACHE_SIZE = getIntProperty(props, "database.pool.statementCacheSize", STATEMENT_CACHE_SIZE);
+            
         } catch (IOException e) {
             System.err.println("Error loading database configuration: " + e.getMessage());
             setDefaultConfiguration();
@@ -43,15 +62,66 @@ public class DatabaseConnection {
         PASSWORD = "12345";
     }
     
-    public static Connection getConnection() throws SQLException {
+    private static int getIntProperty(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
         try {
-            Class.forName(DRIVER_CLASS);
-            return DriverManager.getConnection(URL, USERNAME, PASSWORD);
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("SQL Server JDBC Driver not found", e);
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value);
+            return defaultValue;
         }
     }
     
+    private static long getLongProperty(Properties props, String key, long defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+    
+    private static synchronized ConnectionPool getPool() throws SQLException {
+        if (pool == null) {
+            try {
+                Class.forName(DRIVER_CLASS);
+            } catch (ClassNotFoundException e) {
+                throw new SQLException("SQL Server JDBC Driver not found", e);
+            }
+            pool = new ConnectionPool(URL, USERNAME, PASSWORD,
+                    POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_IDLE_TIMEOUT, POOL_BORROW_TIMEOUT,
+                    POOL_VALIDATION_INTERVAL, POOL_VALIDATION_TIMEOUT, STATEMENT_CACHE_SIZE);
+        }
+        return pool;
+    }
+    
+    public static SqlDialect getDialect() {
+        return SqlDialect.fromUrl(URL);
+    }
+    
+    // Connection trả về đến từ pool: close() sẽ trả nó lại pool thay vì đóng kết nối thật
+    public static Connection getConnection() throws SQLException {
+        return getPool().borrow();
+    }
+    
+    public static synchronized void shutdownPool() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+    
+    public static synchronized String getPoolStatus() {
+        return pool != null ? pool.getStatusSummary() : "Pool: not started";
+    }
+    
     public static boolean testConnection() {
         try (Connection conn = getConnection()) {
             return conn != null && !conn.isClosed();
@@ -61,6 +131,7 @@ public class DatabaseConnection {
         }
     }
     
+    // Với connection từ pool, close() chỉ trả connection về pool
     public static void closeConnection(Connection conn) {
         if (conn != null) {
             try {
@@ -103,6 +174,10 @@ public class DatabaseConnection {
         System.out.println("URL: " + URL);
         System.out.println("Username: " + USERNAME);
         System.out.println("Password: " + (PASSWORD != null ? "***" : "null"));
+        System.out.println("Pool: min=" + POOL_MIN_SIZE + ", max=" + POOL_MAX_SIZE
+                + ", idleTimeout=" + POOL_IDLE_TIMEOUT + "ms, borrowTimeout=" + POOL_BORROW_TIMEOUT + "ms"
+                + ", statementCacheSize=" + STATEMENT_CACHE_SIZE);
+        System.out.println(getPoolStatus());
     }
      
      
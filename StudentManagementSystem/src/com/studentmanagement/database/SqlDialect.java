@@ -0,0 +1,43 @@
+package com.studentmanagement.database;
+
+public enum SqlDialect {
+    SQL_SERVER,
+    H2,
+    GENERIC;
+
+    // Nhận dạng theo JDBC URL để không tốn thêm round trip lấy DatabaseMetaData
+    public static SqlDialect fromUrl(String url) {
+        if (url == null) {
+            return GENERIC;
+        }
+        String lower = url.toLowerCase();
+        if (lower.startsWith("jdbc:sqlserver:") || lower.startsWith("jdbc:jtds:sqlserver:")) {
+            return SQL_SERVER;
+        }
+        if (lower.startsWith("jdbc:h2:")) {
+            return H2;
+        }
+        return GENERIC;
+    }
+
+    // Biểu thức so khớp không dấu, không phân biệt hoa thường trên cột (so với LIKE chuỗi đã qua VietnameseText.fold),
+    // null nếu database không làm được: collation AI bỏ dấu, đ không phải dấu nên thay riêng
+    public String foldedColumn(String column) {
+        switch (this) {
+            case SQL_SERVER:
+                return "REPLACE(" + column + " COLLATE Latin1_General_CI_AI, N'đ', N'd')";
+            default:
+                return null;
+        }
+    }
+
+    // Giới hạn số dòng đặt cuối câu SELECT (sau ORDER BY), tham số ? là số dòng
+    public String limitClause() {
+        switch (this) {
+            case SQL_SERVER:
+                return " OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+            default:
+                return " FETCH FIRST ? ROWS ONLY"; // Chuẩn SQL:2008
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.studentmanagement.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cache PreparedStatement theo câu SQL, gắn với một connection vật lý trong pool (LRU)
+class StatementCache {
+
+    private final Connection physical;
+    private final int capacity;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final LinkedHashMap<String, CachedStatement> entries;
+    private boolean closed = false;
+
+    StatementCache(Connection physical, int capacity, AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() > StatementCache.this.capacity) {
+                    evict(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    synchronized PreparedStatement prepare(String sql, Connection owner, ConnectionPool.PooledConnection pooled)
+            throws SQLException {
+        if (closed) {
+            throw new SQLException("Statement cache is closed");
+        }
+
+        CachedStatement cached = entries.get(sql);
+        if (cached != null && !cached.inUse) {
+            hits.incrementAndGet();
+            cached.inUse = true;
+            return cached.checkout(owner, pooled);
+        }
+
+        misses.incrementAndGet();
+        if (cached != null) {
+            // Cùng câu SQL đang được dùng trên connection này: tạo statement riêng, không cache
+            return physical.prepareStatement(sql);
+        }
+
+        cached = new CachedStatement(this, physical.prepareStatement(sql));
+        cached.inUse = true;
+        entries.put(sql, cached);
+        return cached.checkout(owner, pooled);
+    }
+
+    synchronized void checkin(CachedStatement cached) {
+        if (closed || cached.evicted) {
+            closeQuietly(cached);
+            return;
+        }
+        try {
+            cached.statement.clearParameters();
+            cached.statement.clearBatch();
+            cached.inUse = false;
+        } catch (SQLException e) {
+            // Statement không dùng lại được nữa
+            entries.values().remove(cached);
+            closeQuietly(cached);
+        }
+    }
+
+    private void evict(CachedStatement cached) {
+        evictions.incrementAndGet();
+        cached.evicted = true;
+        if (!cached.inUse) {
+            closeQuietly(cached);
+        }
+    }
+
+    synchronized void close() {
+        closed = true;
+        List<CachedStatement> toClose = new ArrayList<>(entries.values());
+        entries.clear();
+        for (CachedStatement cached : toClose) {
+            if (!cached.inUse) {
+                closeQuietly(cached);
+            }
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static void closeQuietly(CachedStatement cached) {
+        try {
+            cached.statement.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached PreparedStatement: " + e.getMessage());
+        }
+    }
+
+    // ===== Cached statement =====
+
+    static final class CachedStatement {
+        final StatementCache cache;
+        final PreparedStatement statement;
+        boolean inUse = false;
+        boolean evicted = false;
+
+        CachedStatement(StatementCache cache, PreparedStatement statement) {
+            this.cache = cache;
+            this.statement = statement;
+        }
+
+        PreparedStatement checkout(Connection owner, ConnectionPool.PooledConnection pooled) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new CheckoutHandler(this, owner, pooled));
+        }
+    }
+
+    // close() trả statement về cache thay vì đóng handle phía server
+    private static final class CheckoutHandler implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private final ConnectionPool.PooledConnection pooled;
+        private boolean returned = false;
+
+        CheckoutHandler(CachedStatement cached, Connection owner, ConnectionPool.PooledConnection pooled) {
+            this.cached = cached;
+            this.owner = owner;
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        cached.cache.checkin(cached);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || cached.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedPreparedStatement[" + cached.statement + "]";
+                default:
+                    break;
+            }
+
+            if (returned) {
+                throw new SQLException("PreparedStatement is closed");
+            }
+
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    String state = ((SQLException) cause).getSQLState();
+                    if (state != null && state.startsWith("08")) {
+                        pooled.broken = true;
+                    }
+                }
+                throw cause;
+            }
+        }
+    }
+}
@@ -19,6 +19,18 @@ public class Student implements Serializable {
     private double gpa;
     private String className;
     
+    // Thứ tự cột trong getSearchKey()
+    public static final int SEARCH_STUDENT_ID = 0;
+    public static final int SEARCH_FULL_NAME = 1;
+    public static final int SEARCH_CLASS_NAME = 2;
+    public static final int SEARCH_MAJOR = 3;
+    public static final int SEARCH_ADDRESS = 4;
+    public static final int SEARCH_PHONE = 5;
+    public static final int SEARCH_EMAIL = 6;
+    
+    // Các cột tìm kiếm ở dạng không dấu, tính một lần khi cần và bỏ đi khi cột thay đổi
+    private transient String[] searchKeys;
+    
     public Student () {
         
     }
@@ -42,6 +54,7 @@ public class Student implements Serializable {
 
     public void setStudentId(String studentId) {
         this.studentId = studentId;
+        this.searchKeys = null;
     }
 
     public String getFullName() {
@@ -50,6 +63,7 @@ public class Student implements Serializable {
 
     public void setFullName(String fullName) {
         this.fullName = fullName;
+        this.searchKeys = null;
     }
 
     public LocalDate getBirthDate() {
@@ -74,6 +88,7 @@ public class Student implements Serializable {
 
     public void setAddress(String address) {
         this.address = address;
+        this.searchKeys = null;
     }
 
     public String getPhone() {
@@ -82,6 +97,7 @@ public class Student implements Serializable {
 
     public void setPhone(String phone) {
         this.phone = phone;
+        this.searchKeys = null;
     }
 
     public String getEmail() {
@@ -90,6 +106,7 @@ public class Student implements Serializable {
 
     public void setEmail(String email) {
         this.email = email;
+        this.searchKeys = null;
     }
 
     public String getMajor() {
@@ -98,6 +115,7 @@ public class Student implements Serializable {
 
     public void setMajor(String major) {
         this.major = major;
+        this.searchKeys = null;
     }
 
     public double getGpa() {
@@ -114,6 +132,7 @@ public class Student implements Serializable {
 
     public void setClassName(String className) {
         this.className = className;
+        this.searchKeys = null;
     }
     
     // Utility methods
@@ -122,6 +141,10 @@ public class Student implements Serializable {
     }
     
     public String getAcademyRank () {
+        return getAcademyRank(gpa);
+    }
+    
+    public static String getAcademyRank (double gpa) {
         if (gpa >= 3.6) return "Xuất sắc";
         if (gpa >= 3.2) return "Giỏi";
         if (gpa >= 2.5) return "Khá";
@@ -129,6 +152,28 @@ public class Student implements Serializable {
         return "Yếu";
     }
     
+    // Cột đã bỏ dấu và chữ thường (VietnameseText.fold), null nếu cột rỗng
+    public String getSearchKey (int column) {
+        String[] keys = searchKeys;
+        if (keys == null) {
+            keys = new String[] {VietnameseText.fold(studentId), VietnameseText.fold(fullName),
+                    VietnameseText.fold(className), VietnameseText.fold(major), VietnameseText.fold(address),
+                    VietnameseText.fold(phone), VietnameseText.fold(email)};
+            searchKeys = keys;
+        }
+        return keys[column];
+    }
+    
+    // foldedKeyword phải đã qua VietnameseText.fold
+    public boolean matchesKeyword (String foldedKeyword) {
+        for (int column = SEARCH_STUDENT_ID; column <= SEARCH_EMAIL; column++) {
+            if (VietnameseText.containsFolded(getSearchKey(column), foldedKeyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     public String toString (){
         return String.format("%s - %s - %s", studentId, fullName, className);
     }
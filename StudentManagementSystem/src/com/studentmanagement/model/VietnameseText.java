@@ -0,0 +1,64 @@
+package com.studentmanagement.model;
+
+import java.text.Normalizer;
+
+// Chuẩn hoá chuỗi để so khớp không dấu: "Nguyễn Bảo Quân" -> "nguyen bao quan", "Đ"/"đ" -> "d".
+// Bảng tra được dựng sẵn một lần, nên fold() chỉ là một vòng lặp theo ký tự.
+public final class VietnameseText {
+
+    // Phủ Latin-1, Latin Extended-A/B và Latin Extended Additional (U+1EA0..U+1EF9: ạ, ả, ấ, ...)
+    private static final int TABLE_SIZE = 0x1F00;
+    private static final char[] FOLD = new char[TABLE_SIZE];
+
+    static {
+        for (int c = 0; c < TABLE_SIZE; c++) {
+            String decomposed = Normalizer.normalize(String.valueOf((char) c), Normalizer.Form.NFD);
+            FOLD[c] = Character.toLowerCase(decomposed.charAt(0));
+        }
+        // Đ/đ không tách được bằng NFD
+        FOLD['Đ'] = 'd';
+        FOLD['đ'] = 'd';
+    }
+
+    private VietnameseText() {
+    }
+
+    public static String fold(String text) {
+        if (text == null) {
+            return null;
+        }
+
+        int length = text.length();
+        int i = 0;
+        // Phần lớn chuỗi (mã SV, số điện thoại, email) đã ở dạng chuẩn: trả lại nguyên chuỗi, không cấp phát
+        while (i < length) {
+            char c = text.charAt(i);
+            if (isCombiningMark(c) || (c < TABLE_SIZE ? FOLD[c] != c : Character.toLowerCase(c) != c)) {
+                break;
+            }
+            i++;
+        }
+        if (i == length) {
+            return text;
+        }
+
+        StringBuilder folded = new StringBuilder(length);
+        folded.append(text, 0, i);
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (isCombiningMark(c)) {
+                continue; // Chuỗi lưu ở dạng tổ hợp (NFD): bỏ dấu rời
+            }
+            folded.append(c < TABLE_SIZE ? FOLD[c] : Character.toLowerCase(c));
+        }
+        return folded.toString();
+    }
+
+    public static boolean containsFolded(String foldedText, String foldedKeyword) {
+        return foldedText != null && foldedText.contains(foldedKeyword);
+    }
+
+    private static boolean isCombiningMark(char c) {
+        return c >= '\u0300' && c <= '\u036F';
+    }
+}
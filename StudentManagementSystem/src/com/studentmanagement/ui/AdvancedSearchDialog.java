@@ -6,15 +6,18 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.List;
-import java.util.ArrayList;
 
 public class AdvancedSearchDialog extends JDialog {
     private StudentDAO studentDAO;
     private JTextField txtStudentId, txtName, txtClassName, txtMajor, txtMinGpa, txtMaxGpa;
-    private JComboBox<String> cmbGender;
+    private JComboBox<String> cmbGender, cmbMatchMode;
     private JButton btnSearch, btnClear, btnCancel;
     private List<Student> searchResult;
+    private SwingWorker<List<Student>, Void> searchWorker;
+    private StudentDAO.QueryCancellation cancellation;
     
     public AdvancedSearchDialog(Frame parent, StudentDAO studentDAO) {
         super(parent, "Tìm kiếm nâng cao", true);
@@ -34,6 +37,7 @@ public class AdvancedSearchDialog extends JDialog {
         txtMaxGpa = new JTextField(10);
         
         cmbGender = new JComboBox<>(new String[]{"Tất cả", "Nam", "Nữ"});
+        cmbMatchMode = new JComboBox<>(new String[]{"Chứa", "Bắt đầu bằng", "Chính xác"});
         
         btnSearch = new JButton("Tìm kiếm");
         btnClear = new JButton("Xóa");
@@ -42,6 +46,7 @@ public class AdvancedSearchDialog extends JDialog {
         // Set tooltips
         txtMinGpa.setToolTipText("Điểm GPA tối thiểu (0.0 - 4.0)");
         txtMaxGpa.setToolTipText("Điểm GPA tối đa (0.0 - 4.0)");
+        cmbMatchMode.setToolTipText("Cách so khớp mã SV, họ tên, lớp, ngành");
     }
     
     private void setupLayout() {
@@ -81,6 +86,11 @@ public class AdvancedSearchDialog extends JDialog {
         gbc.gridx = 1;
         mainPanel.add(cmbGender, gbc);
         
+        gbc.gridx = 2;
+        mainPanel.add(new JLabel("So khớp:"), gbc);
+        gbc.gridx = 3;
+        mainPanel.add(cmbMatchMode, gbc);
+        
         // Row 3
         gbc.gridx = 0; gbc.gridy = 3;
         mainPanel.add(new JLabel("GPA từ:"), gbc);
@@ -122,95 +132,94 @@ public class AdvancedSearchDialog extends JDialog {
         btnCancel.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                dispose();
+                // Đang tìm thì chỉ huỷ truy vấn, bấm lần nữa mới đóng dialog
+                if (searchWorker != null) {
+                    cancelSearch();
+                } else {
+                    dispose();
+                }
+            }
+        });
+        
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                cancelSearch();
             }
         });
     }
     
     private void performAdvancedSearch() {
+        final StudentDAO.SearchCriteria criteria = new StudentDAO.SearchCriteria();
         try {
-            List<Student> allStudents = studentDAO.findAll();
-            List<Student> results = new ArrayList<>();
+            criteria.studentId = txtStudentId.getText().trim();
+            criteria.fullName = txtName.getText().trim();
+            criteria.className = txtClassName.getText().trim();
+            criteria.major = txtMajor.getText().trim();
+            criteria.gender = (String) cmbGender.getSelectedItem();
+            criteria.textMatch = StudentDAO.SearchCriteria.MatchMode.values()[cmbMatchMode.getSelectedIndex()];
             
-            for (Student student : allStudents) {
-                boolean match = true;
-                
-                // Check student ID
-                if (!txtStudentId.getText().trim().isEmpty()) {
-                    if (!student.getStudentId().toLowerCase()
-                            .contains(txtStudentId.getText().trim().toLowerCase())) {
-                        match = false;
-                    }
-                }
-                
-                // Check name
-                if (!txtName.getText().trim().isEmpty()) {
-                    if (!student.getFullName().toLowerCase()
-                            .contains(txtName.getText().trim().toLowerCase())) {
-                        match = false;
-                    }
-                }
-                
-                // Check class name
-                if (!txtClassName.getText().trim().isEmpty()) {
-                    if (!student.getClassName().toLowerCase()
-                            .contains(txtClassName.getText().trim().toLowerCase())) {
-                        match = false;
-                    }
-                }
-                
-                // Check major
-                if (!txtMajor.getText().trim().isEmpty()) {
-                    if (!student.getMajor().toLowerCase()
-                            .contains(txtMajor.getText().trim().toLowerCase())) {
-                        match = false;
-                    }
-                }
-                
-                // Check gender
-                String selectedGender = (String) cmbGender.getSelectedItem();
-                if (!"Tất cả".equals(selectedGender)) {
-                    if (!student.getGender().equals(selectedGender)) {
-                        match = false;
-                    }
-                }
-                
-                // Check GPA range
-                if (!txtMinGpa.getText().trim().isEmpty()) {
-                    double minGpa = Double.parseDouble(txtMinGpa.getText().trim());
-                    if (student.getGpa() < minGpa) {
-                        match = false;
-                    }
-                }
-                
-                if (!txtMaxGpa.getText().trim().isEmpty()) {
-                    double maxGpa = Double.parseDouble(txtMaxGpa.getText().trim());
-                    if (student.getGpa() > maxGpa) {
-                        match = false;
-                    }
-                }
-                
-                if (match) {
-                    results.add(student);
-                }
+            if (!txtMinGpa.getText().trim().isEmpty()) {
+                criteria.minGpa = Double.parseDouble(txtMinGpa.getText().trim());
+            }
+            if (!txtMaxGpa.getText().trim().isEmpty()) {
+                criteria.maxGpa = Double.parseDouble(txtMaxGpa.getText().trim());
             }
-            
-            searchResult = results;
-            
-            JOptionPane.showMessageDialog(this, 
-                "Tìm thấy " + results.size() + " sinh viên phù hợp!", 
-                "Kết quả tìm kiếm", JOptionPane.INFORMATION_MESSAGE);
-            dispose();
-            
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(this, 
                 "Giá trị GPA không hợp lệ!", 
                 "Lỗi", JOptionPane.ERROR_MESSAGE);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, 
-                "Lỗi khi tìm kiếm: " + e.getMessage(), 
-                "Lỗi", JOptionPane.ERROR_MESSAGE);
+            return;
         }
+        
+        final StudentDAO.QueryCancellation currentCancellation = new StudentDAO.QueryCancellation();
+        cancellation = currentCancellation;
+        setSearching(true);
+        
+        // Truy vấn chạy ngoài EDT để giao diện không bị treo với bảng lớn
+        searchWorker = new SwingWorker<List<Student>, Void>() {
+            @Override
+            protected List<Student> doInBackground() throws Exception {
+                return studentDAO.advancedSearch(criteria, currentCancellation);
+            }
+            
+            @Override
+            protected void done() {
+                searchWorker = null;
+                setSearching(false);
+                if (currentCancellation.isCancelled()) {
+                    return;
+                }
+                
+                try {
+                    List<Student> results = get();
+                    searchResult = results;
+                    
+                    JOptionPane.showMessageDialog(AdvancedSearchDialog.this, 
+                        "Tìm thấy " + results.size() + " sinh viên phù hợp!", 
+                        "Kết quả tìm kiếm", JOptionPane.INFORMATION_MESSAGE);
+                    dispose();
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(AdvancedSearchDialog.this, 
+                        "Lỗi khi tìm kiếm: " + e.getMessage(), 
+                        "Lỗi", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        searchWorker.execute();
+    }
+    
+    private void cancelSearch() {
+        if (cancellation != null) {
+            cancellation.cancel();
+        }
+    }
+    
+    private void setSearching(boolean searching) {
+        btnSearch.setEnabled(!searching);
+        btnClear.setEnabled(!searching);
+        btnSearch.setText(searching ? "Đang tìm..." : "Tìm kiếm");
+        setCursor(searching ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
     }
     
     private void clearFields() {
@@ -221,6 +230,7 @@ public class AdvancedSearchDialog extends JDialog {
         txtMinGpa.setText("");
         txtMaxGpa.setText("");
         cmbGender.setSelectedIndex(0);
+        cmbMatchMode.setSelectedIndex(0);
     }
     
     public List<Student> getSearchResult() {
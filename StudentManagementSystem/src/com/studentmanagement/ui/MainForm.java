@@ -1,6 +1,8 @@
 package com.studentmanagement.ui;
 
+import com.studentmanagement.dao.LocalStudentStore;
 import com.studentmanagement.dao.StudentDAO;
+import com.studentmanagement.dao.StudentRepository;
 import com.studentmanagement.model.Student;
 
 import java.awt.*;
@@ -12,6 +14,7 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.io.File;
+import java.io.IOException;
 import java.text.DecimalFormat;
 
 import javax.swing.*;
@@ -21,6 +24,9 @@ import javax.swing.SwingConstants;
 
 public class MainForm extends JFrame {
     private StudentDAO studentDAO;
+    // Nguồn cho xem/thêm/sửa/xoá/tìm kiếm: studentDAO (SQL Server) hoặc localStore
+    private StudentRepository repository;
+    private LocalStudentStore localStore;
     private StudentTableModel tableModel;
     private JTable studentTable;
     private JTextField txtSearch;
@@ -31,12 +37,22 @@ public class MainForm extends JFrame {
     private JLabel lblTotal, lblConnectionStatus;
     private JProgressBar progressBar;
     private boolean isDatabaseConnected = false;
+    // Phiên bản dữ liệu của danh sách đầy đủ đang hiển thị; -1 khi bảng đang hiện kết quả tìm kiếm
+    // hoặc database không hỗ trợ theo dõi thay đổi (lúc đó refreshChanges tải lại toàn bộ)
+    private long tableVersion = -1;
     
     public MainForm() {
         studentDAO = new StudentDAO();
+        repository = studentDAO;
         testDatabaseConnection();
         initComponents();
         setupLayout();
+        // Không kết nối được server: dùng kho cục bộ để ứng dụng vẫn dùng được
+        if (!isDatabaseConnected && openLocalStore()) {
+            repository = localStore;
+            cmbDataSource.setSelectedIndex(1);
+        }
+        updateDataSourceActions();
         setupEvents();
         refreshTable();
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -105,7 +121,7 @@ public class MainForm extends JFrame {
         });
         
         cmbDataSource = new JComboBox<>(new String[]{
-            "Tất cả dữ liệu", "Chỉ từ Database", "Chỉ từ CSV"
+            "Database (SQL Server)", "Lưu trữ cục bộ"
         });
         cmbDataSource.setToolTipText("Chọn nguồn dữ liệu hiển thị");
         
@@ -434,26 +450,39 @@ public class MainForm extends JFrame {
     }
     
     private void performDataSync() {
-        SwingWorker<Void, String> worker = new SwingWorker<Void, String>() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Chọn file CSV để đồng bộ");
+        fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV Files", "csv"));
+        
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        String filePath = fileChooser.getSelectedFile().getAbsolutePath();
+        
+        SwingWorker<StudentDAO.SyncResult, Void> worker = new SwingWorker<StudentDAO.SyncResult, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
+            protected StudentDAO.SyncResult doInBackground() throws Exception {
                 progressBar.setVisible(true);
                 progressBar.setString("Đang đồng bộ dữ liệu...");
                 progressBar.setIndeterminate(true);
                 
-                // Thực hiện đồng bộ
-                Thread.sleep(2000); // Simulate process
-                
-                return null;
+                // Chỉ thêm/cập nhật, không xoá sinh viên vắng mặt trong file
+                return studentDAO.syncWithCSV(filePath);
             }
             
             @Override
             protected void done() {
                 progressBar.setVisible(false);
-                refreshTable();
-                JOptionPane.showMessageDialog(MainForm.this,
-                    "Đồng bộ dữ liệu thành công!",
-                    "Thông báo", JOptionPane.INFORMATION_MESSAGE);
+                try {
+                    StudentDAO.SyncResult result = get();
+                    refreshChanges();
+                    JOptionPane.showMessageDialog(MainForm.this,
+                        result.getSummary(),
+                        "Thông báo", result.success ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+                } catch (Exception e) {
+                    showErrorMessage("Lỗi khi đồng bộ dữ liệu: " + e.getMessage());
+                }
             }
         };
         worker.execute();
@@ -505,11 +534,45 @@ public class MainForm extends JFrame {
     }
     
     private void filterByDataSource() {
-        String source = (String) cmbDataSource.getSelectedItem();
-        // Implement filtering logic based on data source
+        if (cmbDataSource.getSelectedIndex() == 1) {
+            if (!openLocalStore()) {
+                cmbDataSource.setSelectedIndex(0);
+                return;
+            }
+            repository = localStore;
+        } else {
+            repository = studentDAO;
+        }
+        updateDataSourceActions();
+        tableVersion = -1;
         refreshTable();
     }
     
+    // Sao lưu/khôi phục, đồng bộ, import/export và tìm kiếm nâng cao vẫn chỉ làm việc với SQL Server:
+    // tắt khi đang dùng kho cục bộ để không lẫn dữ liệu của hai nguồn
+    private void updateDataSourceActions() {
+        boolean server = repository == studentDAO;
+        btnAdvancedSearch.setEnabled(server);
+        btnImport.setEnabled(server);
+        btnSyncData.setEnabled(server);
+        btnExport.setEnabled(server);
+        btnBackup.setEnabled(server);
+        btnRestore.setEnabled(server);
+    }
+    
+    private boolean openLocalStore() {
+        if (localStore != null) {
+            return true;
+        }
+        try {
+            localStore = new LocalStudentStore();
+            return true;
+        } catch (IOException e) {
+            showErrorMessage("Không mở được kho dữ liệu cục bộ: " + e.getMessage());
+            return false;
+        }
+    }
+    
     // Các phương thức còn lại giữ nguyên logic cũ nhưng với UI cải tiến
     private void applySorting() {
         List<Student> students = new ArrayList<>(tableModel.getStudents());
@@ -553,8 +616,8 @@ public class MainForm extends JFrame {
         
         if (dialog.getDialogResult()) {
             Student newStudent = dialog.getStudent();
-            if (studentDAO.save(newStudent)) {
-                refreshTable();
+            if (repository.save(newStudent)) {
+                refreshChanges();
                 showSuccessMessage("Thêm sinh viên thành công!");
             } else {
                 showErrorMessage("Mã sinh viên đã tồn tại!");
@@ -578,8 +641,8 @@ public class MainForm extends JFrame {
             
             if (dialog.getDialogResult()) {
                 Student updatedStudent = dialog.getStudent();
-                if (studentDAO.update(updatedStudent)) {
-                    refreshTable();
+                if (repository.update(updatedStudent)) {
+                    refreshChanges();
                     showSuccessMessage("Cập nhật thông tin thành công!");
                 }
             }
@@ -603,8 +666,8 @@ public class MainForm extends JFrame {
                 JOptionPane.WARNING_MESSAGE);
             
             if (confirm == JOptionPane.YES_OPTION) {
-                if (studentDAO.deleteById(student.getStudentId())) {
-                    refreshTable();
+                if (repository.deleteById(student.getStudentId())) {
+                    refreshChanges();
                     showSuccessMessage("Xóa sinh viên thành công!");
                 }
             }
@@ -616,24 +679,29 @@ public class MainForm extends JFrame {
         List<Student> results;
         
         if (keyword.isEmpty()) {
-            results = studentDAO.findAll();
+            results = repository.findAll();
         } else {
-            results = studentDAO.searchByKeyword(keyword);
+            results = repository.searchByKeyword(keyword);
         }
         
+        tableVersion = -1;
         tableModel.setStudents(results);
         updateStatusLabel(results.size());
     }
     
     private void refreshTable() {
         SwingWorker<List<Student>, Void> worker = new SwingWorker<List<Student>, Void>() {
+            private long version;
+            
             @Override
             protected List<Student> doInBackground() throws Exception {
                 progressBar.setVisible(true);
                 progressBar.setString("Đang tải dữ liệu...");
                 progressBar.setIndeterminate(true);
                 
-                return studentDAO.findAll();
+                // Lấy version trước khi đọc: thay đổi xen giữa sẽ được refreshChanges áp dụng lại, không bị mất
+                version = repository == studentDAO ? studentDAO.getChangeVersion() : -1;
+                return repository.findAll();
             }
             
             @Override
@@ -643,6 +711,7 @@ public class MainForm extends JFrame {
                     txtSearch.setText("");
                     cmbSortBy.setSelectedIndex(0);
                     tableModel.setStudents(students);
+                    tableVersion = version;
                     updateStatusLabel(students.size());
                 } catch (Exception e) {
                     showErrorMessage("Lỗi khi tải dữ liệu: " + e.getMessage());
@@ -654,6 +723,47 @@ public class MainForm extends JFrame {
         worker.execute();
     }
     
+    // Sau thêm/sửa/xoá: chỉ tải các dòng thay đổi từ tableVersion và cập nhật đúng các dòng đó trong bảng
+    private void refreshChanges() {
+        if (tableVersion < 0) {
+            refreshTable();
+            return;
+        }
+        
+        final long since = tableVersion;
+        SwingWorker<StudentDAO.ChangeSet, Void> worker = new SwingWorker<StudentDAO.ChangeSet, Void>() {
+            @Override
+            protected StudentDAO.ChangeSet doInBackground() throws Exception {
+                return studentDAO.findChangesSince(since);
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    StudentDAO.ChangeSet changes = get();
+                    // Bảng đã đổi trong lúc chờ (lần refresh khác xong trước, hoặc chuyển sang kết quả tìm kiếm):
+                    // hỏi lại từ version mới để không bỏ sót thay đổi của lần ghi này
+                    if (tableVersion != since) {
+                        if (tableVersion >= 0) {
+                            refreshChanges();
+                        }
+                        return;
+                    }
+                    if (changes.fullReload) {
+                        refreshTable();
+                        return;
+                    }
+                    tableModel.applyChanges(changes.changed, changes.deletedIds);
+                    tableVersion = changes.version;
+                    updateStatusLabel(tableModel.getRowCount());
+                } catch (Exception e) {
+                    showErrorMessage("Lỗi khi tải dữ liệu: " + e.getMessage());
+                }
+            }
+        };
+        worker.execute();
+    }
+    
     private void updateStatusLabel(int count) {
         lblTotal.setText("Tổng số sinh viên: " + count);
     }
@@ -683,16 +793,66 @@ public class MainForm extends JFrame {
         
         if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
             String fileName = fileChooser.getSelectedFile().getAbsolutePath();
-            if (!fileName.toLowerCase().endsWith(".csv")) {
+            // .dat = file dữ liệu nhị phân, còn lại là CSV
+            boolean dataFile = fileName.toLowerCase().endsWith(".dat");
+            if (!dataFile && !fileName.toLowerCase().endsWith(".csv")) {
                 fileName += ".csv";
             }
             
-            List<Student> students = studentDAO.findAll();
-            if (studentDAO.exportToCSV(fileName, students)) {
-                showSuccessMessage("Xuất file CSV thành công!\nĐường dẫn: " + fileName);
-            } else {
-                showErrorMessage("Lỗi khi xuất file CSV!");
-            }
+            String exportPath = fileName;
+            
+            // Ghi trực tiếp từ database theo từng dòng, tiến độ được báo về progress bar
+            SwingWorker<Boolean, long[]> worker = new SwingWorker<Boolean, long[]>() {
+                @Override
+                protected Boolean doInBackground() throws Exception {
+                    progressBar.setVisible(true);
+                    progressBar.setString("Đang xuất file CSV...");
+                    progressBar.setIndeterminate(true);
+                    
+                    if (dataFile) {
+                        return studentDAO.exportAllToDataFile(exportPath, (rows, total, rowsPerSecond) ->
+                            publish(new long[]{rows, total, Math.round(rowsPerSecond)}));
+                    }
+                    return studentDAO.exportAllToCSV(exportPath, (rows, total, rowsPerSecond) ->
+                        publish(new long[]{rows, total, Math.round(rowsPerSecond)}));
+                }
+                
+                @Override
+                protected void process(List<long[]> chunks) {
+                    showExportProgress("Đang xuất file CSV", chunks.get(chunks.size() - 1));
+                }
+                
+                @Override
+                protected void done() {
+                    try {
+                        if (get()) {
+                            showSuccessMessage("Xuất file CSV thành công!\nĐường dẫn: " + exportPath);
+                        } else {
+                            showErrorMessage("Lỗi khi xuất file CSV!");
+                        }
+                    } catch (Exception e) {
+                        showErrorMessage("Lỗi khi xuất file CSV: " + e.getMessage());
+                    } finally {
+                        progressBar.setVisible(false);
+                    }
+                }
+            };
+            worker.execute();
+        }
+    }
+    
+    // progress = {số dòng đã ghi, tổng số dòng (-1 nếu không rõ), dòng/giây}
+    private void showExportProgress(String label, long[] progress) {
+        long rows = progress[0];
+        long total = progress[1];
+        
+        if (total > 0) {
+            progressBar.setIndeterminate(false);
+            progressBar.setMaximum(100);
+            progressBar.setValue((int) Math.min(100, rows * 100 / total));
+            progressBar.setString(String.format("%s... %d/%d (%d dòng/giây)", label, rows, total, progress[2]));
+        } else {
+            progressBar.setString(String.format("%s... %d dòng (%d dòng/giây)", label, rows, progress[2]));
         }
     }
     
@@ -705,9 +865,9 @@ public class MainForm extends JFrame {
         if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
             String filePath = fileChooser.getSelectedFile().getAbsolutePath();
             
-            SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>() {
+            SwingWorker<StudentDAO.ImportResult, Void> worker = new SwingWorker<StudentDAO.ImportResult, Void>() {
                 @Override
-                protected Integer doInBackground() throws Exception {
+                protected StudentDAO.ImportResult doInBackground() throws Exception {
                     progressBar.setVisible(true);
                     progressBar.setString("Đang nhập dữ liệu từ CSV...");
                     progressBar.setIndeterminate(true);
@@ -718,7 +878,7 @@ public class MainForm extends JFrame {
                 @Override
                 protected void done() {
                     try {
-                        int importedCount = get();
+                        int importedCount = get().successCount;
                         refreshTable();
                         showSuccessMessage("Nhập dữ liệu thành công!\nSố sinh viên được nhập: " + importedCount);
                     } catch (Exception e) {
@@ -740,7 +900,7 @@ public class MainForm extends JFrame {
                 progressBar.setString("Đang tính toán thống kê...");
                 progressBar.setIndeterminate(true);
                 
-                return studentDAO.getAcademicStatistics();
+                return repository.getAcademicStatistics();
             }
             
             @Override
@@ -794,7 +954,7 @@ public class MainForm extends JFrame {
         }
         
         // Top 5 students
-        List<Student> topStudents = studentDAO.findTopStudentsByGpa(5);
+        List<Student> topStudents = repository.findTopStudentsByGpa(5);
         if (!topStudents.isEmpty()) {
             statsText.append("\n🏆 Top 5 sinh viên xuất sắc:\n");
             for (int i = 0; i < topStudents.size(); i++) {
@@ -827,6 +987,8 @@ public class MainForm extends JFrame {
                         .append(": ").append(entry.getValue()).append(" sinh viên\n"));
         }
         
+        statsText.append("\n⏱️ ").append((repository == studentDAO ? studentDAO.getStatisticsCacheStatus() : localStore.getStatusSummary())).append("\n");
+        
         // Create enhanced statistics dialog
         JDialog statsDialog = new JDialog(this, "📊 Thống kê Sinh viên", true);
         statsDialog.setSize(700, 600);
@@ -873,6 +1035,18 @@ public class MainForm extends JFrame {
     }
     
     private void backupData() {
+        Object[] options = {"Toàn bộ", "Gia tăng", "Hủy"};
+        int choice = JOptionPane.showOptionDialog(this,
+            "Sao lưu toàn bộ dữ liệu, hay chỉ các thay đổi từ sau một bản sao lưu trước?",
+            "Sao lưu dữ liệu", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        if (choice == 1) {
+            backupIncremental();
+            return;
+        }
+        if (choice != 0) {
+            return;
+        }
+        
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Chọn vị trí sao lưu dữ liệu");
         fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
@@ -882,14 +1056,20 @@ public class MainForm extends JFrame {
         if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
             String backupPath = fileChooser.getSelectedFile().getAbsolutePath();
             
-            SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
+            SwingWorker<Boolean, long[]> worker = new SwingWorker<Boolean, long[]>() {
                 @Override
                 protected Boolean doInBackground() throws Exception {
                     progressBar.setVisible(true);
                     progressBar.setString("Đang sao lưu dữ liệu...");
                     progressBar.setIndeterminate(true);
                     
-                    return studentDAO.backupData(backupPath);
+                    return studentDAO.backupData(backupPath, (rows, total, rowsPerSecond) ->
+                        publish(new long[]{rows, total, Math.round(rowsPerSecond)}));
+                }
+                
+                @Override
+                protected void process(List<long[]> chunks) {
+                    showExportProgress("Đang sao lưu dữ liệu", chunks.get(chunks.size() - 1));
                 }
                 
                 @Override
@@ -912,6 +1092,54 @@ public class MainForm extends JFrame {
         }
     }
     
+    private void backupIncremental() {
+        JFileChooser previousChooser = new JFileChooser();
+        previousChooser.setDialogTitle("Chọn bản sao lưu gần nhất (toàn bộ hoặc gia tăng)");
+        previousChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        previousChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Backup Files", "dat", "inc"));
+        if (previousChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        String previousPath = previousChooser.getSelectedFile().getAbsolutePath();
+        
+        JFileChooser fileChooser = new JFileChooser(previousChooser.getCurrentDirectory());
+        fileChooser.setDialogTitle("Chọn vị trí lưu bản sao lưu gia tăng");
+        fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        fileChooser.setSelectedFile(new File("backup_" + 
+            java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".inc"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        String incrementPath = fileChooser.getSelectedFile().getAbsolutePath();
+        
+        SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
+            @Override
+            protected Boolean doInBackground() throws Exception {
+                progressBar.setVisible(true);
+                progressBar.setString("Đang sao lưu gia tăng...");
+                progressBar.setIndeterminate(true);
+                
+                return studentDAO.backupIncremental(previousPath, incrementPath);
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    if (get()) {
+                        showSuccessMessage("Sao lưu gia tăng thành công!\nĐường dẫn: " + incrementPath);
+                    } else {
+                        showErrorMessage("Không thể sao lưu gia tăng từ bản sao lưu đã chọn.\nHãy sao lưu toàn bộ.");
+                    }
+                } catch (Exception e) {
+                    showErrorMessage("Lỗi khi sao lưu: " + e.getMessage());
+                } finally {
+                    progressBar.setVisible(false);
+                }
+            }
+        };
+        worker.execute();
+    }
+    
     private void restoreData() {
         int confirm = JOptionPane.showConfirmDialog(this, 
             "⚠️ Khôi phục dữ liệu sẽ thay thế toàn bộ dữ liệu hiện tại.\nBạn có chắc chắn muốn tiếp tục?", 
@@ -919,12 +1147,16 @@ public class MainForm extends JFrame {
             
         if (confirm == JOptionPane.YES_OPTION) {
             JFileChooser fileChooser = new JFileChooser();
-            fileChooser.setDialogTitle("Chọn file sao lưu để khôi phục");
+            fileChooser.setDialogTitle("Chọn bản sao lưu toàn bộ (và các bản gia tăng sau nó)");
             fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
-            fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Backup Files", "dat"));
+            fileChooser.setMultiSelectionEnabled(true);
+            fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Backup Files", "dat", "inc"));
             
             if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
-                String backupPath = fileChooser.getSelectedFile().getAbsolutePath();
+                List<String> backupPaths = new ArrayList<>();
+                for (File file : fileChooser.getSelectedFiles()) {
+                    backupPaths.add(file.getAbsolutePath());
+                }
                 
                 SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
                     @Override
@@ -933,7 +1165,7 @@ public class MainForm extends JFrame {
                         progressBar.setString("Đang khôi phục dữ liệu...");
                         progressBar.setIndeterminate(true);
                         
-                        return studentDAO.restoreData(backupPath);
+                        return studentDAO.restoreData(backupPaths);
                     }
                     
                     @Override
@@ -964,6 +1196,7 @@ public class MainForm extends JFrame {
         
         if (dialog.getSearchResult() != null) {
             List<Student> results = dialog.getSearchResult();
+            tableVersion = -1;
             tableModel.setStudents(results);
             updateStatusLabel(results.size());
             txtSearch.setText("🔍 [Tìm kiếm nâng cao] " + results.size() + " kết quả");
@@ -980,6 +1213,7 @@ public class MainForm extends JFrame {
     }
     
     public void setStudents(List<Student> students) {
+        tableVersion = -1;
         tableModel.setStudents(students);
         updateStatusLabel(students.size());
     }
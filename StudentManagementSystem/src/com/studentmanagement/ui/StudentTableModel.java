@@ -3,7 +3,12 @@ package com.studentmanagement.ui;
 import com.studentmanagement.model.Student;
 import javax.swing.table.AbstractTableModel;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 public class StudentTableModel extends AbstractTableModel {
     private final String[] columnNames = {
@@ -12,6 +17,10 @@ public class StudentTableModel extends AbstractTableModel {
     };
     
     private List<Student> students;
+    // Mã SV (chữ hoa) -> chỉ số dòng cho applyChanges; null = cần dựng lại
+    private Map<String, Integer> rowById;
+    // Như ORDER BY student_id (collation không phân biệt hoa thường)
+    private static final Comparator<Student> BY_ID = (a, b) -> rowKey(a.getStudentId()).compareTo(rowKey(b.getStudentId()));
     
     public StudentTableModel() {
         this.students = new ArrayList<>();
@@ -69,6 +78,7 @@ public class StudentTableModel extends AbstractTableModel {
     
     public void setStudents(List<Student> students) {
         this.students = students != null ? students : new ArrayList<>();
+        rowById = null;
         fireTableDataChanged();
     }
     
@@ -85,20 +95,90 @@ public class StudentTableModel extends AbstractTableModel {
     
     public void addStudent(Student student) {
         students.add(student);
+        if (rowById != null) {
+            rowById.put(rowKey(student.getStudentId()), students.size() - 1);
+        }
         fireTableRowsInserted(students.size() - 1, students.size() - 1);
     }
     
     public void removeStudent(int rowIndex) {
         if (rowIndex >= 0 && rowIndex < students.size()) {
             students.remove(rowIndex);
+            rowById = null;
             fireTableRowsDeleted(rowIndex, rowIndex);
         }
     }
     
     public void updateStudent(int rowIndex, Student student) {
         if (rowIndex >= 0 && rowIndex < students.size()) {
-            students.set(rowIndex, student);
+            Student previous = students.set(rowIndex, student);
+            if (rowById != null) {
+                rowById.remove(rowKey(previous.getStudentId()));
+                rowById.put(rowKey(student.getStudentId()), rowIndex);
+            }
             fireTableRowsUpdated(rowIndex, rowIndex);
         }
     }
+    
+    // Áp dụng phần thay đổi từ StudentDAO.findChangesSince: xoá trước, rồi sửa dòng đã có hoặc chèn dòng mới vào đúng vị trí
+    // theo mã SV (thứ tự của findAll). Chỉ phát sự kiện cho các dòng bị ảnh hưởng nên bảng giữ nguyên vị trí cuộn và dòng đang chọn
+    public void applyChanges(List<Student> changed, List<String> deletedIds) {
+        if (deletedIds != null && !deletedIds.isEmpty()) {
+            List<Integer> rows = new ArrayList<>();
+            for (String studentId : deletedIds) {
+                Integer row = rowIndexOf(studentId);
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+            // Xoá từ dưới lên để chỉ số các dòng còn lại không đổi
+            Collections.sort(rows, Collections.reverseOrder());
+            for (int row : rows) {
+                students.remove(row);
+                fireTableRowsDeleted(row, row);
+            }
+            if (!rows.isEmpty()) {
+                rowById = null;
+            }
+        }
+        
+        if (changed == null || changed.isEmpty()) {
+            return;
+        }
+        List<Student> added = new ArrayList<>();
+        for (Student student : changed) {
+            Integer row = rowIndexOf(student.getStudentId());
+            if (row != null) {
+                students.set(row, student);
+                fireTableRowsUpdated(row, row);
+            } else {
+                added.add(student);
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+        for (Student student : added) {
+            int row = Collections.binarySearch(students, student, BY_ID);
+            row = row < 0 ? -row - 1 : row;
+            students.add(row, student);
+            fireTableRowsInserted(row, row);
+        }
+        rowById = null;
+    }
+    
+    private Integer rowIndexOf(String studentId) {
+        if (rowById == null) {
+            rowById = new HashMap<>(students.size() * 2);
+            for (int i = 0; i < students.size(); i++) {
+                rowById.put(rowKey(students.get(i).getStudentId()), i);
+            }
+        }
+        return rowById.get(rowKey(studentId));
+    }
+    
+    // Mã SV so sánh không phân biệt hoa thường như trong database
+    private static String rowKey(String studentId) {
+        return studentId != null ? studentId.toUpperCase(Locale.ROOT) : "";
+    }
 }
\ No newline at end of file
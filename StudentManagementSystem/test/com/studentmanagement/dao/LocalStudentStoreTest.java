@@ -0,0 +1,183 @@
+package com.studentmanagement.dao;
+
+import com.studentmanagement.model.Student;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LocalStudentStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String directory;
+    private LocalStudentStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder("store").getAbsolutePath();
+        store = new LocalStudentStore(directory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    public void roundTripKeepsAllColumns() throws IOException {
+        Student original = new Student("SE182753", "Nguyễn Bảo Quân", LocalDate.of(2004, 10, 5), "Nam",
+                "87 Huỳnh Khương An, Gò Vấp", "0903851360", "quan@example.com", "Công nghệ thông tin", 3.2, "JS.NET");
+        Student noOptional = new Student("SE000001", "Trần Thị B", null, null, null, null, null, null, 0.125, null);
+        assertTrue(store.save(original));
+        assertTrue(store.save(noOptional));
+
+        assertEquals(describe(original), describe(store.findById("se182753")));
+        reopen();
+        assertEquals(describe(original), describe(store.findById("SE182753")));
+        assertEquals(describe(noOptional), describe(store.findById("SE000001")));
+        assertEquals(2, store.count());
+    }
+
+    @Test
+    public void updateAndDeleteSurviveReopen() throws IOException {
+        store.save(student("SE1", 2.0));
+        store.save(student("SE2", 3.0));
+        assertTrue(store.update(student("SE1", 3.5)));
+        assertTrue(store.deleteById("SE2"));
+        assertFalse(store.update(student("SE9", 1.0)));
+
+        reopen();
+        assertEquals(3.5, store.findById("SE1").getGpa(), 0.0);
+        assertNull(store.findById("SE2"));
+        assertEquals(1, store.count());
+    }
+
+    @Test
+    public void compactionDropsDeadRecords() throws IOException {
+        for (int round = 0; round < 5; round++) {
+            List<Student> batch = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                batch.add(student(String.format("SE%04d", i), round + i % 4 * 0.25));
+            }
+            assertEquals(batch.size(), store.saveAll(batch));
+        }
+        for (int i = 0; i < 100; i++) {
+            store.deleteById(String.format("SE%04d", i));
+        }
+        List<String> before = describeAll(store.findAll());
+        long sizeBefore = segmentBytes();
+
+        store.compact();
+        assertEquals(before, describeAll(store.findAll()));
+        assertTrue(segmentBytes() < sizeBefore);
+
+        // Ghi sau compaction và mở lại vẫn đúng
+        store.save(student("SE9999", 4.0));
+        reopen();
+        assertEquals(401, store.count());
+        List<Student> after = store.findAll();
+        after.removeIf(s -> s.getStudentId().equals("SE9999"));
+        assertEquals(before, describeAll(after));
+    }
+
+    @Test
+    public void recoveryDropsTornTail() throws IOException {
+        store.save(student("SE1", 2.0));
+        store.save(student("SE2", 3.0));
+        store.close();
+        store = null;
+
+        // Lần ghi cuối bị ngắt giữa chừng: header khai báo nhiều byte hơn phần thực có
+        Path segment = newestSegment();
+        long validSize = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        store = new LocalStudentStore(directory);
+        assertEquals(2, store.count());
+        assertEquals(validSize, Files.size(segment));
+        assertTrue(store.save(student("SE3", 1.5)));
+
+        reopen();
+        assertEquals(3, store.count());
+        assertEquals(1.5, store.findById("SE3").getGpa(), 0.0);
+    }
+
+    @Test
+    public void secondOpenOfSameDirectoryFails() throws IOException {
+        try {
+            new LocalStudentStore(directory).close();
+            fail("Mở được thư mục đang bị khoá");
+        } catch (IOException expected) {
+            // đúng
+        }
+        store.close();
+        store = new LocalStudentStore(directory);
+        assertTrue(store.save(student("SE1", 2.0)));
+    }
+
+    private void reopen() throws IOException {
+        store.close();
+        store = new LocalStudentStore(directory);
+    }
+
+    private static Student student(String studentId, double gpa) {
+        return new Student(studentId, "Sinh viên " + studentId, LocalDate.of(2004, 1, 1), "Nữ", null,
+                "0900000000", null, "CNTT", gpa, "SE1801");
+    }
+
+    private static String describe(Student s) {
+        return s == null ? null : String.join("|", s.getStudentId(), s.getFullName(), String.valueOf(s.getBirthDate()),
+                s.getGender(), s.getAddress(), s.getPhone(), s.getEmail(), s.getMajor(), String.valueOf(s.getGpa()), s.getClassName());
+    }
+
+    private static List<String> describeAll(List<Student> students) {
+        List<String> described = new ArrayList<>();
+        for (Student s : students) {
+            described.add(describe(s));
+        }
+        return described;
+    }
+
+    private long segmentBytes() throws IOException {
+        long total = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(directory), "segment-*.log")) {
+            for (Path file : files) {
+                total += Files.size(file);
+            }
+        }
+        return total;
+    }
+
+    private Path newestSegment() throws IOException {
+        Path newest = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(directory), "segment-*.log")) {
+            for (Path file : files) {
+                if (newest == null || file.getFileName().toString().compareTo(newest.getFileName().toString()) > 0) {
+                    newest = file;
+                }
+            }
+        }
+        return newest;
+    }
+}